@@ -0,0 +1,29 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the benchmarks matching the optional pattern with the GC profiler, so that the
+ * throughput is reported together with the allocation rate (gc.alloc.rate.norm is the
+ * allocation per operation)
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 ? args[0] : "com\\.ibm\\.maximo\\.oslc\\..*Benchmark";
+		new Runner(new OptionsBuilder().include(include).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,94 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers the login with a session cookie, the GETs of a collection with a fixed page,
+ * those of a member with its first member and the other requests with an empty array,
+ * so that the benchmarks measure the client rather than the network
+ */
+class BenchmarkTransport implements Transport {
+
+	private static final Map<String, List<String>> HEADERS = Collections.singletonMap("Set-Cookie",
+			Collections.singletonList("JSESSIONID=bench"));
+	private static final byte[] EMPTY = "[]".getBytes();
+
+	private final byte[] page;
+	private final byte[] member;
+
+	BenchmarkTransport(byte[] page, byte[] member) {
+		this.page = page;
+		this.member = member;
+	}
+
+	public TransportResponse send(TransportRequest request) throws IOException {
+		String uri = request.getURI();
+		int os = uri.indexOf("/os/");
+		if (os < 0) {
+			return new TransportResponse(200, HEADERS, null);
+		}
+		byte[] body = EMPTY;
+		if ("GET".equals(request.getMethod())) {
+			String path = uri.contains("?") ? uri.substring(os + 4, uri.indexOf('?')) : uri.substring(os + 4);
+			body = path.indexOf('/') > 0 ? this.member : this.page;
+		}
+		return new TransportResponse(200, HEADERS, new ByteArrayInputStream(body));
+	}
+
+	static MaximoConnector connector(int members, boolean lean) throws IOException, OslcException {
+		MaximoConnector mc = new MaximoConnector(new Options().user("wilson").password("wilson")
+				.auth(Options.AUTH_MAXAUTH).host("localhost").port(80).lean(lean))
+						.transport(new BenchmarkTransport(page(members, lean), member(0, lean)));
+		mc.connect();
+		return mc;
+	}
+
+	/**
+	 * A page of work orders as Maximo returns it, lean or with the rdf and spi prefixes
+	 */
+	static byte[] page(int members, boolean lean) {
+		StringBuilder sb = new StringBuilder();
+		sb.append('{').append(lean ? "\"member\"" : "\"rdfs:member\"").append(":[");
+		for (int i = 0; i < members; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			appendMember(sb, i, lean);
+		}
+		sb.append("],").append(lean ? "\"responseInfo\"" : "\"oslc:responseInfo\"")
+				.append(":{\"totalCount\":").append(members).append("}}");
+		return sb.toString().getBytes();
+	}
+
+	static byte[] member(int i, boolean lean) {
+		return appendMember(new StringBuilder(), i, lean).toString().getBytes();
+	}
+
+	private static StringBuilder appendMember(StringBuilder sb, int i, boolean lean) {
+		String prefix = lean ? "" : "spi:";
+		String href = "http://localhost:80/maximo/oslc/os/mxwodetail/_V08vMTAw" + i;
+		sb.append("{\"").append(lean ? "href" : "rdf:about").append("\":\"").append(href).append("\",")
+				.append('"').append(prefix).append("wonum\":\"").append(1000 + i).append("\",")
+				.append('"').append(prefix).append("description\":\"Inspect pump ").append(i).append("\",")
+				.append('"').append(prefix).append("status\":\"WAPPR\",")
+				.append('"').append(prefix).append("estdur\":").append(i % 24).append(".5,")
+				.append('"').append(prefix).append("statusdate\":\"2016-05-12T10:15:30-04:00\",")
+				.append('"').append(prefix).append("wplabor\":[{\"").append(prefix)
+				.append("laborcode\":\"WILSON\",\"").append(prefix).append("laborhrs\":2}]}");
+		return sb;
+	}
+}
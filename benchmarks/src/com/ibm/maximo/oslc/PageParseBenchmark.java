@@ -0,0 +1,69 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Fetch and parse of a {@code ResourceSet} page, lean and with prefixes, from an
+ * in-memory transport
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageParseBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int members;
+
+	@Param({ "true", "false" })
+	boolean lean;
+
+	private ResourceSet rs;
+
+	@Setup
+	public void setup() throws Exception {
+		MaximoConnector mc = BenchmarkTransport.connector(this.members, this.lean);
+		this.rs = mc.resourceSet("mxwodetail").select("wonum", "description", "status").pageSize(this.members);
+	}
+
+	@Benchmark
+	public void fetchPage(Blackhole bh) throws Exception {
+		bh.consume(this.rs.fetch().toJSON());
+	}
+
+	@Benchmark
+	public void readMembers(Blackhole bh) throws Exception {
+		try (MemberReader reader = this.rs.pageReader()) {
+			for (JsonObject member; (member = reader.read()) != null;) {
+				bh.consume(member);
+			}
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Assembly of the {@code BulkProcessor} payload and serialization of fetched data,
+ * the requests go to an in-memory transport
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	int size;
+
+	private MaximoConnector mc;
+	private ResourceSet rs;
+	private Resource resource;
+
+	@Setup
+	public void setup() throws Exception {
+		this.mc = BenchmarkTransport.connector(this.size, true);
+		this.rs = this.mc.resourceSet("mxwodetail").fetch();
+		this.resource = this.mc.resource("http://localhost/maximo/oslc/os/mxwodetail/_V08vMTAw0");
+	}
+
+	@Benchmark
+	public JsonArray bulkPayload() {
+		BulkProcessor bp = new BulkProcessor(this.mc, "http://localhost/maximo/oslc/os/mxwodetail");
+		for (int i = 0; i < this.size; i++) {
+			String href = "http://localhost/maximo/oslc/os/mxwodetail/_V08vMTAw" + i;
+			switch (i % 3) {
+			case 0:
+				bp.create(Json.createObjectBuilder().add("wonum", "N" + i).add("description", "New " + i).build());
+				break;
+			case 1:
+				bp.merge(Json.createObjectBuilder().add("status", "APPR").build(), href, "status");
+				break;
+			default:
+				bp.delete(href);
+			}
+		}
+		return bp.processBulk();
+	}
+
+	@Benchmark
+	public byte[] resourceSetToJSONBytes() throws Exception {
+		return this.rs.toJSONBytes();
+	}
+
+	@Benchmark
+	public byte[] resourceToJSONBytes() throws Exception {
+		return this.resource.toJSONBytes();
+	}
+}
@@ -0,0 +1,81 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building of the collection uri and of its where, select and saved query clauses
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final String[] DEEP_SELECT = { "wonum", "status", "$alias", "wplabor.laborcode",
+			"wplabor.craft.skilllevel", "wplabor.craft.vendor.name", "asset.assetnum", "asset.location.description",
+			"asset.location.parent.siteid", "asset.location.parent.orgid", "woactivity.taskid", "woactivity.wpmaterial.itemnum" };
+
+	private final Date date = new Date(1463062530000L);
+	private ResourceSet rs;
+
+	@Setup
+	public void setup() throws Exception {
+		MaximoConnector mc = BenchmarkTransport.connector(0, true);
+		this.rs = mc.resourceSet("mxwodetail").select(DEEP_SELECT)
+				.where(new QueryWhere().where("status").in("APPR", "WAPPR").and("siteid").equalTo("BEDFORD"))
+				.orderBy("wonum", "statusdate").pageSize(100).paging(true)
+				.savedQuery(new SavedQuery().name("OWNER").addParam("owner", "WILSON").addParam("since", this.date));
+	}
+
+	@Benchmark
+	public String buildURI() throws Exception {
+		return this.rs.buildURI().getAppURI();
+	}
+
+	@Benchmark
+	public String whereClause() throws Exception {
+		return new QueryWhere().where("wonum").equalTo("1000").and("statusdate").gt(this.date)
+				.and("statusdate").lte(this.date).and("wotask.status").in("APPR", "WAPPR").and("wotask.qty").lte(100)
+				.and("worktype").startsWith("CM").whereClause();
+	}
+
+	@Benchmark
+	public String select() {
+		return new QuerySelect().select(DEEP_SELECT);
+	}
+
+	@Benchmark
+	public String savedQueryClause() {
+		return new SavedQuery().name("OWNER").addParam("owner", "WILSON").addParam("since", this.date)
+				.addParam("priority", 2).savedQueryClause();
+	}
+
+	@Benchmark
+	public String stringValueOfDate() throws Exception {
+		return Util.stringValue(this.date);
+	}
+}
@@ -0,0 +1,376 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command line load driver: replays a workload of client operations against a Maximo server
+ * and reports the throughput, the latency percentiles and the errors of every operation.
+ * <p>
+ * Without a rate the workers run closed loop, each starting its next operation when the last
+ * one returns. With a rate, or for a trace, the operations are started on schedule whatever
+ * the response times and their latency is measured from the scheduled start, so the time an
+ * operation waits for a free worker is part of its latency. At most backlog operations wait,
+ * the starts beyond are rejected, and an operation starting more than late milliseconds after
+ * its schedule is counted as an error: both mean the server or the workers cannot keep up.
+ * <pre>
+ * java -jar loadgen.jar --host maximo --port 9080 --user wilson --password wilson
+ *     --workload workload.txt --rate 200 --concurrency 32 --duration 300 --warmup 30
+ * </pre>
+ */
+public class LoadGenerator {
+
+	private static final String USAGE = String.join(System.lineSeparator(),
+			"Usage: java -jar loadgen.jar [--name value]...",
+			"  --host localhost --port 80 --https false --context maximo",
+			"  --user --password --auth maxauth|basic|form --lean true",
+			"  --transport httpclient|urlconnection --pool 0 (connections kept per host, 0 for the JDK default)",
+			"  --workload file (weighted script or @offset trace) or --mix query=60,member=20,update=10,bulk=5,attachment=5 --os mxwodetail",
+			"  --rate 0 (operations per second, 0 runs closed loop) --concurrency 10 --duration 60 --warmup 0",
+			"  --backlog 1000 (operations waiting for a worker) --late 1000 (ms after its schedule a start is an error, 0 never)",
+			"  --speed 1 (trace replay speed) --members 100 (members sampled for member, update, bulk and attachment)");
+
+	private final MaximoConnector mc;
+	private final Workload workload;
+	private final MetricsRegistry registry;
+	private final Map<String, List<String>> members = new HashMap<String, List<String>>();
+	private final Map<String, List<String>> attachments = new HashMap<String, List<String>>();
+	private final Map<String, OperationStats> stats = new ConcurrentHashMap<String, OperationStats>();
+	private volatile long measureFrom;
+	private long lateNanos;
+
+	/**
+	 * Latency and outcome of the runs of one line of the report
+	 */
+	static class OperationStats {
+
+		private final Histogram latency = new Histogram();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+		private final Map<String, LongAdder> causes = new ConcurrentHashMap<String, LongAdder>();
+
+		void record(long nanos, String cause) {
+			this.latency.record(nanos);
+			if (cause != null) {
+				this.failed(cause);
+			}
+		}
+
+		/**
+		 * An operation that never started, an error without latency
+		 */
+		void reject(String cause) {
+			this.rejected.increment();
+			this.failed(cause);
+		}
+
+		private void failed(String cause) {
+			this.errors.increment();
+			this.causes.computeIfAbsent(cause, c -> new LongAdder()).increment();
+		}
+
+		Histogram getLatency() {
+			return this.latency;
+		}
+
+		/**
+		 * The operations run or rejected
+		 */
+		long getCount() {
+			return this.latency.getCount() + this.rejected.sum();
+		}
+
+		long getErrorCount() {
+			return this.errors.sum();
+		}
+
+		Map<String, Long> getCauses() {
+			Map<String, Long> causes = new TreeMap<String, Long>();
+			this.causes.forEach((cause, n) -> causes.put(cause, n.sum()));
+			return causes;
+		}
+	}
+
+	/**
+	 * @param mc connected, with a MetricsRegistry set on its options
+	 */
+	LoadGenerator(MaximoConnector mc, Workload workload) {
+		this.mc = mc;
+		this.workload = workload;
+		this.registry = (MetricsRegistry) mc.getOptions().getMetrics();
+		for (Operation op : workload.getOperations()) {
+			this.stats.putIfAbsent(op.getName(), new OperationStats());
+		}
+	}
+
+	/**
+	 * Sample the members and the attachments the operations pick from
+	 */
+	void prepare(int sampleSize) throws Exception {
+		Map<String, Boolean> sampled = new LinkedHashMap<String, Boolean>();
+		for (Operation op : this.workload.getOperations()) {
+			boolean docs = op.getType().equals(Operation.ATTACHMENT);
+			if (op.needsMembers() || docs) {
+				sampled.merge(op.getObjectStructure(), docs, Boolean::logicalOr);
+			}
+		}
+		for (Map.Entry<String, Boolean> e : sampled.entrySet()) {
+			ResourceSet rs = this.mc.resourceSet(e.getKey()).select("doclinks").pageSize(sampleSize).fetch();
+			List<String> hrefs = new ArrayList<String>();
+			List<String> docs = new ArrayList<String>();
+			for (int i = 0; i < rs.count(); i++) {
+				Resource member = rs.member(i);
+				hrefs.add(member.getURI());
+				if (e.getValue() && docs.size() < sampleSize) {
+					AttachmentSet as = member.attachmentSet("doclinks", null);
+					for (int j = 0; j < as.thisPageSize(); j++) {
+						docs.add(as.member(j).getURI());
+					}
+				}
+			}
+			if (hrefs.isEmpty() || (e.getValue() && docs.isEmpty())) {
+				throw new IllegalStateException(e.getKey() + " has no " + (hrefs.isEmpty() ? "member" : "attachment"));
+			}
+			this.members.put(e.getKey(), hrefs);
+			this.attachments.put(e.getKey(), docs);
+		}
+	}
+
+	/**
+	 * Run the workload closed loop on concurrency workers
+	 */
+	void runClosed(int concurrency, long durationMillis, long warmupMillis) throws InterruptedException {
+		long start = System.nanoTime();
+		long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		this.measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			workers.execute(() -> {
+				long now;
+				while ((now = System.nanoTime()) < end) {
+					this.execute(this.workload.next(), now);
+				}
+			});
+		}
+		this.clearWhenWarm(warmupMillis);
+		workers.shutdown();
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Start the operations of the mix at a fixed rate, or those of the trace at their offsets
+	 * divided by speed, on at most concurrency workers. The starts finding backlog operations
+	 * waiting are rejected, those later than lateMillis after their schedule fail, unless
+	 * lateMillis is 0.
+	 */
+	void runOpen(double rate, double speed, int concurrency, int backlog, long lateMillis, long durationMillis,
+			long warmupMillis) throws InterruptedException {
+		long start = System.nanoTime();
+		long end = durationMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(durationMillis) : Long.MAX_VALUE;
+		this.measureFrom = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+		this.lateNanos = TimeUnit.MILLISECONDS.toNanos(lateMillis);
+		ExecutorService workers = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(backlog));
+		Thread clear = new Thread(() -> {
+			try {
+				this.clearWhenWarm(warmupMillis);
+			} catch (InterruptedException e) {
+				// the run ended during the warm up
+			}
+		});
+		clear.setDaemon(true);
+		clear.start();
+		int count = this.workload.getOperations().size();
+		for (long i = 0;; i++) {
+			if (this.workload.isTrace() && i == count) {
+				break;
+			}
+			long scheduled = start + (this.workload.isTrace()
+					? (long) (TimeUnit.MILLISECONDS.toNanos(this.workload.offset((int) i)) / speed)
+					: (long) (i * 1e9 / rate));
+			if (scheduled >= end) {
+				break;
+			}
+			for (long wait; (wait = scheduled - System.nanoTime()) > 0;) {
+				LockSupport.parkNanos(wait);
+			}
+			Operation op = this.workload.isTrace() ? this.workload.getOperations().get((int) i) : this.workload.next();
+			try {
+				workers.execute(() -> this.execute(op, scheduled));
+			} catch (RejectedExecutionException e) {
+				if (scheduled >= this.measureFrom) {
+					this.stats.get(op.getName()).reject("rejected, backlog full");
+				}
+			}
+		}
+		workers.shutdown();
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		clear.interrupt();
+	}
+
+	/**
+	 * Drop the requests of the warm up from the registry once it is over
+	 */
+	private void clearWhenWarm(long warmupMillis) throws InterruptedException {
+		if (warmupMillis > 0) {
+			Thread.sleep(warmupMillis);
+			this.registry.clear();
+		}
+	}
+
+	private void execute(Operation op, long scheduled) {
+		String cause = null;
+		if (this.lateNanos > 0 && System.nanoTime() - scheduled > this.lateNanos) {
+			cause = "late start";
+		}
+		try {
+			int failed = op.run(this.mc, this.members.get(op.getObjectStructure()),
+					this.attachments.get(op.getObjectStructure()));
+			if (failed > 0) {
+				cause = "bulk entries failed";
+			}
+		} catch (OslcException e) {
+			cause = "HTTP " + e.getErrorCode();
+		} catch (Exception e) {
+			cause = e.getClass().getSimpleName();
+		}
+		long now = System.nanoTime();
+		if (scheduled >= this.measureFrom) {
+			this.stats.get(op.getName()).record(now - scheduled, cause);
+		}
+	}
+
+	Map<String, OperationStats> getStats() {
+		return Collections.unmodifiableMap(this.stats);
+	}
+
+	/**
+	 * Print the operations, the errors and the HTTP requests of the measured period
+	 */
+	void report(PrintStream out, long measuredMillis) {
+		double seconds = measuredMillis / 1000.0;
+		String format = "%-28s %9s %8s %7s %9s %9s %9s %9s %9s%n";
+		out.printf(format, "operation", "count", "errors", "error%", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		OperationStats total = new OperationStats();
+		Map<String, OperationStats> lines = new TreeMap<String, OperationStats>(this.stats);
+		for (Map.Entry<String, OperationStats> e : lines.entrySet()) {
+			this.printLine(out, format, e.getKey(), e.getValue(), seconds);
+			total.getLatency().add(e.getValue().getLatency());
+			total.errors.add(e.getValue().getErrorCount());
+			total.rejected.add(e.getValue().rejected.sum());
+		}
+		this.printLine(out, format, "total", total, seconds);
+		for (Map.Entry<String, OperationStats> e : lines.entrySet()) {
+			for (Map.Entry<String, Long> cause : e.getValue().getCauses().entrySet()) {
+				out.println("  " + e.getKey() + ": " + cause.getValue() + " x " + cause.getKey());
+			}
+		}
+
+		out.println();
+		out.printf("%-28s %9s %8s %9s %9s %9s %9s%n", "request", "count", "errors", "ttfb p50", "ttfb p99", "p50 ms",
+				"p99 ms");
+		for (Map.Entry<String, MetricsRegistry.RequestStats> e : this.registry.getStats().entrySet()) {
+			MetricsRegistry.RequestStats rs = e.getValue();
+			out.printf("%-28s %9d %8d %9.1f %9.1f %9.1f %9.1f%n", e.getKey(), rs.getCount(), rs.getErrorCount(),
+					millis(rs.getTimeToFirstByte().getPercentile(50)), millis(rs.getTimeToFirstByte().getPercentile(99)),
+					millis(rs.getLatency().getPercentile(50)), millis(rs.getLatency().getPercentile(99)));
+		}
+	}
+
+	private void printLine(PrintStream out, String format, String name, OperationStats stats, double seconds) {
+		Histogram latency = stats.getLatency();
+		long count = stats.getCount();
+		long errors = stats.getErrorCount();
+		out.printf(format, name, count, errors, String.format("%.2f", count > 0 ? 100.0 * errors / count : 0),
+				String.format("%.1f", count / seconds), String.format("%.1f", millis(latency.getPercentile(50))),
+				String.format("%.1f", millis(latency.getPercentile(99))),
+				String.format("%.1f", millis(latency.getPercentile(99.9))), String.format("%.1f", millis(latency.getMax())));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1e6;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 == args.length) {
+				System.err.println(USAGE);
+				System.exit(2);
+			}
+			params.put(args[i].substring(2), args[++i]);
+		}
+		if (!params.containsKey("workload") && !params.containsKey("mix")) {
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		int pool = Integer.parseInt(params.getOrDefault("pool", "0"));
+		if (pool > 0) {
+			// read once by the JDK when the first connection is opened
+			System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(pool));
+			System.setProperty("http.maxConnections", String.valueOf(pool));
+		}
+		Workload workload = params.containsKey("workload")
+				? Workload.parse(Files.newBufferedReader(Paths.get(params.get("workload")), StandardCharsets.UTF_8))
+				: Workload.mix(params.get("mix"), params.getOrDefault("os", "mxwodetail"));
+
+		Options options = new Options().host(params.getOrDefault("host", "localhost"))
+				.port(Integer.parseInt(params.getOrDefault("port", "80")))
+				.appContext(params.getOrDefault("context", "maximo")).user(params.get("user"))
+				.password(params.get("password")).auth(params.getOrDefault("auth", Options.AUTH_MAXAUTH))
+				.lean(Boolean.parseBoolean(params.getOrDefault("lean", "true")))
+				.transport(params.getOrDefault("transport", Options.TRANSPORT_HTTPCLIENT)).metrics(new MetricsRegistry());
+		if (Boolean.parseBoolean(params.getOrDefault("https", "false"))) {
+			options.https();
+		}
+		MaximoConnector mc = new MaximoConnector(options);
+		mc.connect();
+
+		LoadGenerator generator = new LoadGenerator(mc, workload);
+		generator.prepare(Integer.parseInt(params.getOrDefault("members", "100")));
+		double rate = Double.parseDouble(params.getOrDefault("rate", "0"));
+		int concurrency = Integer.parseInt(params.getOrDefault("concurrency", "10"));
+		long duration = TimeUnit.SECONDS.toMillis(Long.parseLong(params.getOrDefault("duration", workload.isTrace() ? "0" : "60")));
+		long warmup = TimeUnit.SECONDS.toMillis(Long.parseLong(params.getOrDefault("warmup", "0")));
+		((MetricsRegistry) options.getMetrics()).clear();
+		long start = System.nanoTime();
+		if (rate > 0 || workload.isTrace()) {
+			generator.runOpen(rate, Double.parseDouble(params.getOrDefault("speed", "1")), concurrency,
+					Integer.parseInt(params.getOrDefault("backlog", "1000")),
+					Long.parseLong(params.getOrDefault("late", "1000")), duration, warmup);
+		} else {
+			generator.runClosed(concurrency, duration, warmup);
+		}
+		long measured = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - warmup;
+		generator.report(System.out, Math.max(measured, 1));
+		mc.disconnect();
+	}
+}
@@ -0,0 +1,253 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * One operation of a workload, run against an object structure with the public API of the
+ * client:
+ * <ul>
+ * <li>query: fetch pages of the collection, where=status=WAPPR;priority&gt;2 select=wonum,status
+ * orderBy=-wonum pageSize=20 pages=1</li>
+ * <li>member: fetchMember of a random member, select=wonum,status</li>
+ * <li>update: merge (or method=patch) set=description:Load,priority:2 into a random member</li>
+ * <li>bulk: merge set=... into size=10 random members in one bulk request</li>
+ * <li>attachment: download a random attachment of the members</li>
+ * </ul>
+ * A where clause is a list of attr=value, attr&gt;value, attr&gt;=value, attr&lt;value,
+ * attr&lt;=value or attr~value (like) separated by ';', attr=A|B is an in clause.
+ * name=label groups the operation under its own line of the report.
+ */
+class Operation {
+
+	static final String QUERY = "query";
+	static final String MEMBER = "member";
+	static final String UPDATE = "update";
+	static final String BULK = "bulk";
+	static final String ATTACHMENT = "attachment";
+
+	private static final Pattern CONDITION = Pattern.compile("([^=<>~]+)(>=|<=|=|>|<|~)(.*)");
+	private static final Pattern NUMBER = Pattern.compile("-?\\d+");
+
+	private final String type;
+	private final String objectStructure;
+	private final Map<String, String> args;
+	private final String name;
+
+	Operation(String type, String objectStructure, Map<String, String> args) {
+		if (!type.equals(QUERY) && !type.equals(MEMBER) && !type.equals(UPDATE) && !type.equals(BULK)
+				&& !type.equals(ATTACHMENT)) {
+			throw new IllegalArgumentException("unknown operation " + type);
+		}
+		this.type = type;
+		this.objectStructure = objectStructure;
+		this.args = args;
+		this.name = args.containsKey("name") ? args.get("name") : type + " " + objectStructure;
+	}
+
+	String getType() {
+		return this.type;
+	}
+
+	String getObjectStructure() {
+		return this.objectStructure;
+	}
+
+	/**
+	 * The line of the report
+	 */
+	String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Whether the operation needs members, attachments excepted
+	 */
+	boolean needsMembers() {
+		return this.type.equals(MEMBER) || this.type.equals(UPDATE) || this.type.equals(BULK);
+	}
+
+	/**
+	 * Run the operation once
+	 *
+	 * @param members hrefs of the members of the object structure
+	 * @param attachments hrefs of their attachments
+	 * @return the number of failed entries of a bulk request, 0 otherwise
+	 */
+	int run(MaximoConnector mc, List<String> members, List<String> attachments) throws Exception {
+		switch (this.type) {
+		case QUERY:
+			ResourceSet rs = mc.resourceSet(this.objectStructure).pageSize(this.intArg("pageSize", 20));
+			if (this.args.containsKey("where")) {
+				rs.where(where(this.args.get("where")));
+			}
+			if (this.args.containsKey("select")) {
+				rs.select(this.args.get("select").split(","));
+			}
+			if (this.args.containsKey("orderBy")) {
+				rs.orderBy(this.args.get("orderBy").split(","));
+			}
+			rs.fetch();
+			for (int page = 1; page < this.intArg("pages", 1) && rs.hasNextPage(); page++) {
+				rs.nextPage();
+			}
+			return 0;
+		case MEMBER:
+			String[] properties = this.args.containsKey("select") ? this.args.get("select").split(",")
+					: new String[0];
+			mc.resourceSet(this.objectStructure).fetchMember(pick(members), properties);
+			return 0;
+		case UPDATE:
+			if ("patch".equalsIgnoreCase(this.args.get("method"))) {
+				mc.update(pick(members), this.changes());
+			} else {
+				mc.merge(pick(members), this.changes());
+			}
+			return 0;
+		case BULK:
+			JsonObject changes = this.changes();
+			JsonArrayBuilder jab = Json.createArrayBuilder();
+			for (int i = this.intArg("size", 10); i > 0; i--) {
+				jab.add(Json.createObjectBuilder().add("_data", changes)
+						.add("_meta", Json.createObjectBuilder().add("method", "MERGE").add("uri", pick(members))));
+			}
+			return failed(mc.bulk(mc.getCurrentURI() + "/os/" + this.objectStructure.toLowerCase(), jab.build()));
+		default:
+			new Attachment(pick(attachments), mc).writeTo(OutputStream.nullOutputStream());
+			return 0;
+		}
+	}
+
+	private int intArg(String name, int defaultValue) {
+		return this.args.containsKey(name) ? Integer.parseInt(this.args.get(name)) : defaultValue;
+	}
+
+	/**
+	 * The attributes of set=attr:value,attr:value, digits are sent as numbers
+	 */
+	private JsonObject changes() {
+		JsonObjectBuilder jb = Json.createObjectBuilder();
+		if (this.args.containsKey("set")) {
+			for (String pair : this.args.get("set").split(",")) {
+				int colon = pair.indexOf(':');
+				Object value = value(pair.substring(colon + 1));
+				if (value instanceof Long) {
+					jb.add(pair.substring(0, colon), (Long) value);
+				} else {
+					jb.add(pair.substring(0, colon), (String) value);
+				}
+			}
+		}
+		return jb.build();
+	}
+
+	static QueryWhere where(String clause) throws Exception {
+		QueryWhere where = new QueryWhere();
+		for (String condition : clause.split(";")) {
+			Matcher m = CONDITION.matcher(condition);
+			if (!m.matches()) {
+				throw new IllegalArgumentException("invalid condition " + condition);
+			}
+			where.and(m.group(1));
+			Object value = value(m.group(3));
+			switch (m.group(2)) {
+			case ">=":
+				where.gte(value);
+				break;
+			case "<=":
+				where.lte(value);
+				break;
+			case ">":
+				where.gt(value);
+				break;
+			case "<":
+				where.lt(value);
+				break;
+			case "~":
+				where.like(m.group(3));
+				break;
+			default:
+				if (m.group(3).contains("|")) {
+					String[] values = m.group(3).split("\\|");
+					Object[] in = new Object[values.length];
+					for (int i = 0; i < values.length; i++) {
+						in[i] = value(values[i]);
+					}
+					where.in(in);
+				} else {
+					where.equalTo(value);
+				}
+			}
+		}
+		return where;
+	}
+
+	/**
+	 * Digits are numbers, anything else a string
+	 */
+	private static Object value(String value) {
+		return NUMBER.matcher(value).matches() ? (Object) Long.valueOf(value) : value;
+	}
+
+	/**
+	 * The entries of a bulk response with an error status
+	 */
+	private static int failed(JsonArray responses) {
+		int failed = 0;
+		for (JsonValue value : responses) {
+			JsonObject meta = ((JsonObject) value).getJsonObject("_responsemeta");
+			JsonValue status = meta != null ? meta.get("status") : null;
+			String code = status instanceof JsonString ? ((JsonString) status).getString() : String.valueOf(status);
+			if (code.startsWith("4") || code.startsWith("5")) {
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	private static String pick(List<String> hrefs) {
+		return hrefs.get(ThreadLocalRandom.current().nextInt(hrefs.size()));
+	}
+
+	/**
+	 * Parse name=value arguments
+	 */
+	static Map<String, String> args(List<String> tokens) {
+		if (tokens.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> args = new LinkedHashMap<String, String>();
+		for (String token : tokens) {
+			int eq = token.indexOf('=');
+			if (eq <= 0) {
+				throw new IllegalArgumentException("expected name=value instead of " + token);
+			}
+			args.put(token.substring(0, eq), token.substring(eq + 1));
+		}
+		return args;
+	}
+}
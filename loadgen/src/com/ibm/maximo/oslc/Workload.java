@@ -0,0 +1,136 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The operations replayed by the {@code LoadGenerator}, either a weighted mix drawn at random
+ * or a recorded trace replayed at its offsets. A script has one operation per line, # starts
+ * a comment:
+ * <pre>
+ * 60 query mxwodetail where=status=WAPPR select=wonum,status pageSize=20
+ * 20 member mxwodetail
+ * 10 update mxwodetail set=description:Load
+ * </pre>
+ * a trace starts each line with the offset in milliseconds from the start of the recording:
+ * <pre>
+ * &#64;0 query mxwodetail where=status=WAPPR
+ * &#64;15 member mxwodetail select=wonum,status
+ * </pre>
+ */
+class Workload {
+
+	private final List<Operation> operations;
+	private final long[] marks;
+	private final boolean trace;
+
+	/**
+	 * @param marks cumulative weights of a mix, offsets of a trace
+	 */
+	private Workload(List<Operation> operations, long[] marks, boolean trace) {
+		if (operations.isEmpty()) {
+			throw new IllegalArgumentException("empty workload");
+		}
+		this.operations = Collections.unmodifiableList(operations);
+		this.marks = marks;
+		this.trace = trace;
+	}
+
+	static Workload parse(Reader reader) throws IOException {
+		List<Operation> operations = new ArrayList<Operation>();
+		List<Long> marks = new ArrayList<Long>();
+		Boolean trace = null;
+		BufferedReader br = new BufferedReader(reader);
+		long total = 0;
+		int number = 0;
+		for (String line; (line = br.readLine()) != null;) {
+			number++;
+			int hash = line.indexOf('#');
+			line = (hash >= 0 ? line.substring(0, hash) : line).trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			List<String> tokens = Arrays.asList(line.split("\\s+"));
+			boolean offset = tokens.get(0).startsWith("@");
+			if (tokens.size() < 3 || (trace != null && trace != offset)) {
+				throw new IllegalArgumentException("line " + number + ": expected "
+						+ (Boolean.TRUE.equals(trace) || offset ? "@offset" : "weight") + " operation objectstructure [name=value...]");
+			}
+			trace = offset;
+			long mark = Long.parseLong(offset ? tokens.get(0).substring(1) : tokens.get(0));
+			if (offset ? !marks.isEmpty() && mark < marks.get(marks.size() - 1) : mark <= 0) {
+				throw new IllegalArgumentException("line " + number + ": " + (offset ? "offsets must not decrease" : "weights must be positive"));
+			}
+			total = offset ? mark : total + mark;
+			marks.add(total);
+			operations.add(new Operation(tokens.get(1), tokens.get(2), Operation.args(tokens.subList(3, tokens.size()))));
+		}
+		long[] array = new long[marks.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = marks.get(i);
+		}
+		return new Workload(operations, array, Boolean.TRUE.equals(trace));
+	}
+
+	/**
+	 * A mix of operations without arguments, like query=60,member=30,update=10
+	 */
+	static Workload mix(String mix, String objectStructure) {
+		List<Operation> operations = new ArrayList<Operation>();
+		String[] parts = mix.split(",");
+		long[] marks = new long[parts.length];
+		long total = 0;
+		for (int i = 0; i < parts.length; i++) {
+			int eq = parts[i].indexOf('=');
+			long weight = eq > 0 ? Long.parseLong(parts[i].substring(eq + 1)) : 1;
+			if (weight <= 0) {
+				throw new IllegalArgumentException("weights must be positive: " + parts[i]);
+			}
+			operations.add(new Operation(eq > 0 ? parts[i].substring(0, eq) : parts[i], objectStructure,
+					Collections.<String, String> emptyMap()));
+			total += weight;
+			marks[i] = total;
+		}
+		return new Workload(operations, marks, false);
+	}
+
+	List<Operation> getOperations() {
+		return this.operations;
+	}
+
+	boolean isTrace() {
+		return this.trace;
+	}
+
+	/**
+	 * A random operation of the mix, in proportion to its weight
+	 */
+	Operation next() {
+		long draw = ThreadLocalRandom.current().nextLong(this.marks[this.marks.length - 1]);
+		int i = Arrays.binarySearch(this.marks, draw + 1);
+		return this.operations.get(i >= 0 ? i : -i - 1);
+	}
+
+	/**
+	 * Offset in milliseconds of the operation of the trace
+	 */
+	long offset(int index) {
+		return this.marks[index];
+	}
+}
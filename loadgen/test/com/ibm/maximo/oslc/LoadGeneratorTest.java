@@ -0,0 +1,68 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LoadGeneratorTest {
+
+	private static final int STARTS = 20;
+	private static final long ANSWER_MILLIS = 100;
+
+	/**
+	 * Answers the login at once and every query with an empty page after ANSWER_MILLIS
+	 */
+	private static TransportResponse answer(TransportRequest request) throws IOException {
+		Map<String, List<String>> headers = Collections.singletonMap("Set-Cookie",
+				Collections.singletonList("JSESSIONID=mem"));
+		if (!request.getURI().contains("/os/")) {
+			return new TransportResponse(200, headers, null);
+		}
+		try {
+			Thread.sleep(ANSWER_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return new TransportResponse(200, headers,
+				new ByteArrayInputStream("{\"member\":[],\"responseInfo\":{}}".getBytes("UTF-8")));
+	}
+
+	@Test
+	public void startsBeyondTheBacklogAreRejectedAndLateStartsFail() throws Exception {
+		StringBuilder trace = new StringBuilder();
+		for (int i = 0; i < STARTS; i++) {
+			trace.append("@0 query mxasset\n");
+		}
+		MaximoConnector mc = new MaximoConnector(new Options().user("wilson").password("wilson")
+				.auth(Options.AUTH_MAXAUTH).host("localhost").port(80).lean(true).metrics(new MetricsRegistry()))
+						.transport(LoadGeneratorTest::answer);
+		mc.connect();
+		LoadGenerator generator = new LoadGenerator(mc, Workload.parse(new StringReader(trace.toString())));
+
+		// one operation runs, two wait and start one and two answers late
+		generator.runOpen(0, 1, 1, 2, ANSWER_MILLIS / 2, 0, 0);
+		LoadGenerator.OperationStats stats = generator.getStats().get("query mxasset");
+		assertEquals(STARTS, stats.getCount());
+		assertEquals(3, stats.getLatency().getCount());
+		assertEquals(STARTS - 1, stats.getErrorCount());
+		assertEquals(Long.valueOf(STARTS - 3), stats.getCauses().get("rejected, backlog full"));
+		assertEquals(Long.valueOf(2), stats.getCauses().get("late start"));
+	}
+}
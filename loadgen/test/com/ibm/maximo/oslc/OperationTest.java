@@ -0,0 +1,66 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class OperationTest {
+
+	@Test
+	public void whereClausesAreTranslatedConditionByCondition() throws Exception {
+		assertEquals("status=\"WAPPR\" and priority>2", Operation.where("status=WAPPR;priority>2").whereClause());
+		assertEquals("priority>=1 and priority<=3 and siteid<\"BEDFORD\"",
+				Operation.where("priority>=1;priority<=3;siteid<BEDFORD").whereClause());
+		assertEquals("wonum=\"%PUMP%\"", Operation.where("wonum~PUMP").whereClause());
+		assertEquals("status in [\"APPR\",\"WAPPR\"]", Operation.where("status=APPR|WAPPR").whereClause());
+		assertEquals("priority in [-1,2]", Operation.where("priority=-1|2").whereClause());
+	}
+
+	@Test
+	public void invalidConditionsAreRejected() throws Exception {
+		for (String clause : new String[] { "status", "=WAPPR", "status=WAPPR;priority" }) {
+			try {
+				Operation.where(clause);
+				fail(clause);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void argumentsNameTheLineOfTheReport() {
+		Operation query = new Operation(Operation.QUERY, "mxwodetail",
+				Operation.args(Arrays.asList("where=status=WAPPR", "pageSize=20")));
+		assertEquals("query mxwodetail", query.getName());
+		assertFalse(query.needsMembers());
+		Operation update = new Operation(Operation.UPDATE, "mxwodetail",
+				Operation.args(Arrays.asList("name=touch", "set=description:Load")));
+		assertEquals("touch", update.getName());
+		assertTrue(update.needsMembers());
+		assertFalse(new Operation(Operation.ATTACHMENT, "mxwodetail", Collections.<String, String> emptyMap())
+				.needsMembers());
+		try {
+			new Operation("select", "mxwodetail", Collections.<String, String> emptyMap());
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
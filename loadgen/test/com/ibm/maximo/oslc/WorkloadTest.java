@@ -0,0 +1,103 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class WorkloadTest {
+
+	private static final int DRAWS = 100000;
+
+	private static Map<String, Integer> draw(Workload workload) {
+		Map<String, Integer> drawn = new HashMap<String, Integer>();
+		for (int i = 0; i < DRAWS; i++) {
+			drawn.merge(workload.next().getName(), 1, Integer::sum);
+		}
+		return drawn;
+	}
+
+	private static void assertShare(Map<String, Integer> drawn, String name, double share) {
+		double actual = drawn.getOrDefault(name, 0) / (double) DRAWS;
+		assertEquals(name + " drawn " + actual, share, actual, 0.02);
+	}
+
+	@Test
+	public void aScriptIsDrawnInProportionToItsWeights() throws Exception {
+		Workload workload = Workload.parse(new StringReader("# weighted\n"
+				+ "60 query mxwodetail where=status=WAPPR pageSize=20\n"
+				+ "\n"
+				+ "30 member mxwodetail select=wonum,status # a comment\n"
+				+ "10 update mxwodetail name=touch set=description:Load\n"));
+		assertFalse(workload.isTrace());
+		assertEquals(3, workload.getOperations().size());
+		assertEquals("touch", workload.getOperations().get(2).getName());
+		Map<String, Integer> drawn = draw(workload);
+		assertShare(drawn, "query mxwodetail", 0.6);
+		assertShare(drawn, "member mxwodetail", 0.3);
+		assertShare(drawn, "touch", 0.1);
+	}
+
+	@Test
+	public void aMixDrawsEveryOperationIncludingTheFirstAndTheLast() {
+		Workload workload = Workload.mix("query=1,member,update=2", "mxasset");
+		assertEquals(3, workload.getOperations().size());
+		Map<String, Integer> drawn = draw(workload);
+		assertShare(drawn, "query mxasset", 0.25);
+		assertShare(drawn, "member mxasset", 0.25);
+		assertShare(drawn, "update mxasset", 0.5);
+
+		Workload single = Workload.mix("bulk=5", "mxasset");
+		assertEquals(DRAWS, (int) draw(single).get("bulk mxasset"));
+	}
+
+	@Test
+	public void aTraceKeepsItsOffsets() throws Exception {
+		Workload workload = Workload.parse(new StringReader("@0 query mxwodetail\n@15 member mxwodetail\n"
+				+ "@15 update mxwodetail\n@1200 attachment mxwodetail\n"));
+		assertTrue(workload.isTrace());
+		assertEquals(4, workload.getOperations().size());
+		assertEquals(0, workload.offset(0));
+		assertEquals(15, workload.offset(1));
+		assertEquals(15, workload.offset(2));
+		assertEquals(1200, workload.offset(3));
+		assertEquals(Operation.ATTACHMENT, workload.getOperations().get(3).getType());
+	}
+
+	@Test
+	public void invalidWorkloadsAreRejected() throws Exception {
+		String[] invalid = { "", "# nothing\n", "10 query\n", "0 query mxwodetail\n",
+				"@10 query mxwodetail\n@5 member mxwodetail\n", "10 query mxwodetail\n@20 member mxwodetail\n",
+				"10 select mxwodetail\n", "10 query mxwodetail pageSize\n" };
+		for (String workload : invalid) {
+			try {
+				Workload.parse(new StringReader(workload));
+				fail(workload);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+		try {
+			Workload.mix("query=0", "mxasset");
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
@@ -10,11 +10,18 @@
 
 package com.ibm.maximo.oslc;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 
-import javax.json.Json;
 import javax.json.JsonObject;
 
 
@@ -49,6 +56,7 @@ import javax.json.JsonObject;
  * <code>
  * att.mc(maximoconnector).name(filename).description(description)
  * att.data(byte[] data).meta(type, storeas).wwwURI(wwwURI);
+ * att.data(path); //or att.data(inputStream, length), streamed by the create
  * </code>
  * </pre>
  * 
@@ -67,6 +75,7 @@ import javax.json.JsonObject;
  * <pre> 
  * <code>
  * byte[] data = att.toDoc();
+ * long size = att.downloadTo(path);
  * String uri = att.getURI();
  * String name = att.getName();
  * String description = att.getDescription();
@@ -101,6 +110,10 @@ public class Attachment {
 	private String meta;
 	private String uri;
 	private byte[] data;
+	// a document uploaded as a stream instead of data
+	private InputStream dataStream;
+	private long dataLength = -1;
+	private Path dataFile;
 	private JsonObject jo;
 	private MaximoConnector mc;
 	private boolean isUploaded = false;
@@ -175,6 +188,40 @@ public class Attachment {
 		return this;
 	}
 	
+	/**
+	 * Upload the document from the stream, which is read to the end by the create but not
+	 * closed
+	 * @param data
+	 * @param length the size of the document, -1 if unknown to send it chunked
+	 */
+	public Attachment data(InputStream data, long length){
+		this.dataStream = data;
+		this.dataLength = length;
+		return this;
+	}
+	
+	/**
+	 * Upload the document from the file, streamed from disk by the create
+	 * @param file
+	 */
+	public Attachment data(Path file){
+		this.dataFile = file;
+		return this;
+	}
+	
+	/**
+	 * Create the document under the uri, streaming it when it comes from a stream or file
+	 */
+	JsonObject create(MaximoConnector mc, String uri, Map<String, Object> headers) throws IOException, OslcException{
+		if(this.dataFile != null){
+			return mc.createAttachment(uri, this.dataFile, this.name, this.description, this.meta, headers);
+		}
+		if(this.dataStream != null){
+			return mc.createAttachment(uri, this.dataStream, this.dataLength, this.name, this.description, this.meta, headers);
+		}
+		return mc.createAttachment(uri, this.toDoc(), this.name, this.description, this.meta, headers);
+	}
+	
 	public Attachment data(byte[] data){
 		this.data = data;
 		return this;
@@ -202,6 +249,132 @@ public class Attachment {
 		return this.data;
 	}
 	
+	/**
+	 * Write the document into the output stream, streaming it from Maximo unless it
+	 * is already in memory. The output stream is not closed.
+	 * 
+	 * @param out
+	 * @return the number of bytes written
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long writeTo(OutputStream out) throws IOException, OslcException{
+		return this.writeTo(out, null);
+	}
+	
+	public long writeTo(OutputStream out, Map<String, Object> headers) throws IOException, OslcException{
+		if(!isUploaded && this.dataFile != null){
+			return Files.copy(this.dataFile, out);
+		}
+		if(!isUploaded || isLoaded){
+			byte[] doc = this.inMemory();
+			out.write(doc);
+			return doc.length;
+		}
+		return this.mc.getAttachmentData(this.uri, headers, out);
+	}
+	
+	/**
+	 * Download the document into the file, which is created or truncated. The data goes
+	 * from the connection to the {@code FileChannel} a buffer at a time, whatever the
+	 * size of the document.
+	 * 
+	 * @param path
+	 * @return the number of bytes written
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long downloadTo(Path path) throws IOException, OslcException{
+		return this.downloadTo(path, null);
+	}
+	
+	public long downloadTo(Path path, Map<String, Object> headers) throws IOException, OslcException{
+		try (ReadableByteChannel in = this.openChannel(headers);
+				FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			long position = 0;
+			for (long n; (n = file.transferFrom(in, position, BufferPool.BUFFER_SIZE)) > 0;) {
+				position += n;
+			}
+			return position;
+		}
+	}
+	
+	/**
+	 * Download the document into the file with Range requests, continuing after the bytes
+	 * already in the file. A request that fails part way is resumed from the last byte
+	 * written, and the file is verified against the size of the document.
+	 * 
+	 * @param path
+	 * @return the size of the document
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long resumeDownloadTo(Path path) throws IOException, OslcException{
+		return this.resumeDownloadTo(path, null);
+	}
+	
+	public long resumeDownloadTo(Path path, Map<String, Object> headers) throws IOException, OslcException{
+		return new RangeDownload(this.mc, this.uri, headers).resume(path);
+	}
+	
+	/**
+	 * Download the document into the file with up to {@code segments} concurrent Range
+	 * requests, into a file sized for the whole document up front. Each segment resumes
+	 * on its own after a failure. Servers without range support send the document in
+	 * a single response.
+	 * 
+	 * @param path
+	 * @param segments
+	 * @return the size of the document
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long downloadTo(Path path, int segments) throws IOException, OslcException{
+		return this.downloadTo(path, segments, null);
+	}
+	
+	public long downloadTo(Path path, int segments, Map<String, Object> headers) throws IOException, OslcException{
+		if(segments < 1){
+			throw new IllegalArgumentException("segments must be at least 1");
+		}
+		return new RangeDownload(this.mc, this.uri, headers).segmented(path, segments);
+	}
+	
+	/**
+	 * Open the document as a channel, streaming it from Maximo unless it is already in
+	 * memory. The channel must be closed to release the connection.
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public ReadableByteChannel openChannel() throws IOException, OslcException{
+		return this.openChannel(null);
+	}
+	
+	public ReadableByteChannel openChannel(Map<String, Object> headers) throws IOException, OslcException{
+		if(!isUploaded && this.dataFile != null){
+			return FileChannel.open(this.dataFile, StandardOpenOption.READ);
+		}
+		if(!isUploaded || isLoaded){
+			return Channels.newChannel(new ByteArrayInputStream(this.inMemory()));
+		}
+		return Channels.newChannel(this.mc.openAttachmentData(this.uri, headers));
+	}
+	
+	/**
+	 * The document held by an attachment that is not uploaded or already loaded. A document
+	 * given as a stream is read once, by the upload.
+	 */
+	private byte[] inMemory(){
+		if(this.data == null){
+			throw new IllegalStateException(this.dataStream != null
+					? "The document of the attachment is a stream, it can only be read by the upload"
+					: "The attachment has no document");
+		}
+		return this.data;
+	}
+	
 	/**
 	 * Get current URI
 	 *  
@@ -232,10 +405,7 @@ public class Attachment {
 		if(!isMetaLoaded){
 			loadMeta();
 		}
-		ByteArrayOutputStream bo = new ByteArrayOutputStream();
-		Json.createWriter(bo).writeObject(this.jo);
-		bo.close();
-		return bo.toByteArray();
+		return JsonCodec.of(this.mc).toBytes(this.jo);
 	}
 	/**
 	 * load attachment data
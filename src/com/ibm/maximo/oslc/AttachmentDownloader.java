@@ -0,0 +1,349 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+/**
+ *
+ * {@code AttachmentDownloader} writes the documents of many attachment sets into a
+ * directory, listing the sets and downloading the documents on {@code parallelism}
+ * concurrent workers. Every resource gets a sub directory named after its id and every
+ * document is stored as {@code <attachment id>-<file name>}.
+ *
+ * <p>The file name comes from the attachment set listing when it has the
+ * {@code describedBy} of the document, otherwise the metadata of the document is
+ * fetched first. Documents are streamed to disk, they are never held in memory.</p>
+ *
+ * <pre>
+ * <code>
+ * long files = new AttachmentDownloader(mc, Paths.get("archive")).parallelism(8)
+ * .listener(listener).download(mc.resourceSet("mxwo").where(...));
+ * </code>
+ * </pre>
+ *
+ * <p>Without a listener the first failure is thrown once all the other documents
+ * are written.</p>
+ *
+ */
+public class AttachmentDownloader {
+
+	public static final Logger logger = Logger.getLogger(AttachmentDownloader.class.getName());
+
+	private MaximoConnector mc;
+	private Path directory;
+	private int parallelism = 4;
+	private DownloadListener listener;
+
+	public AttachmentDownloader(MaximoConnector mc, Path directory) {
+		this.mc = mc;
+		this.directory = directory;
+	}
+
+	/**
+	 * Number of listings and downloads in flight, 4 by default
+	 * @param parallelism
+	 */
+	public AttachmentDownloader parallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	public AttachmentDownloader listener(DownloadListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Download the attachments of every resource of the set, the pages of the
+	 * set are fetched while the documents of the previous pages are downloaded
+	 *
+	 * @param rs
+	 * @return the number of documents written
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long download(ResourceSet rs) throws IOException, OslcException {
+		Run run = new Run();
+		try {
+			for (JsonObject member : rs) {
+				run.submit(new Resource(member, this.mc).attachmentSet(null, null));
+			}
+		} catch (UncheckedIOException e) {
+			run.abort();
+			throw e.getCause();
+		} catch (RuntimeException e) {
+			run.abort();
+			throw e;
+		}
+		return run.finish();
+	}
+
+	/**
+	 * Download the attachments of every attachment set
+	 *
+	 * @param sets
+	 * @return the number of documents written
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public long download(List<AttachmentSet> sets) throws IOException, OslcException {
+		Run run = new Run();
+		for (AttachmentSet ats : sets) {
+			run.submit(ats);
+		}
+		return run.finish();
+	}
+
+	/**
+	 * One download: the work queue holds attachment sets to list and attachments to
+	 * download, the attachments go first so the queue does not grow with the listings.
+	 * The workers block on the queue until the last item is done, then each of them
+	 * takes a stop marker.
+	 */
+	private class Run {
+
+		private final Object stop = new Object();
+		private final LinkedBlockingDeque<Object> work = new LinkedBlockingDeque<Object>();
+		// sets submitted and not listed yet
+		private final Semaphore listings = new Semaphore(parallelism * 4);
+		private final AtomicInteger pending = new AtomicInteger();
+		private final AtomicBoolean stopped = new AtomicBoolean();
+		private final AtomicLong written = new AtomicLong();
+		private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		private final CompletableFuture<?>[] workers = new CompletableFuture<?>[parallelism];
+		private volatile boolean submitting = true;
+		private volatile boolean aborted = false;
+
+		Run() {
+			for (int i = 0; i < workers.length; i++) {
+				workers[i] = CompletableFuture.runAsync(this::work, mc.executor());
+			}
+		}
+
+		/**
+		 * Queue the set, waiting while the workers are behind so that the listings do
+		 * not run far ahead of the downloads
+		 */
+		void submit(AttachmentSet ats) throws InterruptedIOException {
+			try {
+				this.listings.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.abort();
+				throw new InterruptedIOException("Interrupted while submitting " + ats.getURI());
+			}
+			this.pending.incrementAndGet();
+			this.work.addLast(ats);
+		}
+
+		void abort() {
+			this.aborted = true;
+			this.submitting = false;
+			this.stop();
+		}
+
+		/**
+		 * Hand every worker a stop marker, once
+		 */
+		private void stop() {
+			if (this.stopped.compareAndSet(false, true)) {
+				for (int i = 0; i < this.workers.length; i++) {
+					this.work.addFirst(this.stop);
+				}
+			}
+		}
+
+		private void stopIfDone() {
+			if (!this.submitting && this.pending.get() == 0) {
+				this.stop();
+			}
+		}
+
+		long finish() throws IOException, OslcException {
+			this.submitting = false;
+			this.stopIfDone();
+			try {
+				CompletableFuture.allOf(this.workers).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.aborted = true;
+				throw new InterruptedIOException("Interrupted while downloading attachments");
+			} catch (ExecutionException e) {
+				throw PageIterator.unchecked(e.getCause());
+			}
+			Throwable t = this.failure.get();
+			if (t instanceof IOException) {
+				throw (IOException) t;
+			}
+			if (t instanceof OslcException) {
+				throw (OslcException) t;
+			}
+			if (t != null) {
+				throw PageIterator.unchecked(t);
+			}
+			return this.written.get();
+		}
+
+		private void work() {
+			while (true) {
+				Object item;
+				try {
+					item = this.work.takeFirst();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (item == this.stop || this.aborted) {
+					return;
+				}
+				try {
+					if (item instanceof AttachmentSet) {
+						this.list((AttachmentSet) item);
+					} else {
+						this.download((JsonObject) item);
+					}
+				} finally {
+					if (item instanceof AttachmentSet) {
+						this.listings.release();
+					}
+					this.pending.decrementAndGet();
+					this.stopIfDone();
+				}
+			}
+		}
+
+		private void list(AttachmentSet ats) {
+			try {
+				JsonObject jo = ats.toJSON();
+				JsonArray members = jo.containsKey("rdfs:member") ? jo.getJsonArray("rdfs:member")
+						: jo.getJsonArray("member");
+				if (members == null) {
+					return;
+				}
+				for (JsonValue member : members) {
+					this.pending.incrementAndGet();
+					this.work.addFirst(member);
+				}
+			} catch (Exception e) {
+				this.failed(ats.getURI(), e);
+			}
+		}
+
+		private void download(JsonObject member) {
+			Attachment att = new Attachment(member, mc);
+			Path file = null;
+			long bytes;
+			try {
+				file = this.file(att.getURI(), this.fileName(att, member));
+				bytes = att.downloadTo(file);
+				this.written.incrementAndGet();
+			} catch (Exception e) {
+				if (file != null) {
+					try {
+						Files.deleteIfExists(file);
+					} catch (IOException ignored) {
+						logger.fine("Could not delete " + file);
+					}
+				}
+				this.failed(att.getURI(), e);
+				return;
+			}
+			if (listener != null) {
+				try {
+					listener.onDownloaded(att.getURI(), file, bytes);
+				} catch (RuntimeException e) {
+					logger.log(Level.WARNING, "The listener failed on " + att.getURI(), e);
+				}
+			}
+		}
+
+		/**
+		 * Report the failure, a listener that throws does not stop the worker
+		 */
+		private void failed(String uri, Throwable t) {
+			if (listener == null) {
+				this.failure.compareAndSet(null, t);
+				return;
+			}
+			try {
+				listener.onFailure(uri, t);
+			} catch (RuntimeException e) {
+				logger.log(Level.WARNING, "The listener failed on the failure of " + uri, e);
+			}
+		}
+
+		private String fileName(Attachment att, JsonObject member) throws IOException, OslcException {
+			JsonObject describedBy = member.containsKey("describedBy") ? member.getJsonObject("describedBy")
+					: member.containsKey("spi:describedBy") ? member.getJsonObject("spi:describedBy") : null;
+			String name = describedName(describedBy);
+			return name != null ? name : describedName(att.toDocMeta());
+		}
+
+		private Path file(String uri, String fileName) throws IOException {
+			String[] segments = uri.split("/");
+			String id = segments[segments.length - 1];
+			String owner = "resource";
+			for (int i = 1; i < segments.length; i++) {
+				if (segments[i].equalsIgnoreCase("doclinks")) {
+					owner = segments[i - 1];
+					break;
+				}
+			}
+			Path dir = directory.resolve(safe(owner));
+			Files.createDirectories(dir);
+			return dir.resolve(safe(id) + (fileName != null ? "-" + safe(fileName) : ""));
+		}
+	}
+
+	private static String describedName(JsonObject jo) {
+		if (jo == null) {
+			return null;
+		}
+		for (String key : new String[] { "fileName", "spi:fileName" }) {
+			if (jo.containsKey(key) && jo.get(key).getValueType() == JsonValue.ValueType.STRING) {
+				String name = jo.getString(key);
+				int slash = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+				return slash >= 0 ? name.substring(slash + 1) : name;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The name without the characters that are not portable in file names
+	 */
+	private static String safe(String name) {
+		return name.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+}
@@ -10,7 +10,6 @@
 
 package com.ibm.maximo.oslc;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
 
@@ -149,10 +148,7 @@ public class AttachmentSet {
 	 */
 	public byte[] toJSONBytes() throws OslcException,IOException{
 		this.load();
-		ByteArrayOutputStream bo = new ByteArrayOutputStream();
-		Json.createWriter(bo).writeObject(this.jo);
-		bo.close();
-		return bo.toByteArray();
+		return JsonCodec.of(this.mc).toBytes(this.jo);
 	}
 	
 	public AttachmentSet href(String href){
@@ -217,7 +213,7 @@ public class AttachmentSet {
 	 * @throws OslcException
 	 */
 	public Attachment create(Attachment att) throws IOException, OslcException{
-		JsonObject obj = this.mc.createAttachment(this.href,att.toDoc(), att.getName(),att.getDescription(),att.getMeta());
+		JsonObject obj = att.create(this.mc, this.href, null);
 		this.reload();
 		return new Attachment(obj,this.mc);
 	}
@@ -226,7 +222,7 @@ public class AttachmentSet {
 		if(!this.href.contains(relation.toLowerCase()) || !this.href.contains(relation.toUpperCase())){
 			this.href+="/"+relation;
 		}
-		JsonObject obj = this.mc.createAttachment(this.href,att.toDoc(), att.getName(),att.getDescription(),att.getMeta());
+		JsonObject obj = att.create(this.mc, this.href, null);
 		this.reload();
 		return new Attachment(obj,this.mc);
 	}
@@ -235,12 +231,7 @@ public class AttachmentSet {
 		if(!this.href.contains(relation.toLowerCase()) || !this.href.contains(relation.toUpperCase())){
 			this.href+="/"+relation;
 		}
-		JsonObject obj;
-		if(headers != null && !headers.isEmpty()){
-			obj = this.mc.createAttachment(this.href,att.toDoc(), att.getName(),att.getDescription(),att.getMeta(), headers);
-		}else{
-			obj = this.mc.createAttachment(this.href,att.toDoc(), att.getName(),att.getDescription(),att.getMeta());
-		}
+		JsonObject obj = att.create(this.mc, this.href, headers);
 		this.reload();
 		return new Attachment(obj,this.mc);
 	}
@@ -0,0 +1,70 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * {@code BufferPool} lends the copy buffers of the document transfers, so that
+ * streaming a document does not allocate a new buffer every time. At most
+ * {@code MAX_POOLED} buffers are kept, the others are left to the garbage collector.
+ *
+ */
+final class BufferPool {
+
+	static final int BUFFER_SIZE = 0x10000;
+	private static final int MAX_POOLED = 32;
+
+	private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+	private static final AtomicInteger pooled = new AtomicInteger();
+
+	private BufferPool() {
+	}
+
+	static byte[] borrow() {
+		byte[] buffer = pool.poll();
+		if (buffer == null) {
+			return new byte[BUFFER_SIZE];
+		}
+		pooled.decrementAndGet();
+		return buffer;
+	}
+
+	static void release(byte[] buffer) {
+		if (pooled.incrementAndGet() <= MAX_POOLED) {
+			pool.offer(buffer);
+		} else {
+			pooled.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Copy the stream to the end, return the number of bytes copied
+	 */
+	static long copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = borrow();
+		try {
+			long total = 0;
+			for (int len; (len = in.read(buffer)) != -1;) {
+				out.write(buffer, 0, len);
+				total += len;
+			}
+			return total;
+		} finally {
+			release(buffer);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.List;
+
+import javax.json.JsonObject;
+
+/**
+ *
+ * {@code BulkListener} receives the outcome of the chunks sent by an auto-flushing
+ * {@code BulkProcessor}. It is called on the threads completing the requests, so an
+ * implementation shared by several chunks must be thread safe.
+ *
+ * <pre>
+ * <code>
+ * BulkProcessor bp = rs.bulk().maxItems(200).listener(new BulkListener() {
+ *     public void onResponse(JsonObject item, JsonObject response) { ... }
+ *     public void onFailure(List&lt;JsonObject&gt; items, Throwable cause) { ... }
+ * });
+ * </code>
+ * </pre>
+ *
+ */
+public interface BulkListener {
+
+	/**
+	 * Called for every item of a chunk with the element of the response at the same position
+	 *
+	 * @param item the bulk entry with its _data and _meta
+	 * @param response the response element, null if the server returned fewer elements
+	 */
+	void onResponse(JsonObject item, JsonObject response);
+
+	/**
+	 * Called once for a chunk whose request failed
+	 *
+	 * @param items the bulk entries of the chunk
+	 * @param cause
+	 */
+	void onFailure(List<JsonObject> items, Throwable cause);
+}
@@ -1,49 +1,158 @@
 package com.ibm.maximo.oslc;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
-import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+
+/**
+ *
+ * {@code BulkProcessor} collects create, update, merge and delete operations and sends them
+ * as bulk requests.
+ *
+ * <p>Without limits every operation is kept until {@code processBulk()} sends them all in one request.
+ * With {@code maxItems}, {@code maxBytes} or {@code flushInterval} set, a chunk is sent as soon as one
+ * of the limits is reached, with up to {@code concurrency} chunks in flight. Adding an operation blocks
+ * while that many chunks are in flight. The response of every operation is reported to the
+ * {@code BulkListener}.</p>
+ * <pre>
+ * <code>
+ * try (BulkProcessor bp = rs.bulk().maxItems(200).maxBytes(1 &lt;&lt; 20).flushInterval(1000)
+ *         .concurrency(4).listener(listener)) {
+ *     for (JsonObject jo : assets) {
+ *         bp.create(jo);
+ *     }
+ * }
+ * </code>
+ * </pre>
+ *
+ */
+public class BulkProcessor implements Closeable {
+
+	public static final Logger logger = Logger.getLogger(BulkProcessor.class.getName());
 
-public class BulkProcessor {
-	private JsonArrayBuilder bulkArray = Json.createArrayBuilder();
 	private MaximoConnector mc;
+	private JsonCodec codec;
 	private String uri;
-	
+
+	private int maxItems = -1;
+	private long maxBytes = -1;
+	private long flushInterval = -1;
+	private int concurrency = 1;
+	private BulkListener listener;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private List<JsonObject> pending = new ArrayList<JsonObject>();
+	private List<byte[]> pendingJson = new ArrayList<byte[]>();
+	private long pendingBytes = 0;
+	private volatile Semaphore inFlight;
+	private ScheduledExecutorService timer;
+	private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+	private volatile boolean closed = false;
+
 	public BulkProcessor(MaximoConnector mc, String uri){
 		this.mc = mc;
 		this.uri = uri;
+		this.codec = JsonCodec.of(mc);
+	}
+
+	/**
+	 * Send a chunk once it holds this many operations
+	 * @param maxItems
+	 */
+	public BulkProcessor maxItems(int maxItems){
+		this.maxItems = maxItems;
+		return this;
+	}
+
+	/**
+	 * Send a chunk once its JSON reaches this many bytes
+	 * @param maxBytes
+	 */
+	public BulkProcessor maxBytes(long maxBytes){
+		this.maxBytes = maxBytes;
+		return this;
+	}
+
+	/**
+	 * Send the pending operations at least every given number of milliseconds
+	 * @param millis
+	 */
+	public BulkProcessor flushInterval(long millis){
+		this.flushInterval = millis;
+		return this;
+	}
+
+	/**
+	 * Number of chunks in flight at the same time, 1 by default. It can not change
+	 * once a chunk was sent.
+	 * @param concurrency
+	 */
+	public BulkProcessor concurrency(int concurrency){
+		if(concurrency < 1){
+			throw new IllegalArgumentException("concurrency must be at least 1");
+		}
+		this.lock.lock();
+		try {
+			if(this.inFlight != null){
+				throw new IllegalStateException("The concurrency can not change once the BulkProcessor has started");
+			}
+			this.concurrency = concurrency;
+		} finally {
+			this.lock.unlock();
+		}
+		return this;
+	}
+
+	public BulkProcessor listener(BulkListener listener){
+		this.listener = listener;
+		return this;
 	}
 
 	public BulkProcessor create(JsonObject jo){
-		JsonObject obj = Json.createObjectBuilder().add("_data", jo).build();
-		this.bulkArray.add(obj);
+		JsonObject obj = this.codec.createObjectBuilder().add("_data", jo).build();
+		this.add(obj);
 		return this;
 	}
-	
+
 	public BulkProcessor update(JsonObject jo, String uri, String... properties){
-		JsonObjectBuilder objb = Json.createObjectBuilder().add("_data", jo);
+		JsonObjectBuilder objb = this.codec.createObjectBuilder().add("_data", jo);
 		this.addMeta(objb, "PATCH", uri, properties);
 		return this;
 	}
-	
+
 	public BulkProcessor merge(JsonObject jo, String uri, String... properties){
-		JsonObjectBuilder objb = Json.createObjectBuilder().add("_data", jo);
+		JsonObjectBuilder objb = this.codec.createObjectBuilder().add("_data", jo);
 		this.addMeta(objb, "MERGE", uri, properties);
 		return this;
 	}
-	
+
 	public BulkProcessor delete(String uri){
-		JsonObjectBuilder objb = Json.createObjectBuilder();
+		JsonObjectBuilder objb = this.codec.createObjectBuilder();
 		this.addMeta(objb, "DELETE", uri);
 		return this;
 	}
-	
+
 	private void addMeta(JsonObjectBuilder objb, String method, String uri, String... properties){
-		JsonObjectBuilder objBuilder = Json.createObjectBuilder();
+		JsonObjectBuilder objBuilder = this.codec.createObjectBuilder();
 		String propStr = this.propertiesBuilder(properties);
 		if(propStr != null){
 			objBuilder.add("properties", propStr);
@@ -58,13 +167,255 @@ public class BulkProcessor {
 		if(!objMeta.isEmpty()){
 			objb.add("_meta", objMeta);
 		}
-		this.bulkArray.add(objb.build());
+		this.add(objb.build());
+	}
+
+	private boolean isAutoFlush(){
+		return this.maxItems > 0 || this.maxBytes > 0 || this.flushInterval > 0;
+	}
+
+	private void add(JsonObject entry){
+		Chunk chunk = null;
+		this.lock.lock();
+		try {
+			if(this.closed){
+				throw new IllegalStateException("The BulkProcessor is closed");
+			}
+			this.pending.add(entry);
+			if(this.maxBytes > 0){
+				// kept, the chunk is sent with the bytes measured here
+				byte[] json = this.codec.toBytes(entry);
+				this.pendingJson.add(json);
+				this.pendingBytes += json.length + 1;
+			}
+			if(this.isAutoFlush()){
+				this.start();
+				if((this.maxItems > 0 && this.pending.size() >= this.maxItems)
+						|| (this.maxBytes > 0 && this.pendingBytes >= this.maxBytes)){
+					chunk = this.drain();
+				}
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		if(chunk != null){
+			this.submit(chunk);
+		}
+	}
+
+	private Chunk drain(){
+		Chunk chunk = new Chunk(this.pending,
+				this.pendingJson.size() == this.pending.size() ? this.pendingJson : null);
+		this.pending = new ArrayList<JsonObject>();
+		this.pendingJson = new ArrayList<byte[]>();
+		this.pendingBytes = 0;
+		return chunk;
+	}
+
+	private void start(){
+		if(this.inFlight == null){
+			this.inFlight = new Semaphore(this.concurrency);
+		}
+		if(this.timer == null && this.flushInterval > 0){
+			this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "maximo-oslc-bulk-flush");
+				t.setDaemon(true);
+				return t;
+			});
+			this.timer.scheduleWithFixedDelay(this::tick, this.flushInterval, this.flushInterval, TimeUnit.MILLISECONDS);
+		}
 	}
-	
+
+	/**
+	 * Send the pending operations as a chunk without waiting for the response
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		Chunk chunk;
+		this.lock.lock();
+		try {
+			if(this.pending.isEmpty()){
+				return;
+			}
+			this.start();
+			chunk = this.drain();
+		} finally {
+			this.lock.unlock();
+		}
+		this.submit(chunk);
+	}
+
+	/**
+	 * Scheduled flush, skipped while every chunk slot is in use so that the timer never
+	 * waits; the operations are sent by the next tick or by the next full chunk
+	 */
+	private void tick(){
+		OslcBulkFlushEvent event = this.flushEvent();
+		if(!this.inFlight.tryAcquire()){
+			return;
+		}
+		Chunk chunk = null;
+		this.lock.lock();
+		try {
+			if(!this.pending.isEmpty()){
+				chunk = this.drain();
+			}
+		} finally {
+			this.lock.unlock();
+			if(chunk == null){
+				this.inFlight.release();
+			}
+		}
+		if(chunk != null){
+			this.send(chunk, event);
+		}
+	}
+
+	private void submit(Chunk chunk){
+		OslcBulkFlushEvent event = this.flushEvent();
+		try {
+			this.inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			this.failed(chunk.entries, e);
+			this.flushed(event, chunk.entries, true);
+			return;
+		}
+		this.send(chunk, event);
+	}
+
+	/**
+	 * Send the chunk holding a permit of inFlight, released once it is answered
+	 */
+	private void send(Chunk sent, final OslcBulkFlushEvent event){
+		final List<JsonObject> chunk = sent.entries;
+		CompletableFuture<JsonArray> sending;
+		if(sent.json != null){
+			sending = this.mc.bulkAsync(this.uri, sent.toBytes());
+		}else{
+			JsonArrayBuilder jab = this.codec.createArrayBuilder();
+			for(JsonObject entry: chunk){
+				jab.add(entry);
+			}
+			sending = this.mc.bulkAsync(this.uri, jab.build());
+		}
+		sending.whenComplete((ja, t) -> {
+			try {
+				if(t != null){
+					this.failed(chunk, t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+				}else if(this.listener != null){
+					for(int i = 0; i < chunk.size(); i++){
+						JsonValue response = ja != null && i < ja.size() ? ja.get(i) : null;
+						this.listener.onResponse(chunk.get(i),
+								response instanceof JsonObject ? (JsonObject) response : null);
+					}
+				}
+			} finally {
+				// recorded before the release, close() returns once every flush is
+				this.flushed(event, chunk, t != null);
+				this.inFlight.release();
+			}
+		});
+	}
+
+	/**
+	 * Started flush event, null unless a recording has it enabled
+	 */
+	private OslcBulkFlushEvent flushEvent(){
+		if(!OslcBulkFlushEvent.enabled()){
+			return null;
+		}
+		OslcBulkFlushEvent event = new OslcBulkFlushEvent();
+		event.begin();
+		return event;
+	}
+
+	private void flushed(OslcBulkFlushEvent event, List<JsonObject> chunk, boolean failed){
+		if(event == null){
+			return;
+		}
+		event.end();
+		if(event.shouldCommit()){
+			event.uriTemplate = OslcRequestEvent.template(this.uri);
+			event.operations = chunk.size();
+			event.failed = failed;
+			event.commit();
+		}
+	}
+
+	private void failed(List<JsonObject> chunk, Throwable cause){
+		this.failure.compareAndSet(null, cause);
+		if(this.listener != null){
+			this.listener.onFailure(chunk, cause);
+		}else{
+			logger.log(Level.WARNING, "Bulk request of " + chunk.size() + " operations failed", cause);
+		}
+	}
+
+	/**
+	 * Send the pending operations and wait for every chunk in flight. Without a listener,
+	 * the first failure of a chunk is thrown.
+	 *
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		Chunk chunk = null;
+		this.lock.lock();
+		try {
+			if(this.closed){
+				return;
+			}
+			this.closed = true;
+			if(!this.pending.isEmpty()){
+				this.start();
+				chunk = this.drain();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+		try {
+			if(chunk != null){
+				this.submit(chunk);
+			}
+		} finally {
+			if(this.timer != null){
+				this.timer.shutdownNow();
+			}
+		}
+		if(this.inFlight != null){
+			try {
+				this.inFlight.acquire(this.concurrency);
+				this.inFlight.release(this.concurrency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(e.getMessage());
+			}
+		}
+		Throwable t = this.failure.get();
+		if(t != null && this.listener == null){
+			throw t instanceof IOException ? (IOException) t : new IOException(t.getMessage(), t);
+		}
+	}
+
+	/**
+	 * Send every pending operation in one request and return the response
+	 */
 	public JsonArray processBulk(){
+		List<JsonObject> chunk;
+		this.lock.lock();
+		try {
+			chunk = this.drain().entries;
+		} finally {
+			this.lock.unlock();
+		}
+		JsonArrayBuilder jab = this.codec.createArrayBuilder();
+		for(JsonObject entry: chunk){
+			jab.add(entry);
+		}
 		JsonArray jarr = null;
 		try {
-			jarr = this.mc.bulk(this.uri, this.bulkArray.build());
+			jarr = this.mc.bulk(this.uri, jab.build());
 		} catch (IOException e) {
 			e.printStackTrace();
 		} catch (OslcException e) {
@@ -72,7 +423,7 @@ public class BulkProcessor {
 		}
 		return jarr;
 	}
-	
+
 	private String propertiesBuilder(String... properties){
 		StringBuilder propStrb = new StringBuilder();
 		for(String property: properties){
@@ -87,6 +438,35 @@ public class BulkProcessor {
 		}
 		return null;
 	}
-	
-	
+
+	/**
+	 * Operations sent in one request, with their JSON when add() measured it for maxBytes
+	 */
+	private static class Chunk {
+
+		final List<JsonObject> entries;
+		final List<byte[]> json;
+
+		Chunk(List<JsonObject> entries, List<byte[]> json){
+			this.entries = entries;
+			this.json = json;
+		}
+
+		/**
+		 * The JSON array of the measured operations
+		 */
+		byte[] toBytes(){
+			ByteArrayOutputStream bo = new ByteArrayOutputStream();
+			bo.write('[');
+			for(int i = 0; i < this.json.size(); i++){
+				if(i > 0){
+					bo.write(',');
+				}
+				bo.write(this.json.get(i), 0, this.json.get(i).length);
+			}
+			bo.write(']');
+			return bo.toByteArray();
+		}
+	}
+
 }
@@ -0,0 +1,132 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.json.JsonStructure;
+
+/**
+ *
+ * {@code ConditionalCache} keeps the parsed body of GET responses together with their
+ * {@code ETag} and {@code Last-Modified} validators, so that the next GET of the same uri
+ * can be sent as a conditional request and a 304 answered from memory.
+ *
+ * <p>The least recently used entries are evicted once the number of entries or the size
+ * of the response bodies goes over the configured bounds.</p>
+ *
+ */
+class ConditionalCache {
+
+	static class Entry {
+		final String etag;
+		final String lastModified;
+		final JsonStructure json;
+		final long bytes;
+
+		Entry(String etag, String lastModified, JsonStructure json, long bytes) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.json = json;
+			this.bytes = bytes;
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long bytes = 0;
+
+	/**
+	 * @param maxEntries
+	 * @param maxBytes size of the cached response bodies, no bound if not positive
+	 */
+	ConditionalCache(int maxEntries, long maxBytes) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	Entry get(String key) {
+		this.lock.lock();
+		try {
+			return this.entries.get(key);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	void put(String key, Entry entry) {
+		if (this.maxBytes > 0 && entry.bytes > this.maxBytes) {
+			this.remove(key);
+			return;
+		}
+		this.lock.lock();
+		try {
+			Entry old = this.entries.put(key, entry);
+			if (old != null) {
+				this.bytes -= old.bytes;
+			}
+			this.bytes += entry.bytes;
+			Iterator<Map.Entry<String, Entry>> eldest = this.entries.entrySet().iterator();
+			while (eldest.hasNext() && (this.entries.size() > this.maxEntries
+					|| (this.maxBytes > 0 && this.bytes > this.maxBytes))) {
+				this.bytes -= eldest.next().getValue().bytes;
+				eldest.remove();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	void remove(String key) {
+		this.lock.lock();
+		try {
+			Entry old = this.entries.remove(key);
+			if (old != null) {
+				this.bytes -= old.bytes;
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	void clear() {
+		this.lock.lock();
+		try {
+			this.entries.clear();
+			this.bytes = 0;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	int size() {
+		this.lock.lock();
+		try {
+			return this.entries.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	long bytes() {
+		this.lock.lock();
+		try {
+			return this.bytes;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes of a response body as it is read
+ */
+class CountingInputStream extends FilterInputStream {
+
+	private long count = 0;
+
+	CountingInputStream(InputStream in) {
+		super(in);
+	}
+
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			this.count++;
+		}
+		return b;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = super.read(b, off, len);
+		if (n > 0) {
+			this.count += n;
+		}
+		return n;
+	}
+
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		this.count += skipped;
+		return skipped;
+	}
+
+	long getCount() {
+		return this.count;
+	}
+}
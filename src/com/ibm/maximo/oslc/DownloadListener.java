@@ -0,0 +1,50 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.nio.file.Path;
+
+/**
+ *
+ * {@code DownloadListener} receives the outcome of every document written by an
+ * {@code AttachmentDownloader}. It is called on the download threads, so it must be
+ * thread safe.
+ *
+ * <pre>
+ * <code>
+ * new AttachmentDownloader(mc, dir).parallelism(8).listener(new DownloadListener() {
+ *     public void onDownloaded(String uri, Path file, long bytes) { ... }
+ *     public void onFailure(String uri, Throwable cause) { ... }
+ * }).download(rs);
+ * </code>
+ * </pre>
+ *
+ */
+public interface DownloadListener {
+
+	/**
+	 * Called once the document is completely written
+	 *
+	 * @param uri the uri of the attachment
+	 * @param file
+	 * @param bytes
+	 */
+	void onDownloaded(String uri, Path file, long bytes);
+
+	/**
+	 * Called for an attachment that could not be written, or an attachment set that
+	 * could not be listed
+	 *
+	 * @param uri the uri of the attachment or of the attachment set
+	 * @param cause
+	 */
+	void onFailure(String uri, Throwable cause);
+}
@@ -0,0 +1,138 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * {@code Histogram} is a lock-free log-linear histogram of non negative values. Every
+ * power of two is split into 8 buckets, so a percentile is within 12.5% of the recorded
+ * value whatever its magnitude, in a fixed footprint of 488 counters.
+ *
+ * <pre>
+ * <code>
+ * Histogram h = new Histogram();
+ * h.record(System.nanoTime() - start);
+ * long p99 = h.getPercentile(99);
+ * </code>
+ * </pre>
+ *
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKETS = 8;
+	private static final int LINEAR = 2 * SUB_BUCKETS;
+	private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param value negative values are recorded as 0
+	 */
+	public void record(long value) {
+		long v = Math.max(value, 0);
+		this.counts.incrementAndGet(index(v));
+		this.count.increment();
+		this.sum.add(v);
+		if (v > this.max.get()) {
+			this.max.accumulateAndGet(v, Math::max);
+		}
+	}
+
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	public long getSum() {
+		return this.sum.sum();
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	public double getMean() {
+		long n = this.count.sum();
+		return n == 0 ? 0 : (double) this.sum.sum() / n;
+	}
+
+	/**
+	 * The value below which the percentage of the recorded values fall, 0 if nothing
+	 * is recorded
+	 *
+	 * @param percent between 0 and 100
+	 */
+	public long getPercentile(double percent) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * Math.min(percent, 100) / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(upperBound(i), this.max.get());
+			}
+		}
+		return this.max.get();
+	}
+
+	/**
+	 * Add the values recorded by the other histogram
+	 */
+	public void add(Histogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long n = other.counts.get(i);
+			if (n != 0) {
+				this.counts.addAndGet(i, n);
+			}
+		}
+		this.count.add(other.getCount());
+		this.sum.add(other.getSum());
+		this.max.accumulateAndGet(other.getMax(), Math::max);
+	}
+
+	public String toString() {
+		return "count=" + this.getCount() + " mean=" + (long) this.getMean() + " p50=" + this.getPercentile(50)
+				+ " p99=" + this.getPercentile(99) + " max=" + this.getMax();
+	}
+
+	static int index(long v) {
+		if (v < LINEAR) {
+			return (int) v;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(v);
+		int sub = (int) (v >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+		return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int exponent = (index - LINEAR) / SUB_BUCKETS + 4;
+		int sub = (index - LINEAR) % SUB_BUCKETS;
+		long upper = ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+		return upper < 0 ? Long.MAX_VALUE : upper;
+	}
+}
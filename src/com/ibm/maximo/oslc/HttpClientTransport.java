@@ -0,0 +1,183 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *
+ * {@code HttpClientTransport} is the default {@code Transport}, it is built on
+ * {@code java.net.http.HttpClient}. Connections are kept alive and pooled by the client
+ * and HTTP/2 is negotiated when the server supports it.
+ *
+ * <p>One client is kept per proxy and redirect policy, so the login request which
+ * must not follow redirects does not disturb the pool of the regular requests.</p>
+ *
+ * <p>{@code java.net.http} only goes through HTTP proxies, the requests given a SOCKS
+ * proxy are sent with {@code UrlConnectionTransport}.</p>
+ *
+ */
+public class HttpClientTransport implements Transport {
+
+	// headers managed by java.net.http itself, setting them is rejected by the client
+	private static final Set<String> RESTRICTED_HEADERS = new HashSet<String>(Arrays.asList(
+			"connection", "content-length", "expect", "host", "upgrade"));
+
+	private final ConcurrentHashMap<String, HttpClient> clients = new ConcurrentHashMap<String, HttpClient>();
+	private final Executor executor;
+	private final UrlConnectionTransport socks = new UrlConnectionTransport();
+
+	public HttpClientTransport() {
+		this(null);
+	}
+
+	/**
+	 * @param executor executor for the asynchronous tasks of the client, null for the client's default
+	 */
+	public HttpClientTransport(Executor executor) {
+		this.executor = executor;
+	}
+
+	public TransportResponse send(TransportRequest request) throws IOException {
+		if (isSocks(request.getProxy())) {
+			return this.socks.send(request);
+		}
+		HttpClient client = this.client(request.getProxy(), request.isFollowRedirects());
+		try {
+			HttpResponse<InputStream> response = client.send(this.buildRequest(request),
+					HttpResponse.BodyHandlers.ofInputStream());
+			return new TransportResponse(response.statusCode(), response.headers().map(), response.body());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Non-blocking send, the body is collected by the client's own I/O threads
+	 */
+	public CompletableFuture<TransportResponse> sendAsync(TransportRequest request, Executor executor) {
+		if (isSocks(request.getProxy())) {
+			return this.socks.sendAsync(request, executor);
+		}
+		HttpClient client = this.client(request.getProxy(), request.isFollowRedirects());
+		return client.sendAsync(this.buildRequest(request), HttpResponse.BodyHandlers.ofByteArray())
+				.thenApply(response -> new TransportResponse(response.statusCode(), response.headers().map(),
+						new ByteArrayInputStream(response.body())));
+	}
+
+	HttpRequest buildRequest(TransportRequest request) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getURI()));
+		for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
+			if (!RESTRICTED_HEADERS.contains(entry.getKey().toLowerCase())) {
+				builder.header(entry.getKey(), entry.getValue());
+			}
+		}
+		builder.method(request.getMethod(), this.publisher(request));
+		return builder.build();
+	}
+
+	/**
+	 * Streamed bodies are published as they are read, with a content length when it is known
+	 * and chunked otherwise. A file channel is read again from its start if the client has to
+	 * resend the body, on a redirect for instance; an input stream can not be, the resend fails.
+	 */
+	private HttpRequest.BodyPublisher publisher(TransportRequest request) {
+		if (request.getBody() != null) {
+			return HttpRequest.BodyPublishers.ofByteArray(request.getBody());
+		}
+		HttpRequest.BodyPublisher stream;
+		if (request.getBodyChannel() != null) {
+			final FileChannel channel = request.getBodyChannel();
+			final long start = this.position(channel);
+			stream = HttpRequest.BodyPublishers.ofInputStream(() -> {
+				try {
+					// the client closes the stream it read, the channel stays open for a resend
+					return new FilterInputStream(Channels.newInputStream(channel.position(start))) {
+						@Override
+						public void close() {
+						}
+					};
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} else if (request.getBodyStream() != null) {
+			final InputStream in = request.getBodyStream();
+			final AtomicBoolean supplied = new AtomicBoolean();
+			stream = HttpRequest.BodyPublishers.ofInputStream(() -> {
+				if (supplied.getAndSet(true)) {
+					throw new UncheckedIOException(new IOException("The streamed body was read already and can not be sent again"));
+				}
+				return in;
+			});
+		} else {
+			return HttpRequest.BodyPublishers.noBody();
+		}
+		long length = request.getBodyLength();
+		return length >= 0 ? HttpRequest.BodyPublishers.fromPublisher(stream, length) : stream;
+	}
+
+	private long position(FileChannel channel) {
+		try {
+			return channel.position();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static boolean isSocks(Proxy proxy) {
+		return proxy != null && proxy.type() == Proxy.Type.SOCKS;
+	}
+
+	HttpClient client(Proxy proxy, boolean followRedirects) {
+		String key = (proxy == null ? "DIRECT" : proxy.toString()) + (followRedirects ? "" : "|noredirect");
+		HttpClient client = this.clients.get(key);
+		if (client == null) {
+			HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2)
+					.followRedirects(followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+			if (this.executor != null) {
+				builder.executor(this.executor);
+			}
+			if (proxy != null && proxy.type() == Proxy.Type.HTTP) {
+				builder.proxy(ProxySelector.of((InetSocketAddress) proxy.address()));
+			}
+			client = builder.build();
+			HttpClient existing = this.clients.putIfAbsent(key, client);
+			if (existing != null) {
+				client = existing;
+			}
+		}
+		return client;
+	}
+}
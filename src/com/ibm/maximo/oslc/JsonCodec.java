@@ -0,0 +1,134 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonReaderFactory;
+import javax.json.JsonStructure;
+import javax.json.JsonWriter;
+import javax.json.JsonWriterFactory;
+import javax.json.spi.JsonProvider;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+
+/**
+ *
+ * {@code JsonCodec} holds the JSON factories used by the client. The static methods of
+ * {@code javax.json.Json} look the provider up for every call, the codec looks it up once
+ * and keeps the reader, writer, parser, generator and builder factories.
+ *
+ * <p>Every {@code MaximoConnector} has a codec, built from the provider set in {@code Options}
+ * or the default provider otherwise. The factories are thread safe and the codec can be shared.</p>
+ * <pre>
+ * <code>
+ * new Options().jsonProvider(myProvider);
+ * mc.getCodec().createReader(in);
+ * </code>
+ * </pre>
+ *
+ */
+public class JsonCodec {
+
+	private static volatile JsonCodec defaultCodec;
+
+	private final JsonProvider provider;
+	private final JsonReaderFactory readerFactory;
+	private final JsonWriterFactory writerFactory;
+	private final JsonParserFactory parserFactory;
+	private final JsonGeneratorFactory generatorFactory;
+	private final JsonBuilderFactory builderFactory;
+
+	/**
+	 * @param provider the JSON provider, null for the default one
+	 */
+	public JsonCodec(JsonProvider provider) {
+		this.provider = provider != null ? provider : JsonProvider.provider();
+		Map<String, ?> config = Collections.emptyMap();
+		this.readerFactory = this.provider.createReaderFactory(config);
+		this.writerFactory = this.provider.createWriterFactory(config);
+		this.parserFactory = this.provider.createParserFactory(config);
+		this.generatorFactory = this.provider.createGeneratorFactory(config);
+		this.builderFactory = this.provider.createBuilderFactory(config);
+	}
+
+	/**
+	 * Get the codec of the default provider
+	 */
+	public static JsonCodec getDefault() {
+		JsonCodec codec = defaultCodec;
+		if (codec == null) {
+			codec = new JsonCodec(null);
+			defaultCodec = codec;
+		}
+		return codec;
+	}
+
+	/**
+	 * Get the codec of the connector, the default codec when there is no connector
+	 *
+	 * @param mc
+	 */
+	static JsonCodec of(MaximoConnector mc) {
+		return mc != null ? mc.getCodec() : getDefault();
+	}
+
+	public JsonProvider getProvider() {
+		return this.provider;
+	}
+
+	public JsonReader createReader(InputStream in) {
+		return this.readerFactory.createReader(in);
+	}
+
+	public JsonWriter createWriter(OutputStream out) {
+		return this.writerFactory.createWriter(out);
+	}
+
+	public JsonParser createParser(InputStream in) {
+		return this.parserFactory.createParser(in);
+	}
+
+	public JsonGenerator createGenerator(OutputStream out) {
+		return this.generatorFactory.createGenerator(out);
+	}
+
+	public JsonObjectBuilder createObjectBuilder() {
+		return this.builderFactory.createObjectBuilder();
+	}
+
+	public JsonArrayBuilder createArrayBuilder() {
+		return this.builderFactory.createArrayBuilder();
+	}
+
+	/**
+	 * Write the JsonObject or JsonArray as UTF-8 bytes
+	 *
+	 * @param json
+	 */
+	public byte[] toBytes(JsonStructure json) {
+		ByteArrayOutputStream bo = new ByteArrayOutputStream();
+		JsonWriter writer = this.writerFactory.createWriter(bo);
+		writer.write(json);
+		writer.close();
+		return bo.toByteArray();
+	}
+}
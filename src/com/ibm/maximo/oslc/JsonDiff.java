@@ -0,0 +1,216 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+
+/**
+ *
+ * {@code JsonDiff} computes the changes between two versions of a resource in the form
+ * of a merge request, and applies such changes back onto a resource.
+ *
+ * <p>Child objects in arrays are matched by their uri (href, rdf:about or localref).
+ * A matched child only carries its uri and its changed attributes, a child without a
+ * match is new and is sent whole. Attributes removed from the edited version are not
+ * part of the changes.</p>
+ *
+ */
+class JsonDiff {
+
+	private static final String[] IDENTITY = { "href", "rdf:about", "localref" };
+
+	private final JsonCodec codec;
+
+	JsonDiff(JsonCodec codec) {
+		this.codec = codec;
+	}
+
+	/**
+	 * The attributes of {@code edited} that differ from {@code original}, empty if there is no change
+	 */
+	JsonObject diff(JsonObject original, JsonObject edited) {
+		JsonObjectBuilder changes = this.codec.createObjectBuilder();
+		for (Map.Entry<String, JsonValue> entry : edited.entrySet()) {
+			String name = entry.getKey();
+			JsonValue value = entry.getValue();
+			JsonValue old = original.get(name);
+			if (value.equals(old)) {
+				continue;
+			}
+			if (value instanceof JsonArray && old instanceof JsonArray) {
+				JsonArray children = this.diffChildren((JsonArray) old, (JsonArray) value);
+				if (children != null) {
+					if (!children.isEmpty()) {
+						changes.add(name, children);
+					}
+					continue;
+				}
+			}
+			changes.add(name, value);
+		}
+		return changes.build();
+	}
+
+	/**
+	 * Changed and new children, null if the arrays do not hold identified objects
+	 */
+	private JsonArray diffChildren(JsonArray original, JsonArray edited) {
+		JsonArrayBuilder children = this.codec.createArrayBuilder();
+		for (JsonValue value : edited) {
+			if (!(value instanceof JsonObject)) {
+				return null;
+			}
+			JsonObject child = (JsonObject) value;
+			String id = identity(child);
+			JsonObject old = id != null ? find(original, id) : null;
+			if (old == null) {
+				children.add(child);
+				continue;
+			}
+			JsonObject changes = this.diff(old, child);
+			if (!changes.isEmpty()) {
+				JsonObjectBuilder changed = this.codec.createObjectBuilder();
+				for (String key : IDENTITY) {
+					if (child.containsKey(key)) {
+						changed.add(key, child.get(key));
+					}
+				}
+				for (Map.Entry<String, JsonValue> entry : changes.entrySet()) {
+					changed.add(entry.getKey(), entry.getValue());
+				}
+				children.add(changed);
+			}
+		}
+		return children.build();
+	}
+
+	/**
+	 * Apply the changes onto the resource the way a merge does
+	 */
+	JsonObject apply(JsonObject resource, JsonObject changes) {
+		JsonObjectBuilder merged = this.codec.createObjectBuilder();
+		for (Map.Entry<String, JsonValue> entry : resource.entrySet()) {
+			String name = entry.getKey();
+			JsonValue value = entry.getValue();
+			JsonValue change = changes.get(name);
+			if (change == null) {
+				merged.add(name, value);
+			} else if (change instanceof JsonArray && value instanceof JsonArray) {
+				merged.add(name, this.applyChildren((JsonArray) value, (JsonArray) change));
+			} else {
+				merged.add(name, change);
+			}
+		}
+		for (Map.Entry<String, JsonValue> entry : changes.entrySet()) {
+			if (!resource.containsKey(entry.getKey())) {
+				merged.add(entry.getKey(), entry.getValue());
+			}
+		}
+		return merged.build();
+	}
+
+	private JsonArray applyChildren(JsonArray children, JsonArray changes) {
+		JsonArrayBuilder merged = this.codec.createArrayBuilder();
+		boolean[] applied = new boolean[changes.size()];
+		for (JsonValue value : children) {
+			String id = value instanceof JsonObject ? identity((JsonObject) value) : null;
+			int index = id != null ? indexOf(changes, id) : -1;
+			if (index >= 0) {
+				merged.add(this.apply((JsonObject) value, changes.getJsonObject(index)));
+				applied[index] = true;
+			} else {
+				merged.add(value);
+			}
+		}
+		for (int i = 0; i < changes.size(); i++) {
+			if (!applied[i]) {
+				merged.add(changes.get(i));
+			}
+		}
+		return merged.build();
+	}
+
+	/**
+	 * Copy of the object with the attribute set to the value, which is a JsonValue,
+	 * String, Number, Boolean or null
+	 */
+	JsonObject with(JsonObject jo, String name, Object value) {
+		JsonObjectBuilder builder = this.codec.createObjectBuilder();
+		for (Map.Entry<String, JsonValue> entry : jo.entrySet()) {
+			if (!entry.getKey().equals(name)) {
+				builder.add(entry.getKey(), entry.getValue());
+			}
+		}
+		if (value == null) {
+			builder.addNull(name);
+		} else if (value instanceof JsonValue) {
+			builder.add(name, (JsonValue) value);
+		} else if (value instanceof String) {
+			builder.add(name, (String) value);
+		} else if (value instanceof Boolean) {
+			builder.add(name, (Boolean) value);
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			builder.add(name, ((Number) value).longValue());
+		} else if (value instanceof BigInteger) {
+			builder.add(name, (BigInteger) value);
+		} else if (value instanceof BigDecimal) {
+			builder.add(name, (BigDecimal) value);
+		} else if (value instanceof Number) {
+			builder.add(name, ((Number) value).doubleValue());
+		} else {
+			throw new IllegalArgumentException("Unsupported value for " + name + ": " + value.getClass().getName());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Copy of the array with the element at the index replaced
+	 */
+	JsonArray with(JsonArray ja, int index, JsonValue value) {
+		JsonArrayBuilder builder = this.codec.createArrayBuilder();
+		for (int i = 0; i < ja.size(); i++) {
+			builder.add(i == index ? value : ja.get(i));
+		}
+		return builder.build();
+	}
+
+	static String identity(JsonObject jo) {
+		for (String key : IDENTITY) {
+			if (jo.containsKey(key) && jo.get(key).getValueType() == JsonValue.ValueType.STRING) {
+				return jo.getString(key);
+			}
+		}
+		return null;
+	}
+
+	private static JsonObject find(JsonArray ja, String id) {
+		int index = indexOf(ja, id);
+		return index >= 0 ? ja.getJsonObject(index) : null;
+	}
+
+	private static int indexOf(JsonArray ja, String id) {
+		for (int i = 0; i < ja.size(); i++) {
+			if (ja.get(i) instanceof JsonObject && id.equals(identity(ja.getJsonObject(i)))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
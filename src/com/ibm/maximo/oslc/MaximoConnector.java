@@ -11,18 +11,33 @@
 package com.ibm.maximo.oslc;
 
 import java.io.*;
-import java.net.HttpURLConnection;
+import java.lang.reflect.Method;
 import java.net.Proxy;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.json.*;
+import javax.json.spi.JsonProvider;
 
 /**
  * 
@@ -54,9 +69,9 @@ import javax.json.*;
  * The following examples demonstrate how to set authentication, method, cookie for session to {@code MaximoConnector}</p>
  * <pre>
  * <code>
- * mc.setAuth(authMethod);
- * mc.setMethod(httpConnection,method);
- * mc.setCookieForSession(httpConnection);
+ * mc.setAuth(uri);
+ * mc.setMethod(transportRequest,method);
+ * mc.transport(new UrlConnectionTransport());
  * </code>
  * </pre>
  * 
@@ -82,6 +97,15 @@ import javax.json.*;
  * </pre>
  * 
  * <p>
+ * Every verb has an asynchronous counterpart returning a {@code CompletableFuture}</p>
+ * <pre>
+ * <code>
+ * mc.getAsync(uri).thenAccept(jo -&gt; ...);
+ * CompletableFuture&lt;JsonObject&gt; f = mc.updateAsync(uri, jsonObject, properties);
+ * </code>
+ * </pre>
+ * 
+ * <p>
  * The following examples  show how to get {@code ResourceSet} or {@code Resource} or {@code Attachment} by {@code MaximoConnector}</p>
  * <pre><code>
  * ResourceSet rs = mc.resourceSet(osName);
@@ -96,12 +120,23 @@ public class MaximoConnector {
 	
 	public static final Logger logger = Logger.getLogger(MaximoConnector.class.getName());
 	private Options options;
-	private boolean valid = false;
+	private volatile boolean valid = false;
 	private boolean debug = false;
-	private int lastResponseCode = 0;
+	private final ThreadLocal<Integer> lastResponseCode = new ThreadLocal<Integer>();
 	// private JsonObject jo;
 
-	private List<String> cookies = null;
+	private final SessionCookies cookies = new SessionCookies();
+	private volatile Transport transport;
+	private volatile JsonCodec codec;
+	private volatile ConditionalCache conditionalCache;
+	private volatile ResourceCache resourceCache;
+	// the GETs in flight by uri and headers, shared by identical concurrent GETs
+	private final ConcurrentHashMap<String, CompletableFuture<OslcResponse>> inFlight = new ConcurrentHashMap<String, CompletableFuture<OslcResponse>>();
+	private volatile ExecutorService executor;
+	private final ReentrantLock sessionLock = new ReentrantLock();
+	// generation of the session, incremented by every login under the session lock
+	private volatile int session = 0;
+	private volatile Proxy proxy;
 //	private JsonObject version;
 //	private JsonObject userInfo;
 
@@ -114,8 +149,6 @@ public class MaximoConnector {
 	public static final String HTTP_METHOD_SYNC = "SYNC";
 	public static final String HTTP_METHOD_MERGESYNC = "MERGESYNC";
 
-	public String httpMethod = "GET";// by default it is get
-
 	public MaximoConnector(){	
 	}
 	
@@ -167,6 +200,95 @@ public class MaximoConnector {
 		this.options = op;
 		return this;
 	}
+	
+	/**
+	 * Use the given transport instead of the one selected by {@code Options}
+	 * @param transport
+	 */
+	public MaximoConnector transport(Transport transport){
+		this.transport = transport;
+		return this;
+	}
+	
+	/**
+	 * Use the given JSON codec instead of the one built from {@code Options}
+	 * @param codec
+	 */
+	public MaximoConnector codec(JsonCodec codec){
+		this.codec = codec;
+		return this;
+	}
+	
+	public JsonCodec getCodec(){
+		JsonCodec c = this.codec;
+		if(c == null){
+			synchronized(this){
+				c = this.codec;
+				if(c == null){
+					JsonProvider provider = this.options != null ? this.options.getJsonProvider() : null;
+					c = provider != null ? new JsonCodec(provider) : JsonCodec.getDefault();
+					this.codec = c;
+				}
+			}
+		}
+		return c;
+	}
+	
+	/**
+	 * The cache of conditional GETs, null when it is not enabled by {@code Options}
+	 */
+	ConditionalCache getConditionalCache(){
+		ConditionalCache c = this.conditionalCache;
+		if(c == null && this.options != null && this.options.getConditionalCacheEntries() > 0){
+			synchronized(this){
+				c = this.conditionalCache;
+				if(c == null){
+					c = new ConditionalCache(this.options.getConditionalCacheEntries(),
+							this.options.getConditionalCacheBytes());
+					this.conditionalCache = c;
+				}
+			}
+		}
+		return c;
+	}
+	
+	/**
+	 * The cache of fetched resources, null when it is not enabled by {@code Options}
+	 */
+	public ResourceCache getResourceCache(){
+		ResourceCache c = this.resourceCache;
+		if(c == null && this.options != null && this.options.getResourceCacheEntries() > 0){
+			synchronized(this){
+				c = this.resourceCache;
+				if(c == null){
+					c = new ResourceCache(this.options.getResourceCacheEntries(),
+							this.options.getResourceCacheTTL());
+					this.resourceCache = c;
+				}
+			}
+		}
+		return c;
+	}
+	
+	public Transport getTransport(){
+		Transport t = this.transport;
+		if(t == null){
+			synchronized(this){
+				t = this.transport;
+				if(t == null){
+					if(Options.TRANSPORT_URLCONNECTION.equals(this.options.getTransport())){
+						t = new UrlConnectionTransport();
+					}else if(this.options.isVirtualThreads()){
+						t = new HttpClientTransport(this.executor());
+					}else{
+						t = new HttpClientTransport();
+					}
+					this.transport = t;
+				}
+			}
+		}
+		return t;
+	}
 
 	public String getCurrentURI() {
 		return this.options.getPublicURI();
@@ -196,38 +318,6 @@ public class MaximoConnector {
 		return debug;
 	}
 	
-	boolean isGET() {
-		return this.httpMethod.equals(HTTP_METHOD_GET);
-	}
-
-	boolean isPOST() {
-		return this.httpMethod.equals(HTTP_METHOD_POST);
-	}
-
-	boolean isPATCH() {
-		return this.httpMethod.equals(HTTP_METHOD_PATCH);
-	}
-
-	boolean isMERGE() {
-		return this.httpMethod.equals(HTTP_METHOD_MERGE);
-	}
-
-	boolean isDELETE() {
-		return this.httpMethod.equals(HTTP_METHOD_DELETE);
-	}
-
-	boolean isBULK() {
-		return this.httpMethod.equals(HTTP_METHOD_BULK);
-	}
-	
-	boolean isSYNC() {
-		return this.httpMethod.equals(HTTP_METHOD_SYNC);
-	}
-	
-	boolean isMERGESYNC() {
-		return this.httpMethod.equals(HTTP_METHOD_MERGESYNC);
-	}
-	
 	public boolean isValid(){
 		return this.valid;
 	}
@@ -255,92 +345,461 @@ public class MaximoConnector {
 	 */
 	
 	public void connect(Proxy proxy) throws IOException, OslcException {
-		if(isValid()){
-			throw new OslcException("You are already connected.");
+		// a lock rather than a monitor, a virtual thread waiting for the login is not pinned
+		this.sessionLock.lock();
+		try {
+			if(isValid()){
+				throw new OslcException("You are already connected.");
+			}
+			this.proxy = proxy;
+			this.login(false);
+		} finally {
+			this.sessionLock.unlock();
 		}
-		cookies = null;
-		
+	}
+	
+	/**
+	 * Log in again if the session the request was sent with is still the current one,
+	 * otherwise another thread has already renewed it. The other callers wait on the
+	 * session lock, so there is a single login however many requests saw the expiry.
+	 * A failed login leaves the connector invalid until {@code connect} is called.
+	 * 
+	 * @param session the session generation when the request was sent
+	 */
+	
+	private void relogin(int session) throws IOException, OslcException {
+		this.sessionLock.lock();
+		try {
+			if(this.session != session){
+				return;
+			}
+			if(!isValid()){
+				throw new OslcException("The instance of MaximoConnector is not valid.");
+			}
+			logger.fine("Session expired, login again");
+			try {
+				this.login(true);
+			} catch (IOException | OslcException | RuntimeException e) {
+				this.valid = false;
+				throw e;
+			}
+		} finally {
+			this.sessionLock.unlock();
+		}
+	}
+	
+	/**
+	 * Run the configured authentication and start a new session generation, the
+	 * session lock is held
+	 */
+	
+	private void login(boolean relogin) throws IOException, OslcException {
 		String uri = this.options.getAppURI();
 		logger.fine(uri);
 		
-		HttpURLConnection con = this.setAuth(uri, proxy);
+		OslcConnectEvent event = new OslcConnectEvent();
+		event.begin();
+		TransportRequest req = this.setAuth(uri, this.proxy);
 		if(!this.options.isFormAuth()){
-			con = this.setMethod(con, "GET");
+			req = this.setMethod(req, "GET");
 		}
 
-		int i = con.getResponseCode();
-		lastResponseCode = i;
-		
-		if( i == -1 ){
-			throw new OslcException("Invalid_Request");
-		}
-		
-		if(i<400){
+		TransportResponse res = null;
+		try {
+			res = this.transmit(req);
+			int i = res.getStatusCode();
+			lastResponseCode.set(i);
+			
+			if( i == -1 ){
+				throw new OslcException("Invalid_Request");
+			}
+			
+			// the old cookies are kept until the new session replaces them in one step
+			if (i >= 400 || !cookies.replace(res.getHeaders("Set-Cookie"))) {
+				String str = Util.getStringFromInputStream(res.getBody());
+				throw new OslcException(i, str);
+			}
+			this.session++;
 			this.valid = true;
-			cookies = con.getHeaderFields().get("Set-Cookie");
-//			JsonObject oslcHome = this.get(this.options.getAppURI());
-//			if(oslcHome!=null){
-//				this.version(oslcHome);
-//				this.userInfo(oslcHome);
-//			}
+		} finally {
+			if(res != null){
+				res.close();
+			}
+			event.end();
+			if(event.shouldCommit()){
+				// the template drops the query, where form and tenant parameters are
+				event.uriTemplate = OslcRequestEvent.template(uri);
+				event.auth = this.options.getAuthMode();
+				event.statusCode = res != null ? res.getStatusCode() : 0;
+				event.relogin = relogin;
+				event.commit();
+			}
+		}
+	}
+	
+	/**
+	 * Send a request and return the per call response.
+	 * The method can be one of the HTTP_METHOD constants, the overrides are sent as POST
+	 * with the matching x-method-override header.
+	 * 
+	 * @param method
+	 * @param uri
+	 * @param body can be null
+	 * @param headers can be null
+	 * @param properties
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public OslcResponse request(String method, String uri, JsonStructure body, Map<String,Object> headers, String... properties)
+			throws IOException, OslcException {
+		return this.request(method, uri, body, headers, this.options.isCoalesce(), properties);
+	}
+	
+	private OslcResponse request(String method, String uri, JsonStructure body, Map<String,Object> headers,
+			boolean coalesce, String... properties) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, method, headers, properties);
+		if(body != null){
+			req.body(this.getCodec().toBytes(body));
+		}
+		String flightKey = coalesce ? this.flightKey(method, req) : null;
+		if(flightKey == null){
+			return this.exchange(method, req);
+		}
+		CompletableFuture<OslcResponse> flight = new CompletableFuture<OslcResponse>();
+		CompletableFuture<OslcResponse> leader = this.inFlight.putIfAbsent(flightKey, flight);
+		if(leader != null){
+			return this.await(leader);
+		}
+		try {
+			OslcResponse res = this.exchange(method, req);
+			flight.complete(res);
+			return res;
+		} catch (IOException | OslcException | RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			this.inFlight.remove(flightKey, flight);
 		}
-		if (cookies == null) {
-			InputStream inStream = null;
-			inStream = con.getErrorStream();
-			if(inStream == null){
-				inStream = con.getInputStream();
+	}
+	
+	private OslcResponse exchange(String method, TransportRequest req) throws IOException, OslcException {
+		String cacheKey = this.conditional(method, req);
+		OslcResponse res = this.toResponse(method, req, this.send(req, true), cacheKey);
+		if(res == null){
+			// not modified, but the cached response was evicted meanwhile
+			unconditional(req);
+			res = this.toResponse(method, req, this.send(req, true), cacheKey);
+		}
+		this.written(method, req.getURI());
+		return res;
+	}
+	
+	/**
+	 * The key under which identical GETs share one exchange, null for the other methods
+	 */
+	private String flightKey(String method, TransportRequest req) {
+		if(!HTTP_METHOD_GET.equals(method)){
+			return null;
+		}
+		return req.getURI() + " " + req.getHeaders();
+	}
+	
+	/**
+	 * Wait for the exchange of another caller and take its response or its failure,
+	 * the status is the last response code of this thread as well
+	 */
+	private OslcResponse await(CompletableFuture<OslcResponse> leader) throws IOException, OslcException {
+		try {
+			OslcResponse res = leader.get();
+			lastResponseCode.set(res.getStatusCode());
+			return res;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a coalesced GET");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+					? e.getCause().getCause() : e.getCause();
+			if(cause instanceof IOException){
+				throw (IOException) cause;
 			}
-			String str = Util.getStringFromInputStream(inStream);
-			throw new OslcException(str);
+			if(cause instanceof OslcException){
+				lastResponseCode.set(((OslcException) cause).getErrorCode());
+				throw (OslcException) cause;
+			}
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error){
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
 		}
 	}
 	
-	public synchronized JsonObject get(String uri) throws IOException, OslcException {
-		return this.get(uri, null);
+	/**
+	 * Asynchronous version of {@code request}. The transport sends the request without
+	 * blocking the caller and the body is parsed on the parse executor of {@code Options}.
+	 * Failures complete the future with a {@code CompletionException} wrapping the
+	 * {@code OslcException} or {@code IOException}.
+	 * 
+	 * @param method
+	 * @param uri
+	 * @param body can be null
+	 * @param headers can be null
+	 * @param properties
+	 */
+	
+	public CompletableFuture<OslcResponse> requestAsync(final String method, String uri, JsonStructure body, Map<String,Object> headers, String... properties) {
+		return this.requestAsync(method, uri, body != null ? this.getCodec().toBytes(body) : null, headers,
+				this.options.isCoalesce(), properties);
 	}
 	
-	public synchronized JsonObject get(String uri, Map<String,Object> headers) throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
+	private CompletableFuture<OslcResponse> requestAsync(final String method, String uri, byte[] body,
+			Map<String,Object> headers, boolean coalesce, String... properties) {
+		final TransportRequest req;
+		try {
+			req = this.newRequest(uri, method, headers, properties);
+			if(body != null){
+				req.body(body);
+			}
+		} catch (IOException | OslcException e) {
+			return this.failed(e);
+		}
+		final String flightKey = coalesce ? this.flightKey(method, req) : null;
+		if(flightKey == null){
+			return this.exchangeAsync(method, req);
+		}
+		final CompletableFuture<OslcResponse> flight = new CompletableFuture<OslcResponse>();
+		CompletableFuture<OslcResponse> leader = this.inFlight.putIfAbsent(flightKey, flight);
+		if(leader != null){
+			// a copy, so that a caller completing or cancelling its future does not affect the others
+			return leader.thenApply(Function.identity());
+		}
+		this.exchangeAsync(method, req).whenComplete((res, t) -> {
+			this.inFlight.remove(flightKey, flight);
+			if(t != null){
+				flight.completeExceptionally(t);
+			}else{
+				flight.complete(res);
+			}
+		});
+		return flight.thenApply(Function.identity());
+	}
+	
+	private CompletableFuture<OslcResponse> exchangeAsync(final String method, final TransportRequest req) {
+		final String cacheKey = this.conditional(method, req);
+		return this.exchangeAsync(method, req, cacheKey).thenCompose(res -> {
+			if(res != null){
+				return CompletableFuture.completedFuture(res);
+			}
+			// not modified, but the cached response was evicted meanwhile
+			unconditional(req);
+			return this.exchangeAsync(method, req, cacheKey);
+		});
+	}
+	
+	private CompletableFuture<OslcResponse> exchangeAsync(final String method, final TransportRequest req, final String cacheKey) {
+		final int session = this.session;
+		this.setCookiesForSession(req);
+		return this.transmitAsync(req).thenCompose(res -> {
+			if(!this.expired(res, true)){
+				return CompletableFuture.completedFuture(res);
+			}
+			// the login blocks, it runs on the executor rather than on a thread of the transport
+			return CompletableFuture.runAsync(() -> {
+				try {
+					this.renew(session, req, res);
+				} catch (IOException | OslcException e) {
+					throw new CompletionException(e);
+				}
+				this.setCookiesForSession(req);
+			}, this.executor()).thenCompose(v -> this.transmitAsync(req));
+		}).thenApplyAsync(res -> {
+			try {
+				OslcResponse response = this.toResponse(method, req, this.received(res), cacheKey);
+				if(response != null){
+					this.written(method, req.getURI());
+				}
+				return response;
+			} catch (IOException | OslcException e) {
+				throw new CompletionException(e);
+			}
+		}, this.options.getParseExecutor());
+	}
+	
+	public CompletableFuture<JsonObject> getAsync(String uri) {
+		return this.getAsync(uri, null);
+	}
+	
+	public CompletableFuture<JsonObject> getAsync(String uri, Map<String,Object> headers) {
+		return this.requestAsync(HTTP_METHOD_GET, uri, null, headers).thenApply(OslcResponse::toJSON);
+	}
+	
+	/**
+	 * Get without blocking, choosing for this call whether it shares the exchange of an
+	 * identical GET in flight
+	 * 
+	 * @param uri
+	 * @param headers can be null
+	 * @param coalesce
+	 */
+	public CompletableFuture<JsonObject> getAsync(String uri, Map<String,Object> headers, boolean coalesce) {
+		return this.requestAsync(HTTP_METHOD_GET, uri, null, headers, coalesce).thenApply(OslcResponse::toJSON);
+	}
+	
+	public CompletableFuture<JsonObject> createAsync(String uri, JsonObject jo, String... properties) {
+		return this.createAsync(uri, jo, null, properties);
+	}
+	
+	public CompletableFuture<JsonObject> createAsync(String uri, JsonObject jo, Map<String,Object> headers, final String... properties) {
+		return this.requestAsync(HTTP_METHOD_POST, uri, jo, headers, properties).thenApply(res -> {
+			if(properties.length == 0){
+				return this.locationObject(res.getLocation());
+			}
+			return res.toJSON();
+		});
+	}
+	
+	public CompletableFuture<JsonObject> updateAsync(String uri, JsonObject jo, String... properties) {
+		return this.updateAsync(uri, jo, null, properties);
+	}
+	
+	public CompletableFuture<JsonObject> updateAsync(String uri, JsonObject jo, Map<String,Object> headers, String... properties) {
+		if (jo.isEmpty()) {
+			return this.failed(new OslcException("jo_is_invalid"));
 		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
+		return this.requestAsync(HTTP_METHOD_PATCH, uri, jo, headers, properties).thenApply(OslcResponse::toJSON);
+	}
+	
+	public CompletableFuture<JsonObject> mergeAsync(String uri, JsonObject jo, String... properties) {
+		return this.mergeAsync(uri, jo, null, properties);
+	}
+	
+	public CompletableFuture<JsonObject> mergeAsync(String uri, JsonObject jo, Map<String,Object> headers, String... properties) {
+		if (jo.isEmpty()) {
+			return this.failed(new OslcException("jo_is_invalid"));
 		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
+		return this.requestAsync(HTTP_METHOD_MERGE, uri, jo, headers, properties).thenApply(OslcResponse::toJSON);
+	}
+	
+	public CompletableFuture<JsonArray> bulkAsync(String uri, JsonArray ja) {
+		return this.bulkAsync(uri, ja, null);
+	}
+	
+	public CompletableFuture<JsonArray> bulkAsync(String uri, JsonArray ja, Map<String,Object> headers) {
+		if (ja.isEmpty()) {
+			return this.failed(new OslcException("jo_is_invalid"));
+		}
+		return this.requestAsync(HTTP_METHOD_BULK, uri, ja, headers).thenApply(OslcResponse::toJSONArray);
+	}
+	
+	/**
+	 * bulkAsync of a JSON array already written as UTF-8 bytes
+	 */
+	CompletableFuture<JsonArray> bulkAsync(String uri, byte[] body) {
+		return this.requestAsync(HTTP_METHOD_BULK, uri, body, null, this.options.isCoalesce())
+				.thenApply(OslcResponse::toJSONArray);
+	}
+	
+	public CompletableFuture<Void> deleteAsync(String uri) {
+		return this.deleteAsync(uri, null);
+	}
+	
+	public CompletableFuture<Void> deleteAsync(String uri, Map<String,Object> headers) {
+		return this.requestAsync(HTTP_METHOD_DELETE, uri, null, headers).thenApply(res -> (Void) null);
+	}
+	
+	private <T> CompletableFuture<T> failed(Throwable t) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(t);
+		return future;
+	}
+	
+	/**
+	 * Executor for the blocking and parallel work of the connector, such as the asynchronous
+	 * requests of a transport without non-blocking I/O. With {@code Options.virtualThreads}
+	 * on a Java 21 or later runtime every task gets its own virtual thread.
+	 */
+	
+	Executor executor() {
+		ExecutorService e = this.executor;
+		if(e == null){
+			synchronized(this){
+				e = this.executor;
+				if(e == null && this.options.isVirtualThreads()){
+					e = newVirtualThreadExecutor();
+					if(e == null){
+						logger.warning("Virtual threads are not available on this runtime, using platform threads");
+					}
+				}
+				if(e == null){
+					e = Executors.newCachedThreadPool(new ThreadFactory() {
+						private final AtomicInteger count = new AtomicInteger();
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "maximo-oslc-" + count.incrementAndGet());
+							t.setDaemon(true);
+							return t;
+						}
+					});
+				}
+				this.executor = e;
 			}
-			uri = uri.replace(currentHost, publicHost);
 		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "GET");
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream = null;
-		if (resCode >= 400) {
-				inStream = con.getErrorStream();
-				JsonReader rdr = Json.createReader(inStream);
-				JsonObject obj = rdr.readObject();
-				throw new OslcException(obj);
-		} else {
-			inStream = con.getInputStream();
+		return e;
+	}
+	
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() when the runtime has it, null otherwise
+	 */
+	
+	static ExecutorService newVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
 		}
-		JsonReader rdr = Json.createReader(inStream);
-		JsonObject obj = rdr.readObject();
-		con.disconnect();
-		return obj;
+	}
+	
+	public JsonObject get(String uri) throws IOException, OslcException {
+		return this.get(uri, null);
+	}
+	
+	public JsonObject get(String uri, Map<String,Object> headers) throws IOException, OslcException {
+		return this.request(HTTP_METHOD_GET, uri, null, headers).toJSON();
+	}
+	
+	/**
+	 * Get, choosing for this call whether it shares the exchange of an identical GET
+	 * in flight instead of the default of {@code Options.coalesce}
+	 * 
+	 * @param uri
+	 * @param headers can be null
+	 * @param coalesce
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	public JsonObject get(String uri, Map<String,Object> headers, boolean coalesce) throws IOException, OslcException {
+		return this.request(HTTP_METHOD_GET, uri, null, headers, coalesce).toJSON();
+	}
+	
+	/**
+	 * Open a collection page for streaming, the members are parsed one at a time
+	 * by the returned reader which must be closed.
+	 * 
+	 * @param uri
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public MemberReader getMembers(String uri) throws IOException, OslcException {
+		return this.getMembers(uri, null);
+	}
+	
+	public MemberReader getMembers(String uri, Map<String,Object> headers) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_GET, headers);
+		return new MemberReader(this.send(req, true), this.getCodec());
 	}
 	
 	/**
@@ -353,51 +812,12 @@ public class MaximoConnector {
 	 * @throws OslcException
 	 */
 	
-	public synchronized JsonArray groupBy(String uri) throws IOException, OslcException {
+	public JsonArray groupBy(String uri) throws IOException, OslcException {
 		return this.groupBy(uri, null);
 	}
 	
-	public synchronized JsonArray groupBy(String uri, Map<String,Object> headers) throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL.openConnection();
-		con = this.setMethod(con, "GET");
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream = null;
-		if (resCode >= 400) {
-				inStream = con.getErrorStream();
-				JsonReader rdr = Json.createReader(inStream);
-				JsonObject obj = rdr.readObject();
-				throw new OslcException(obj);
-		} else {
-			inStream = con.getInputStream();
-		}
-		JsonReader rdr = Json.createReader(inStream);
-		JsonArray arr = rdr.readArray();
-		con.disconnect();
-		return arr;
+	public JsonArray groupBy(String uri, Map<String,Object> headers) throws IOException, OslcException {
+		return this.request(HTTP_METHOD_GET, uri, null, headers).toJSONArray();
 	}
 	
 	/**
@@ -407,60 +827,75 @@ public class MaximoConnector {
 	 * @throws OslcException
 	 */
 
-	public synchronized byte[] getAttachmentData(String uri) throws IOException, OslcException {
+	public byte[] getAttachmentData(String uri) throws IOException, OslcException {
 		return this.getAttachmentData(uri, null);
 	}
 	
-	public synchronized byte[] getAttachmentData(String uri, Map<String,Object> headers) throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
+	public byte[] getAttachmentData(String uri, Map<String,Object> headers) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_GET, headers);
+		TransportResponse res = this.send(req);
+		try {
+			String length = res.getHeader("Content-Length");
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(
+					length != null && length.matches("\\d{1,9}") ? Integer.parseInt(length) : 32);
+			BufferPool.copy(res.getBody(), bos);
+			return bos.toByteArray();
+		} finally {
+			res.close();
 		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
+	}
+	
+	/**
+	 * Stream the attachment data into the output stream without keeping it in memory,
+	 * return the number of bytes written. The output stream is not closed.
+	 * 
+	 * @param uri
+	 * @param headers can be null
+	 * @param out
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public long getAttachmentData(String uri, Map<String,Object> headers, OutputStream out) throws IOException, OslcException {
+		try (InputStream in = this.openAttachmentData(uri, headers)) {
+			return BufferPool.copy(in, out);
 		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
+	}
+	
+	/**
+	 * Open the attachment data as it comes from the connection, the stream must be closed
+	 * to release the connection.
+	 * 
+	 * @param uri
+	 * @param headers can be null
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public InputStream openAttachmentData(String uri, Map<String,Object> headers) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_GET, headers);
+		final TransportResponse res = this.send(req);
+		return new FilterInputStream(res.getBody()) {
+			public void close() throws IOException {
+				res.close();
 			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		//LOG.isLoggable(Level.info);
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-								.openConnection();
-		con = this.setMethod(con, "GET");
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream = null;
-		if (resCode >= 400) {
-				inStream = con.getErrorStream();
-				JsonReader rdr = Json.createReader(inStream);
-				JsonObject obj = rdr.readObject();
-				throw new OslcException(obj);
-		} else {
-			inStream = con.getInputStream();
-		}
-
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		byte[] buffer = new byte[0xFFFF];
-
-		for (int len; (len = inStream.read(buffer)) != -1;)
-			bos.write(buffer, 0, len);
-
-		bos.flush();
-
-		return bos.toByteArray();
+		};
+	}
 
+	/**
+	 * Send a GET of the attachment data with the Range header, a 416 is returned
+	 * rather than thrown
+	 */
+	
+	TransportResponse getRange(String uri, Map<String,Object> headers, String range) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_GET, headers);
+		req.header("Range", range);
+		TransportResponse res = this.transmitInSession(req, false);
+		if (res.getStatusCode() == 416) {
+			lastResponseCode.set(416);
+			return res;
+		}
+		return this.received(res);
 	}
 
 	/**
@@ -478,60 +913,11 @@ public class MaximoConnector {
 	
 	public JsonObject create(String uri,JsonObject jo, Map<String,Object> headers, String... properties)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "POST", properties);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
-		writer.write(jo.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			throw new OslcException(obj);
-		}
-		JsonObject obj;
+		OslcResponse res = this.request(HTTP_METHOD_POST, uri, jo, headers, properties);
 		if(properties.length == 0){
-			String href = con.getHeaderField("Location");
-			if(this.options.isLean()){
-				obj = Json.createObjectBuilder().add("rdf:resource", href).build();
-			}else{
-				obj = Json.createObjectBuilder().add("href", href).build();
-			}
-		}else{
-			inStream = con.getInputStream();
-			JsonReader rdr = Json.createReader(inStream);
-			obj = rdr.readObject();
+			return this.locationObject(res.getLocation());
 		}
-		return obj;
+		return res.toJSON();
 	}
 
 	/**
@@ -552,59 +938,84 @@ public class MaximoConnector {
 	
 	public JsonObject createAttachment(String uri,byte[] data, String name,
 			String description, String meta, Map<String, Object> headers) throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
+		if (data.length == 0) {
+			throw new OslcException("data_is_invalid");
 		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "POST");
-		con.setRequestProperty("slug", name);
-		con.setRequestProperty("x-document-description", description);
-		con.setRequestProperty("x-document-meta", meta);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
+		return this.createAttachment(this.attachmentRequest(uri, name, description, meta, headers).body(data));
+	}
+	
+	/**
+	 * Create new attachment streaming the document, so that it is never held in memory.
+	 * The stream is read to the end but not closed.
+	 * @param data
+	 * @param length the size of the document, -1 if unknown to send it chunked
+	 * @param name
+	 * @param description
+	 * @param meta
+	 * @param headers can be null
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public JsonObject createAttachment(String uri, InputStream data, long length, String name,
+			String description, String meta, Map<String, Object> headers) throws IOException, OslcException {
+		if (length == 0) {
+			throw new OslcException("data_is_invalid");
 		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		DataOutputStream writer = new DataOutputStream(con.getOutputStream());
-		if (data.length == 0) {
+		return this.createAttachment(this.attachmentRequest(uri, name, description, meta, headers).body(data, length));
+	}
+	
+	/**
+	 * Create new attachment from the remaining content of the file channel, which the
+	 * transport sends without copying it through the heap where it can. The channel
+	 * is not closed.
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public JsonObject createAttachment(String uri, FileChannel data, String name,
+			String description, String meta, Map<String, Object> headers) throws IOException, OslcException {
+		if (data.size() - data.position() <= 0) {
 			throw new OslcException("data_is_invalid");
 		}
-		writer.write(data);
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			throw new OslcException(obj);
+		return this.createAttachment(this.attachmentRequest(uri, name, description, meta, headers).body(data));
+	}
+	
+	/**
+	 * Create new attachment from the file
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public JsonObject createAttachment(String uri, Path file, String name,
+			String description, String meta, Map<String, Object> headers) throws IOException, OslcException {
+		try (FileChannel data = FileChannel.open(file, StandardOpenOption.READ)) {
+			return this.createAttachment(uri, data, name, description, meta, headers);
+		}
+	}
+	
+	private TransportRequest attachmentRequest(String uri, String name, String description, String meta,
+			Map<String, Object> headers) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_POST, null);
+		req.header("slug", name);
+		req.header("x-document-description", description);
+		req.header("x-document-meta", meta);
+		if (headers!=null && !headers.isEmpty() ) {
+			req = this.setHeaders(req, headers);
 		}
-		JsonObject obj;
-		String href = con.getHeaderField("Location");
-		if(this.options.isLean()){
-			obj = Json.createObjectBuilder().add("rdf:resource", href).build();
-		}else{
-			obj = Json.createObjectBuilder().add("href", href).build();
+		return req;
+	}
+	
+	private JsonObject createAttachment(TransportRequest req) throws IOException, OslcException {
+		TransportResponse res = this.send(req);
+		try {
+			return this.locationObject(res.getHeader("Location"));
+		} finally {
+			res.close();
 		}
-		return obj;
 	}
 
 	/**
@@ -614,317 +1025,76 @@ public class MaximoConnector {
 	 * @throws OslcException
 	 */
 
-	public synchronized JsonObject update(String uri, JsonObject jo, String... properties)
+	public JsonObject update(String uri, JsonObject jo, String... properties)
 			throws IOException, OslcException {
 		return this.update(uri, jo, null, properties);
 	}
 	
-	public synchronized JsonObject update(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
+	public JsonObject update(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "PATCH",properties);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
 		if (jo.isEmpty()) {
 			throw new OslcException("jo_is_invalid");
 		}
-		writer.write(jo.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			throw new OslcException(obj);
-		}
-		if(resCode == 204){
-			return null;
-		}
-		inStream = con.getInputStream();
-		JsonReader rdr = Json.createReader(inStream);
-		JsonObject obj = rdr.readObject();
-		return obj;
+		return this.request(HTTP_METHOD_PATCH, uri, jo, headers, properties).toJSON();
 	}
 
-	public synchronized JsonObject merge(String uri, JsonObject jo, String... properties)
+	public JsonObject merge(String uri, JsonObject jo, String... properties)
 			throws IOException, OslcException {
 		return this.merge(uri, jo, null, properties);
 	}
 	
-	public synchronized JsonObject merge(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
+	public JsonObject merge(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "MERGE",properties);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
 		if (jo.isEmpty()) {
 			throw new OslcException("jo_is_invalid");
 		}
-		writer.write(jo.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		// String resLine = con.getResponseMessage();
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			obj = (JsonObject) obj.get("Error");
-			throw new OslcException(resCode, obj.get("message").toString());
-		}
-		if(resCode == 204){
-			return null;
-		}
-		inStream = con.getInputStream();
-		JsonReader rdr = Json.createReader(inStream);
-		JsonObject obj = rdr.readObject();
-		return obj;
+		return this.request(HTTP_METHOD_MERGE, uri, jo, headers, properties).toJSON();
 	}
 	
-	public synchronized JsonArray bulk(String uri, JsonArray ja)
+	public JsonArray bulk(String uri, JsonArray ja)
 			throws IOException, OslcException {
 		return this.bulk(uri, ja, null);
 	}
 	
-	public synchronized JsonArray bulk(String uri, JsonArray ja, Map<String,Object> headers)
+	public JsonArray bulk(String uri, JsonArray ja, Map<String,Object> headers)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "BULK");
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
 		if (ja.isEmpty()) {
 			throw new OslcException("jo_is_invalid");
 		}
-		writer.write(ja.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		// String resLine = con.getResponseMessage();
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			obj = (JsonObject) obj.get("Error");
-			throw new OslcException(resCode, obj.get("message").toString());
-		}
-		if(resCode == 204){
-			return null;
-		}
-		inStream = con.getInputStream();
-		JsonReader rdr = Json.createReader(inStream);
-		JsonArray arr = rdr.readArray();
-		return arr;
+		return this.request(HTTP_METHOD_BULK, uri, ja, headers).toJSONArray();
 	}
 	
-	public synchronized JsonObject sync(String uri, JsonObject jo, String... properties)
+	public JsonObject sync(String uri, JsonObject jo, String... properties)
 			throws IOException, OslcException {
 		return this.sync(uri, jo, null, properties);
 	}
 	
-	public synchronized JsonObject sync(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
+	public JsonObject sync(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "SYNC",properties);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
 		if (jo.isEmpty()) {
 			throw new OslcException("jo_is_invalid");
 		}
-		writer.write(jo.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		// String resLine = con.getResponseMessage();
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			obj = (JsonObject) obj.get("Error");
-			throw new OslcException(resCode, obj.get("message").toString());
-		}
-		if(resCode == 204){
+		OslcResponse res = this.request(HTTP_METHOD_SYNC, uri, jo, headers, properties);
+		if(res.getStatusCode() == 204){
 			return null;
 		}
-		JsonObject obj;
 		if(properties.length == 0){
-			String href = con.getHeaderField("Location");
-			if(this.options.isLean()){
-				obj = Json.createObjectBuilder().add("rdf:resource", href).build();
-			}else{
-				obj = Json.createObjectBuilder().add("href", href).build();
-			}
-		}else{
-			inStream = con.getInputStream();
-			JsonReader rdr = Json.createReader(inStream);
-			obj = rdr.readObject();
+			return this.locationObject(res.getLocation());
 		}
-		return obj;
+		return res.toJSON();
 	}
 	
-	public synchronized JsonObject mergeSync(String uri, JsonObject jo, String... properties)
+	public JsonObject mergeSync(String uri, JsonObject jo, String... properties)
 			throws IOException, OslcException {
 		return this.mergeSync(uri, jo, null, properties);
 	}
 	
-	public synchronized JsonObject mergeSync(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
+	public JsonObject mergeSync(String uri, JsonObject jo, Map<String,Object> headers, String... properties)
 			throws IOException, OslcException {
-		if(!isValid()){
-			throw new OslcException("The instance of MaximoConnector is not valid.");
-		}
-		String publicHost = this.options.getHost();
-		if(this.options.getPort()!=-1){
-			publicHost+= ":" + String.valueOf(this.options.getPort());
-		}
-		if(!uri.contains(publicHost)){
-			URL tempURL = new URL(uri);
-			String currentHost = tempURL.getHost();
-			if(tempURL.getPort()!=-1){
-				currentHost+= ":" + String.valueOf(tempURL.getPort());
-			}
-			uri = uri.replace(currentHost, publicHost);
-		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "MERGESYNC",properties);
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
-		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				con.getOutputStream());
 		if (jo.isEmpty()) {
 			throw new OslcException("jo_is_invalid");
 		}
-		writer.write(jo.toString());
-		writer.flush();
-		writer.close();
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
-		// String resLine = con.getResponseMessage();
-		InputStream inStream;
-		if (resCode >= 400) {
-			inStream = con.getErrorStream();
-			JsonReader rdr = Json.createReader(inStream);
-			JsonObject obj = rdr.readObject();
-			obj = (JsonObject) obj.get("Error");
-			throw new OslcException(resCode, obj.get("message").toString());
-		}
-		if(resCode == 204){
-			return null;
-		}
-		inStream = con.getInputStream();
-		JsonReader rdr = Json.createReader(inStream);
-		JsonObject obj = rdr.readObject();
-		return obj;
+		return this.request(HTTP_METHOD_MERGESYNC, uri, jo, headers, properties).toJSON();
 	}
 	
 	/**
@@ -938,9 +1108,46 @@ public class MaximoConnector {
 	}
 	
 	public void delete(String uri, Map<String, Object> headers) throws IOException, OslcException {
+		TransportRequest req = this.newRequest(uri, HTTP_METHOD_DELETE, headers);
+		this.send(req).close();
+		this.written(HTTP_METHOD_DELETE, req.getURI());
+	}
+
+	
+	public void deleteResource(String uri) throws IOException, OslcException{
+		logger.fine("Delete the resource by MaximoConnector");
+		this.delete(uri);	
+	}
+	
+	public void deleteAttachment(String uri) throws IOException, OslcException{
+		logger.fine("Delete the attachment by MaximoConnector");
+		this.delete(uri);	
+	}
+	
+	/**
+	 * Build the request for the verb: the uri is moved to the configured public host,
+	 * the method headers and the additional headers are set.
+	 */
+	
+	private TransportRequest newRequest(String uri, String method, Map<String,Object> headers, String... properties)
+			throws IOException, OslcException {
 		if(!isValid()){
 			throw new OslcException("The instance of MaximoConnector is not valid.");
 		}
+		uri = this.publicURI(uri);
+		logger.fine(uri);
+		TransportRequest req = this.setMethod(new TransportRequest(method, uri), method, properties);
+		if (headers!=null && !headers.isEmpty() ) {
+			req = this.setHeaders(req, headers);
+		}
+		return req;
+	}
+	
+	/**
+	 * The uri moved to the configured public host
+	 */
+	
+	String publicURI(String uri) throws IOException {
 		String publicHost = this.options.getHost();
 		if(this.options.getPort()!=-1){
 			publicHost+= ":" + String.valueOf(this.options.getPort());
@@ -953,36 +1160,286 @@ public class MaximoConnector {
 			}
 			uri = uri.replace(currentHost, publicHost);
 		}
-		logger.fine(uri);
-		URL httpURL = new URL(uri);
-		HttpURLConnection con = (HttpURLConnection) httpURL
-				.openConnection();
-		con = this.setMethod(con, "DELETE");
-		if (headers!=null && !headers.isEmpty() ) {
-			con = this.setHeaders(con, headers);
+		return uri;
+	}
+	
+	/**
+	 * Send the request within the session, the error body is turned into an {@code OslcException}
+	 */
+	
+	private TransportResponse send(TransportRequest req) throws IOException, OslcException {
+		return this.send(req, false);
+	}
+	
+	/**
+	 * @param json whether a JSON response is expected, an HTML page is then the login page
+	 * of an expired session
+	 */
+	
+	private TransportResponse send(TransportRequest req, boolean json) throws IOException, OslcException {
+		return this.received(this.transmitInSession(req, json));
+	}
+	
+	/**
+	 * Hand the request to the transport with the session cookies. When the session has
+	 * expired, log in again and send the request once more if it is replayable.
+	 */
+	
+	private TransportResponse transmitInSession(TransportRequest req, boolean json) throws IOException, OslcException {
+		int session = this.session;
+		this.setCookiesForSession(req);
+		TransportResponse res = this.transmit(req);
+		if(this.expired(res, json)){
+			this.renew(session, req, res);
+			this.setCookiesForSession(req);
+			res = this.transmit(req);
+		}
+		return res;
+	}
+	
+	/**
+	 * Whether the response tells that the session has expired: a 401, or the login page
+	 * the server redirected to instead of the JSON response
+	 */
+	
+	private boolean expired(TransportResponse res, boolean json) {
+		if(!this.options.isRelogin()){
+			return false;
+		}
+		if(res.getStatusCode() == 401){
+			return true;
+		}
+		String type = res.getHeader("Content-Type");
+		return json && res.getStatusCode() == 200 && type != null && type.toLowerCase().startsWith("text/html");
+	}
+	
+	/**
+	 * Close the response of the expired session and log in again, throw when the
+	 * request must not be sent a second time
+	 */
+	
+	private void renew(int session, TransportRequest req, TransportResponse res) throws IOException, OslcException {
+		res.close();
+		this.relogin(session);
+		if(!this.replayable(req)){
+			throw new OslcException(401, "Session expired, the request was not sent again.");
+		}
+	}
+	
+	/**
+	 * Whether the request can be sent again on a new session. GET, DELETE, PATCH, MERGE
+	 * and SYNC are idempotent. A create, an action or a bulk request is only with a
+	 * transactionid header, which the server uses to drop the duplicate. A streamed body
+	 * has been read already.
+	 */
+	
+	private boolean replayable(TransportRequest req) {
+		if(req.getBodyStream() != null || req.getBodyChannel() != null){
+			return false;
+		}
+		String override = req.getHeader("x-method-override");
+		if(HTTP_METHOD_POST.equals(req.getMethod()) && (override == null || HTTP_METHOD_BULK.equals(override))){
+			return req.getHeader("transactionid") != null;
+		}
+		return true;
+	}
+	
+	/**
+	 * Hand the request to the transport, measured when metrics are configured or the
+	 * Flight Recorder event is enabled
+	 */
+	
+	private TransportResponse transmit(TransportRequest req) throws IOException {
+		Metrics metrics = this.options.getMetrics();
+		if (metrics == null && !OslcRequestEvent.enabled()) {
+			return this.getTransport().send(req);
+		}
+		OslcRequestEvent event = new OslcRequestEvent();
+		event.begin();
+		long start = System.nanoTime();
+		TransportResponse res;
+		try {
+			res = this.getTransport().send(req);
+		} catch (IOException | RuntimeException e) {
+			MeteredResponse.failed(metrics, event, req, start);
+			throw e;
+		}
+		return new MeteredResponse(metrics, event, req, start, res);
+	}
+	
+	private CompletableFuture<TransportResponse> transmitAsync(final TransportRequest req) {
+		final Metrics metrics = this.options.getMetrics();
+		if (metrics == null && !OslcRequestEvent.enabled()) {
+			return this.getTransport().sendAsync(req, this.executor());
+		}
+		final OslcRequestEvent event = new OslcRequestEvent();
+		event.begin();
+		final long start = System.nanoTime();
+		return this.getTransport().sendAsync(req, this.executor()).handle((res, e) -> {
+			if (e != null) {
+				MeteredResponse.failed(metrics, event, req, start);
+				throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+			}
+			return new MeteredResponse(metrics, event, req, start, res);
+		});
+	}
+	
+	/**
+	 * Track the status and the session cookies of a response
+	 */
+	
+	private TransportResponse received(TransportResponse res) throws IOException, OslcException {
+		int resCode = res.getStatusCode();
+		lastResponseCode.set(resCode);
+		List<String> setCookies = res.getHeaders("Set-Cookie");
+		if (!setCookies.isEmpty()) {
+			this.cookies.update(setCookies);
 		}
-		if (cookies == null)
-			this.connect();
-		this.setCookiesForSession(con);
-		int resCode = con.getResponseCode();
-		lastResponseCode = resCode;
 		if (resCode >= 400) {
-				InputStream inStream = con.getErrorStream();
-				JsonReader rdr = Json.createReader(inStream);
-				JsonObject obj = rdr.readObject();
-				throw new OslcException(obj);
+			try {
+				throw this.error(res);
+			} finally {
+				res.close();
+			}
 		}
+		return res;
 	}
-
 	
-	public void deleteResource(String uri) throws IOException, OslcException{
-		logger.fine("Delete the resource by MaximoConnector");
-		this.delete(uri);	
+	/**
+	 * Invalidate the cached resources changed by a write, creates do not change
+	 * what is cached
+	 */
+	private void written(String method, String uri) {
+		ResourceCache cache = this.getResourceCache();
+		if(cache != null && !HTTP_METHOD_GET.equals(method) && !HTTP_METHOD_POST.equals(method)){
+			cache.invalidate(uri);
+		}
 	}
 	
-	public void deleteAttachment(String uri) throws IOException, OslcException{
-		logger.fine("Delete the attachment by MaximoConnector");
-		this.delete(uri);	
+	/**
+	 * Make a GET conditional when its response is cached, return the cache key of
+	 * the request or null when the response is not to be cached
+	 */
+	private String conditional(String method, TransportRequest req) {
+		ConditionalCache cache = this.getConditionalCache();
+		if(cache == null || !HTTP_METHOD_GET.equals(method)){
+			return null;
+		}
+		// the headers are part of the key, they select the representation
+		String key = req.getURI() + " " + req.getHeaders();
+		ConditionalCache.Entry entry = cache.get(key);
+		if(entry != null){
+			if(entry.etag != null){
+				req.header("If-None-Match", entry.etag);
+			}
+			if(entry.lastModified != null){
+				req.header("If-Modified-Since", entry.lastModified);
+			}
+		}
+		return key;
+	}
+	
+	/**
+	 * Drop the validators added by {@code conditional}
+	 */
+	private static void unconditional(TransportRequest req) {
+		req.header("If-None-Match", null).header("If-Modified-Since", null);
+	}
+	
+	private OslcResponse toResponse(String method, TransportRequest req, TransportResponse res) throws IOException {
+		return this.toResponse(method, req, res, null);
+	}
+	
+	/**
+	 * The response of a request, null for a 304 to a conditional request whose cached
+	 * response is gone, which has to be sent again without validators
+	 */
+	private OslcResponse toResponse(String method, TransportRequest req, TransportResponse res, String cacheKey) throws IOException {
+		try {
+			ConditionalCache cache = cacheKey != null ? this.getConditionalCache() : null;
+			if(cache != null && res.getStatusCode() == 304){
+				ConditionalCache.Entry entry = cache.get(cacheKey);
+				if(entry != null){
+					return new OslcResponse(method, req.getURI(), 304, res.getHeaderFields(), entry.json);
+				}
+				if(req.getHeader("If-None-Match") != null || req.getHeader("If-Modified-Since") != null){
+					return null;
+				}
+			}
+			JsonStructure json = null;
+			if(res.getStatusCode() != 204){
+				OslcParseEvent parse = OslcParseEvent.enabled() ? new OslcParseEvent() : null;
+				CountingInputStream in = cache != null || parse != null ? new CountingInputStream(res.getBody()) : null;
+				if(parse != null){
+					parse.begin();
+				}
+				long parseStart = System.nanoTime();
+				json = this.readStructure(in != null ? in : res.getBody());
+				long parseTime = System.nanoTime() - parseStart;
+				if(parse != null){
+					parse.end();
+					if(parse.shouldCommit()){
+						parse.uriTemplate = OslcRequestEvent.template(req.getURI());
+						parse.bytes = in.getCount();
+						parse.commit();
+					}
+				}
+				if(res instanceof MeteredResponse){
+					((MeteredResponse) res).parsed(parseTime);
+				}
+				if(cache != null){
+					String etag = res.getHeader("ETag");
+					String lastModified = res.getHeader("Last-Modified");
+					if(res.getStatusCode() == 200 && json != null && (etag != null || lastModified != null)){
+						cache.put(cacheKey, new ConditionalCache.Entry(etag, lastModified, json, in.getCount()));
+					}else{
+						cache.remove(cacheKey);
+					}
+				}
+			}
+			return new OslcResponse(method, req.getURI(), res.getStatusCode(), res.getHeaderFields(), json);
+		} finally {
+			res.close();
+		}
+	}
+	
+	/**
+	 * The exception of an error response, a body that is not an OSLC error (the HTML
+	 * page of a gateway) is kept as the message
+	 */
+	private OslcException error(TransportResponse res) throws IOException {
+		InputStream in = res.getBody();
+		byte[] body = in != null ? in.readAllBytes() : new byte[0];
+		try {
+			JsonReader rdr = this.getCodec().createReader(new ByteArrayInputStream(body));
+			return new OslcException(res.getStatusCode(), rdr.readObject());
+		} catch (JsonException | ClassCastException | NullPointerException e) {
+			return new OslcException(res.getStatusCode(), new String(body, "UTF-8"));
+		}
+	}
+	
+	/**
+	 * Read the body as JsonObject or JsonArray, null when the body is empty
+	 */
+	private JsonStructure readStructure(InputStream body) throws IOException {
+		PushbackInputStream in = new PushbackInputStream(body, 1);
+		int b;
+		do {
+			b = in.read();
+		} while (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+		if (b == -1) {
+			return null;
+		}
+		in.unread(b);
+		JsonReader rdr = this.getCodec().createReader(in);
+		return rdr.read();
+	}
+	
+	private JsonObject locationObject(String href) {
+		if(this.options.isLean()){
+			return this.getCodec().createObjectBuilder().add("rdf:resource", href).build();
+		}
+		return this.getCodec().createObjectBuilder().add("href", href).build();
 	}
 	
 	
@@ -993,145 +1450,112 @@ public class MaximoConnector {
 				+ ":" + password).getBytes("UTF-8")));
 	}
 
-	protected HttpURLConnection setAuth(String uri) throws IOException {
+	protected TransportRequest setAuth(String uri) throws IOException {
 		return this.setAuth(uri, null);
 	}
 	
-	protected HttpURLConnection setAuth(String uri, Proxy proxy) throws IOException {
+	protected TransportRequest setAuth(String uri, Proxy proxy) throws IOException {
 		if (this.options.getUser() != null
 				&& this.options.getPassword() != null) {
 			if (options.isBasicAuth()) {
-				URL httpURL = new URL(uri);
-				HttpURLConnection con = null;
-				if(proxy != null){
-					con = (HttpURLConnection) httpURL.openConnection(proxy);
-				}else{
-					con = (HttpURLConnection) httpURL.openConnection();
-				}
+				TransportRequest req = new TransportRequest(HTTP_METHOD_GET, uri).proxy(proxy);
 				String encodedUserPwd = encode(this.options.getUser(),
 						this.options.getPassword());
-				con.setRequestProperty("Authorization", "Basic "
+				req.header("Authorization", "Basic "
 						+ encodedUserPwd);
-				return con;
+				return req;
 			} else if (options.isMaxAuth()) {
-				URL httpURL = new URL(uri);
-
-				HttpURLConnection con = null;
-				if(proxy != null){
-					con = (HttpURLConnection) httpURL.openConnection(proxy);
-				}else{
-					con = (HttpURLConnection) httpURL.openConnection();
-				}
-
+				TransportRequest req = new TransportRequest(HTTP_METHOD_GET, uri).proxy(proxy);
 				String encodedUserPwd = encode(this.options.getUser(),
 						this.options.getPassword());
-				con.setRequestProperty("maxauth", encodedUserPwd);
-				return con;
+				req.header("maxauth", encodedUserPwd);
+				return req;
 			} else if (options.isFormAuth()) {
 				String appURI = uri;
 				appURI += "/j_security_check";
-				URL httpURL = new URL(appURI);
-				HttpURLConnection con = null;
-				if(proxy != null){
-					con = (HttpURLConnection) httpURL.openConnection(proxy);
-				}else{
-					con = (HttpURLConnection) httpURL.openConnection();
-				}
-				con.setInstanceFollowRedirects(false);
-				con.setRequestMethod("POST");
-				con.setRequestProperty("Accept",
+				TransportRequest req = new TransportRequest(HTTP_METHOD_POST, appURI).proxy(proxy);
+				req.followRedirects(false);
+				req.header("Accept",
 						"text/html,application/xhtml+xml,application/xml");
-				con.setRequestProperty("Content-Type",
+				req.header("Content-Type",
 						"application/x-www-form-urlencoded");
-				con.setRequestProperty("Connection", "keep-alive");
-				con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-				con.setDoOutput(true);
+				req.header("Connection", "keep-alive");
+				req.header("x-public-uri", this.options.getPublicURI());
 				StringBuilder content = new StringBuilder();
 				content.append("j_username=").append(this.options.getUser());
 				content.append("&j_password=").append(
 						this.options.getPassword());
-				OutputStream outputStream = con.getOutputStream();
-				outputStream.write(content.toString().getBytes());
-				outputStream.close();
-				return con;
+				req.body(content.toString().getBytes());
+				return req;
 			}
 		}
 		return null;
 	}
 	
-	protected HttpURLConnection setHeaders(HttpURLConnection con, Map<String, Object> headers)
+	protected TransportRequest setHeaders(TransportRequest req, Map<String, Object> headers)
 			throws IOException, OslcException {
 		Set<Map.Entry<String, Object>> set = headers.entrySet();
 		for (Map.Entry<String, Object> entry : set) {
-			con.setRequestProperty(entry.getKey(), entry.getValue().toString());
+			req.header(entry.getKey(), entry.getValue().toString());
 		}		
-		return con;
-}
+		return req;
+	}
 
-	protected HttpURLConnection setMethod(HttpURLConnection con, String method, String... properties)
+	protected TransportRequest setMethod(TransportRequest req, String method, String... properties)
 			throws IOException, OslcException {
-		this.httpMethod = method;		
-		if (this.isGET()) {
-			con.setRequestMethod(HTTP_METHOD_GET);
-			con.setRequestProperty("accept", "application/json");
-			con.setUseCaches(false);
-			con.setAllowUserInteraction(false);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-		} else if (this.isPOST()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-		} else if (this.isPATCH()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-			con.setRequestProperty("x-method-override", HTTP_METHOD_PATCH);
-		} else if (this.isMERGE()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-			con.setRequestProperty("x-method-override", HTTP_METHOD_PATCH);
-			con.setRequestProperty("patchtype",HTTP_METHOD_MERGE);
-		} else if (this.isBULK()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-			con.setRequestProperty("x-method-override", HTTP_METHOD_BULK);
-		} else if (this.isSYNC()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-			con.setRequestProperty("x-method-override", HTTP_METHOD_SYNC);
-		} else if (this.isMERGESYNC()) {
-			con.setRequestMethod(HTTP_METHOD_POST);
-			con.setRequestProperty("Content-Type", "application/json");
-			con.setDoOutput(true);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
-			con.setRequestProperty("x-method-override", HTTP_METHOD_SYNC);
-			con.setRequestProperty("patchtype",HTTP_METHOD_MERGE);
-		} else if (this.isDELETE()) {
-			con.setRequestMethod(HTTP_METHOD_DELETE);
-			con.setRequestProperty("accept", "application/json");
-			con.setUseCaches(false);
-			con.setAllowUserInteraction(false);
-			con.setRequestProperty("x-public-uri", this.options.getPublicURI());
+		if (HTTP_METHOD_GET.equals(method)) {
+			req.method(HTTP_METHOD_GET);
+			req.header("accept", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+		} else if (HTTP_METHOD_POST.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+		} else if (HTTP_METHOD_PATCH.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+			req.header("x-method-override", HTTP_METHOD_PATCH);
+		} else if (HTTP_METHOD_MERGE.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+			req.header("x-method-override", HTTP_METHOD_PATCH);
+			req.header("patchtype",HTTP_METHOD_MERGE);
+		} else if (HTTP_METHOD_BULK.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+			req.header("x-method-override", HTTP_METHOD_BULK);
+		} else if (HTTP_METHOD_SYNC.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+			req.header("x-method-override", HTTP_METHOD_SYNC);
+		} else if (HTTP_METHOD_MERGESYNC.equals(method)) {
+			req.method(HTTP_METHOD_POST);
+			req.header("Content-Type", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
+			req.header("x-method-override", HTTP_METHOD_SYNC);
+			req.header("patchtype",HTTP_METHOD_MERGE);
+		} else if (HTTP_METHOD_DELETE.equals(method)) {
+			req.method(HTTP_METHOD_DELETE);
+			req.header("accept", "application/json");
+			req.header("x-public-uri", this.options.getPublicURI());
 		}
 		
-		for (String property : properties) {
-			con.setRequestProperty("Properties", property);
+		if (properties != null && properties.length > 0) {
+			// one header listing every property, repeating the header kept only the last one
+			req.header("Properties", String.join(",", properties));
 		}
 		
-		return con;
+		return req;
 	}
 
-	private void setCookiesForSession(HttpURLConnection con) {
-		for (String cookie : cookies) {
-			con.setRequestProperty("Cookie", cookie.split(";", 1)[0]);
+	private void setCookiesForSession(TransportRequest req) {
+		String cookie = this.cookies.header();
+		if (cookie != null) {
+			req.header("Cookie", cookie);
 		}
 	}
 	
@@ -1188,10 +1612,13 @@ public class MaximoConnector {
 //		return this.userInfo;
 //	}
 	/**
-	 * Get the last response code
+	 * Get the last response code seen by the calling thread
+	 * @deprecated use the {@code OslcResponse} returned by {@code request}
 	 */
+	@Deprecated
 	public int getLastResponseCode() {
-		return lastResponseCode;
+		Integer code = lastResponseCode.get();
+		return code == null ? 0 : code;
 	}
 	
 	/**
@@ -1205,17 +1632,25 @@ public class MaximoConnector {
 			logout += "?&_tenantcode=" + this.getOptions().getTenantCode();
 		}
 		logger.fine(logout);
-		URL httpURL = new URL(logout);
-
-		// long t1 = System.currentTimeMillis();
-		HttpURLConnection con = (HttpURLConnection) httpURL.openConnection();
-		con.setRequestMethod("GET");
-		this.setCookiesForSession(con);
+		TransportRequest req = new TransportRequest(HTTP_METHOD_GET, logout);
+		this.setCookiesForSession(req);
 		
-		lastResponseCode = con.getResponseCode();
-		if (lastResponseCode == 401) {
+		TransportResponse res = this.transmit(req);
+		int resCode = res.getStatusCode();
+		lastResponseCode.set(resCode);
+		res.close();
+		if (resCode == 401) {
 			logger.fine("Logout");
 		}
 		this.valid = false;
+		this.cookies.clear();
+		ConditionalCache cache = this.conditionalCache;
+		if(cache != null){
+			cache.clear();
+		}
+		ResourceCache resources = this.resourceCache;
+		if(resources != null){
+			resources.clear();
+		}
 	}
 }
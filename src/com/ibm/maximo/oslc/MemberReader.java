@@ -0,0 +1,225 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.stream.JsonParser;
+
+/**
+ *
+ * {@code MemberReader} reads the members of a collection page one at a time while the
+ * response is still coming in. Only the member being read is kept in memory, so the
+ * footprint of a page does not grow with its page size.
+ *
+ * <p>The other properties of the page, such as {@code responseInfo} with the paging links,
+ * are collected as they are passed. They are complete once {@code read} has returned null.</p>
+ *
+ * <pre>
+ * <code>
+ * MemberReader reader = rs.pageReader();
+ * try {
+ *     for (JsonObject member; (member = reader.read()) != null;) {
+ *         ...
+ *     }
+ *     String next = reader.getNextPageURI();
+ * } finally {
+ *     reader.close();
+ * }
+ * </code>
+ * </pre>
+ *
+ */
+public class MemberReader implements Closeable {
+
+	private final TransportResponse response;
+	private final JsonParser parser;
+	private final JsonCodec codec;
+	private final JsonObjectBuilder page;
+	private JsonObject pageObject;
+	private boolean inMembers = false;
+	private boolean started = false;
+	private int count = 0;
+
+	MemberReader(TransportResponse response, JsonCodec codec) {
+		this.response = response;
+		this.codec = codec;
+		this.parser = codec.createParser(response.getBody());
+		this.page = codec.createObjectBuilder();
+	}
+
+	/**
+	 * Read the next member, null when the members of the page are exhausted
+	 *
+	 * @throws IOException
+	 */
+	public JsonObject read() throws IOException {
+		if (this.pageObject != null) {
+			return null;
+		}
+		try {
+			if (!this.started) {
+				if (!this.parser.hasNext() || this.parser.next() != JsonParser.Event.START_OBJECT) {
+					throw new IOException("The response is not a JSON object");
+				}
+				this.started = true;
+			}
+			if (this.inMembers) {
+				JsonParser.Event event = this.parser.next();
+				if (event == JsonParser.Event.START_OBJECT) {
+					this.count++;
+					return readObject(this.codec, this.parser);
+				}
+				// END_ARRAY, the rest of the page follows the members
+				this.inMembers = false;
+			}
+			while (this.parser.hasNext()) {
+				JsonParser.Event event = this.parser.next();
+				if (event == JsonParser.Event.END_OBJECT) {
+					break;
+				}
+				String name = this.parser.getString();
+				if (name.equals("member") || name.equals("rdfs:member")) {
+					if (this.parser.next() != JsonParser.Event.START_ARRAY) {
+						throw new IOException("The member property is not an array");
+					}
+					this.inMembers = true;
+					return this.read();
+				}
+				add(this.codec, this.page, name, this.parser, this.parser.next());
+			}
+			this.pageObject = this.page.build();
+			return null;
+		} catch (javax.json.JsonException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Get the number of members read so far
+	 */
+	public int getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Get the page without its members, the members that were not read yet are skipped
+	 *
+	 * @throws IOException
+	 */
+	public JsonObject getPage() throws IOException {
+		while (this.read() != null) {
+			// skip the remaining members
+		}
+		return this.pageObject;
+	}
+
+	/**
+	 * Get the responseInfo of the page, null if the page has none
+	 *
+	 * @throws IOException
+	 */
+	public JsonObject getResponseInfo() throws IOException {
+		JsonObject jo = this.getPage();
+		if (jo.containsKey("responseInfo")) {
+			return jo.getJsonObject("responseInfo");
+		} else if (jo.containsKey("oslc:responseInfo")) {
+			return jo.getJsonObject("oslc:responseInfo");
+		}
+		return null;
+	}
+
+	/**
+	 * Get the uri of the next page, null on the last page
+	 *
+	 * @throws IOException
+	 */
+	public String getNextPageURI() throws IOException {
+		return ResourceSet.nextPageURI(this.getPage());
+	}
+
+	public void close() throws IOException {
+		try {
+			this.parser.close();
+		} catch (javax.json.JsonException e) {
+			// the response is closed below
+		} finally {
+			this.response.close();
+		}
+	}
+
+	static JsonObject readObject(JsonCodec codec, JsonParser parser) {
+		JsonObjectBuilder builder = codec.createObjectBuilder();
+		while (parser.next() != JsonParser.Event.END_OBJECT) {
+			add(codec, builder, parser.getString(), parser, parser.next());
+		}
+		return builder.build();
+	}
+
+	static JsonArray readArray(JsonCodec codec, JsonParser parser) {
+		JsonArrayBuilder builder = codec.createArrayBuilder();
+		for (JsonParser.Event event; (event = parser.next()) != JsonParser.Event.END_ARRAY;) {
+			switch (event) {
+			case START_OBJECT:
+				builder.add(readObject(codec, parser));
+				break;
+			case START_ARRAY:
+				builder.add(readArray(codec, parser));
+				break;
+			case VALUE_STRING:
+				builder.add(parser.getString());
+				break;
+			case VALUE_NUMBER:
+				builder.add(parser.getBigDecimal());
+				break;
+			case VALUE_TRUE:
+				builder.add(true);
+				break;
+			case VALUE_FALSE:
+				builder.add(false);
+				break;
+			default:
+				builder.addNull();
+			}
+		}
+		return builder.build();
+	}
+
+	static void add(JsonCodec codec, JsonObjectBuilder builder, String name, JsonParser parser, JsonParser.Event event) {
+		switch (event) {
+		case START_OBJECT:
+			builder.add(name, readObject(codec, parser));
+			break;
+		case START_ARRAY:
+			builder.add(name, readArray(codec, parser));
+			break;
+		case VALUE_STRING:
+			builder.add(name, parser.getString());
+			break;
+		case VALUE_NUMBER:
+			builder.add(name, parser.getBigDecimal());
+			break;
+		case VALUE_TRUE:
+			builder.add(name, true);
+			break;
+		case VALUE_FALSE:
+			builder.add(name, false);
+			break;
+		default:
+			builder.addNull(name);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+
+/**
+ * A response that counts the bytes read from its body, it records its
+ * {@code RequestSample} and commits its {@code OslcRequestEvent} when it is closed
+ */
+class MeteredResponse extends TransportResponse {
+
+	private final Metrics metrics;
+	private final OslcRequestEvent event;
+	private final TransportRequest req;
+	private final long start;
+	private final long timeToFirstByte;
+	private long parseTime = 0;
+	private boolean recorded = false;
+
+	/**
+	 * @param metrics null if only the event is enabled
+	 * @param event begun when the request was sent
+	 */
+	MeteredResponse(Metrics metrics, OslcRequestEvent event, TransportRequest req, long start,
+			TransportResponse res) {
+		super(res.getStatusCode(), res.getHeaderFields(), new CountingInputStream(res.getBody()));
+		this.metrics = metrics;
+		this.event = event;
+		this.req = req;
+		this.start = start;
+		this.timeToFirstByte = System.nanoTime() - start;
+	}
+
+	/**
+	 * Add the time spent parsing the body
+	 */
+	void parsed(long nanos) {
+		this.parseTime += nanos;
+	}
+
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			if (!this.recorded) {
+				this.recorded = true;
+				long bytes = ((CountingInputStream) this.getBody()).getCount();
+				record(this.metrics, this.event, this.req, this.getStatusCode(), this.timeToFirstByte,
+						System.nanoTime() - this.start, bytes, this.parseTime);
+			}
+		}
+	}
+
+	/**
+	 * Record a request that failed without response
+	 */
+	static void failed(Metrics metrics, OslcRequestEvent event, TransportRequest req, long start) {
+		long latency = System.nanoTime() - start;
+		record(metrics, event, req, 0, latency, latency, 0, 0);
+	}
+
+	private static void record(Metrics metrics, OslcRequestEvent event, TransportRequest req, int statusCode,
+			long timeToFirstByte, long latency, long bytesReceived, long parseTime) {
+		long bytesSent = req.hasBody() ? req.getBodyLength() : 0;
+		String method = RequestSample.method(req);
+		String objectStructure = RequestSample.objectStructure(req.getURI());
+		if (metrics != null) {
+			metrics.record(new RequestSample(method, objectStructure, statusCode, timeToFirstByte, latency,
+					bytesSent, bytesReceived, parseTime));
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.method = method;
+			event.uriTemplate = OslcRequestEvent.template(req.getURI());
+			event.objectStructure = objectStructure;
+			event.statusCode = statusCode;
+			event.timeToFirstByte = timeToFirstByte;
+			event.parseTime = parseTime;
+			event.bytesSent = bytesSent;
+			event.bytesReceived = bytesReceived;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,36 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+/**
+ *
+ * {@code Metrics} receives a {@code RequestSample} for every request sent by
+ * {@code MaximoConnector}, once its response is closed. It is called on the threads
+ * running the requests, so it has to be thread safe and cheap.
+ *
+ * <p>{@code MetricsRegistry} is the built-in lock-free implementation, other
+ * monitoring systems can be plugged in through {@code Options}</p>
+ * <pre>
+ * <code>
+ * MetricsRegistry registry = new MetricsRegistry();
+ * MaximoConnector mc = new MaximoConnector(new Options().metrics(registry)...);
+ * Histogram latency = registry.get("GET", "mxasset").getLatency();
+ * </code>
+ * </pre>
+ *
+ */
+public interface Metrics {
+
+	/**
+	 * @param sample
+	 */
+	void record(RequestSample sample);
+}
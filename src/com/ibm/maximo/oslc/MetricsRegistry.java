@@ -0,0 +1,149 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * {@code MetricsRegistry} is the built-in {@code Metrics}, it keeps counters and
+ * histograms per verb and object structure without taking any lock, so that recording
+ * does not slow down concurrent requests.
+ *
+ * <pre>
+ * <code>
+ * for (Map.Entry&lt;String, MetricsRegistry.RequestStats&gt; e : registry.getStats().entrySet()) {
+ *     System.out.println(e.getKey() + " " + e.getValue());
+ * }
+ * </code>
+ * </pre>
+ *
+ */
+public class MetricsRegistry implements Metrics {
+
+	private final ConcurrentHashMap<String, RequestStats> stats = new ConcurrentHashMap<String, RequestStats>();
+
+	public void record(RequestSample sample) {
+		String key = key(sample.getMethod(), sample.getObjectStructure());
+		RequestStats s = this.stats.get(key);
+		if (s == null) {
+			s = this.stats.computeIfAbsent(key, k -> new RequestStats());
+		}
+		s.record(sample);
+	}
+
+	/**
+	 * The statistics of the verb on the object structure, null if there was no such request
+	 *
+	 * @param method
+	 * @param objectStructure
+	 */
+	public RequestStats get(String method, String objectStructure) {
+		return this.stats.get(key(method, objectStructure));
+	}
+
+	/**
+	 * All the statistics by "verb object structure", sorted
+	 */
+	public Map<String, RequestStats> getStats() {
+		return Collections.unmodifiableMap(new TreeMap<String, RequestStats>(this.stats));
+	}
+
+	public void clear() {
+		this.stats.clear();
+	}
+
+	private static String key(String method, String objectStructure) {
+		return method + " " + objectStructure;
+	}
+
+	/**
+	 * Counters and histograms of one verb on one object structure, times in nanoseconds
+	 */
+	public static class RequestStats {
+
+		// 1xx to 5xx by their first digit, 0 for failures without response
+		private final LongAdder[] statuses = new LongAdder[6];
+		private final Histogram timeToFirstByte = new Histogram();
+		private final Histogram latency = new Histogram();
+		private final Histogram parseTime = new Histogram();
+		private final Histogram bytesSent = new Histogram();
+		private final Histogram bytesReceived = new Histogram();
+
+		RequestStats() {
+			for (int i = 0; i < this.statuses.length; i++) {
+				this.statuses[i] = new LongAdder();
+			}
+		}
+
+		void record(RequestSample sample) {
+			int status = sample.getStatusCode() / 100;
+			this.statuses[status >= 0 && status < this.statuses.length ? status : 0].increment();
+			this.timeToFirstByte.record(sample.getTimeToFirstByte());
+			this.latency.record(sample.getLatency());
+			if (sample.getParseTime() > 0) {
+				this.parseTime.record(sample.getParseTime());
+			}
+			if (sample.getBytesSent() > 0) {
+				this.bytesSent.record(sample.getBytesSent());
+			}
+			this.bytesReceived.record(sample.getBytesReceived());
+		}
+
+		public long getCount() {
+			return this.latency.getCount();
+		}
+
+		/**
+		 * Number of responses with a status code in the hundred, 2 for 2xx, 0 counts the
+		 * requests that failed without response
+		 *
+		 * @param hundred
+		 */
+		public long getStatusCount(int hundred) {
+			return this.statuses[hundred].sum();
+		}
+
+		public long getErrorCount() {
+			return this.statuses[0].sum() + this.statuses[4].sum() + this.statuses[5].sum();
+		}
+
+		public Histogram getTimeToFirstByte() {
+			return this.timeToFirstByte;
+		}
+
+		public Histogram getLatency() {
+			return this.latency;
+		}
+
+		public Histogram getParseTime() {
+			return this.parseTime;
+		}
+
+		public Histogram getBytesSent() {
+			return this.bytesSent;
+		}
+
+		public Histogram getBytesReceived() {
+			return this.bytesReceived;
+		}
+
+		public String toString() {
+			return "count=" + this.getCount() + " errors=" + this.getErrorCount() + " latency[" + this.latency
+					+ "] ttfb[" + this.timeToFirstByte + "] parse[" + this.parseTime + "] received["
+					+ this.bytesReceived + "]";
+		}
+	}
+}
@@ -10,6 +10,11 @@
 
 package com.ibm.maximo.oslc;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.json.spi.JsonProvider;
+
 /**
  * 
  * {@code Options} is served for {@code MaximoConnector}.
@@ -35,6 +40,8 @@ public class Options {
 	public static final String AUTH_BASIC = "basic";
 	public static final String AUTH_MAXAUTH = "maxauth";
 	public static final String AUTH_FORM = "form";
+	public static final String TRANSPORT_HTTPCLIENT = "httpclient";
+	public static final String TRANSPORT_URLCONNECTION = "urlconnection";
 	private String user;
 	private String password;
 	private boolean ssl = false;
@@ -45,6 +52,17 @@ public class Options {
 	private String apiContext = "oslc";
 	private String appURI = null;
 	private String tenantcode = "00";
+	private String transport = TRANSPORT_HTTPCLIENT;
+	private Executor parseExecutor = ForkJoinPool.commonPool();
+	private boolean virtualThreads = false;
+	private JsonProvider jsonProvider = null;
+	private int conditionalCacheEntries = 0;
+	private long conditionalCacheBytes = 0;
+	private int resourceCacheEntries = 0;
+	private long resourceCacheTTL = 0;
+	private boolean coalesce = false;
+	private Metrics metrics = null;
+	private boolean relogin = true;
 	
 	public Options host(String host)
 	{
@@ -127,6 +145,107 @@ public class Options {
 		return this;
 	}
 	
+	/**
+	 * Select the HTTP transport, {@code TRANSPORT_HTTPCLIENT} by default.
+	 * {@code TRANSPORT_URLCONNECTION} falls back to the legacy HttpURLConnection.
+	 * @param transport
+	 */
+	public Options transport(String transport){
+		this.transport = transport;
+		return this;
+	}
+	
+	/**
+	 * Executor for the JSON parsing of asynchronous requests, the common pool by default.
+	 * Parsing never runs on the I/O threads of the transport.
+	 * @param parseExecutor
+	 */
+	public Options parseExecutor(Executor parseExecutor){
+		this.parseExecutor = parseExecutor;
+		return this;
+	}
+	
+	/**
+	 * Run the parallel work of the connector (asynchronous requests, prefetching,
+	 * parallel downloads, bulk fan-out) on a virtual thread per task. It needs a
+	 * Java 21 or later runtime, platform threads are used otherwise.
+	 * @param virtualThreads
+	 */
+	public Options virtualThreads(boolean virtualThreads){
+		this.virtualThreads = virtualThreads;
+		return this;
+	}
+	
+	/**
+	 * JSON provider used by the connector, the default provider when it is not set.
+	 * The provider is looked up once and its factories are reused for every request.
+	 * @param jsonProvider
+	 */
+	public Options jsonProvider(JsonProvider jsonProvider){
+		this.jsonProvider = jsonProvider;
+		return this;
+	}
+	
+	/**
+	 * Keep the parsed GET responses that carry an ETag or Last-Modified header, so that
+	 * loading them again is a conditional request answered from memory on a 304.
+	 * Disabled by default.
+	 * @param maxEntries
+	 * @param maxBytes size of the cached response bodies, no bound if not positive
+	 */
+	public Options conditionalCache(int maxEntries, long maxBytes){
+		this.conditionalCacheEntries = maxEntries;
+		this.conditionalCacheBytes = maxBytes;
+		return this;
+	}
+	
+	/**
+	 * Keep the resources fetched by {@code MaximoConnector.resource} and
+	 * {@code ResourceSet.fetchMember}, writes through the connector invalidate them.
+	 * Disabled by default.
+	 * @param maxEntries
+	 * @param ttl time to live in milliseconds, no expiry if not positive
+	 */
+	public Options resourceCache(int maxEntries, long ttl){
+		this.resourceCacheEntries = maxEntries;
+		this.resourceCacheTTL = ttl;
+		return this;
+	}
+	
+	/**
+	 * Let identical concurrent GETs (same uri and headers) share one exchange and one
+	 * parsed response, failures go to every caller. Off by default, it can also be
+	 * chosen per call with {@code MaximoConnector.get(uri, headers, coalesce)}.
+	 * @param coalesce
+	 */
+	public Options coalesce(boolean coalesce){
+		this.coalesce = coalesce;
+		return this;
+	}
+	
+	/**
+	 * Record the verb, object structure, status, timings and sizes of every request,
+	 * {@code MetricsRegistry} keeps them as histograms. None by default, requests are
+	 * then not measured at all.
+	 * @param metrics
+	 */
+	public Options metrics(Metrics metrics){
+		this.metrics = metrics;
+		return this;
+	}
+	
+	/**
+	 * Log in again when the session has expired (a 401, or the login page instead of
+	 * JSON) and send the request again. One thread logs in while the others wait for it.
+	 * Creates, actions and bulk requests are sent again only with a transactionid header,
+	 * requests with a streamed body never. On by default.
+	 * @param relogin
+	 */
+	public Options relogin(boolean relogin){
+		this.relogin = relogin;
+		return this;
+	}
+	
 	String getPassword()
 	{
 		return this.password;
@@ -137,6 +256,11 @@ public class Options {
 		return this.user;
 	}
 	
+	String getAuthMode()
+	{
+		return this.authMode;
+	}
+	
 	public boolean isBasicAuth()
 	{
 		return this.authMode.equals(AUTH_BASIC);
@@ -172,6 +296,50 @@ public class Options {
 	public String getTenantCode(){
 		return this.tenantcode;
 	}
+	
+	public String getTransport(){
+		return this.transport;
+	}
+	
+	public Executor getParseExecutor(){
+		return this.parseExecutor;
+	}
+	
+	public boolean isVirtualThreads(){
+		return this.virtualThreads;
+	}
+	
+	public JsonProvider getJsonProvider(){
+		return this.jsonProvider;
+	}
+	
+	public int getConditionalCacheEntries(){
+		return this.conditionalCacheEntries;
+	}
+	
+	public long getConditionalCacheBytes(){
+		return this.conditionalCacheBytes;
+	}
+	
+	public int getResourceCacheEntries(){
+		return this.resourceCacheEntries;
+	}
+	
+	public long getResourceCacheTTL(){
+		return this.resourceCacheTTL;
+	}
+	
+	public boolean isCoalesce(){
+		return this.coalesce;
+	}
+	
+	public Metrics getMetrics(){
+		return this.metrics;
+	}
+	
+	public boolean isRelogin(){
+		return this.relogin;
+	}
 	//Get app URI
 	
 	String getAppURI()
@@ -0,0 +1,47 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a chunk sent by {@code BulkProcessor}, from its submission,
+ * waiting for a free slot included, until its response
+ */
+@Name("com.ibm.maximo.oslc.BulkFlush")
+@Label("OSLC Bulk Flush")
+@Category({ "Maximo", "OSLC" })
+class OslcBulkFlushEvent extends Event {
+
+	private static final EventType TYPE = EventType.getEventType(OslcBulkFlushEvent.class);
+
+	@Label("URI Template")
+	String uriTemplate;
+
+	@Label("Operations")
+	int operations;
+
+	@Label("Failed")
+	@Description("Whether the whole chunk failed")
+	boolean failed;
+
+	/**
+	 * Whether a recording has the event enabled, checked before allocating one per chunk
+	 */
+	static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -0,0 +1,41 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of a login of {@code MaximoConnector}
+ */
+@Name("com.ibm.maximo.oslc.Connect")
+@Label("OSLC Connect")
+@Category({ "Maximo", "OSLC" })
+@Description("Login to the Maximo OSLC API")
+class OslcConnectEvent extends Event {
+
+	@Label("URI Template")
+	String uriTemplate;
+
+	@Label("Authentication")
+	String auth;
+
+	@Label("Status Code")
+	@Description("0 when the login failed without response")
+	int statusCode;
+
+	@Label("Relogin")
+	@Description("Whether the login renewed an expired session")
+	boolean relogin;
+}
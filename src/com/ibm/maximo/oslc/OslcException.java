@@ -20,11 +20,12 @@ public class OslcException extends Exception {
 
 	public OslcException(int errorCode, String message, Throwable t) {
 		super(message, t);
-
+		this.errorCode = errorCode;
 	}
 
 	public OslcException(int errorCode, String message) {
 		super(message);
+		this.errorCode = errorCode;
 	}
 
 	public int getErrorCode() {
@@ -40,4 +41,9 @@ public class OslcException extends Exception {
 				"message") : (jo.containsKey("oslc:Error")?jo.getJsonObject("oslc:Error").getString(
 				"oslc:message"):""));
 	}
+
+	public OslcException(int errorCode, JsonObject jo) {
+		this(jo);
+		this.errorCode = errorCode;
+	}
 }
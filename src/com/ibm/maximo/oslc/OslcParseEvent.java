@@ -0,0 +1,44 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event of the parse of a response body, a resource or a page of a
+ * collection
+ */
+@Name("com.ibm.maximo.oslc.Parse")
+@Label("OSLC JSON Parse")
+@Category({ "Maximo", "OSLC" })
+class OslcParseEvent extends Event {
+
+	private static final EventType TYPE = EventType.getEventType(OslcParseEvent.class);
+
+	@Label("URI Template")
+	String uriTemplate;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	/**
+	 * Whether a recording has the event enabled, checked before allocating one per response
+	 */
+	static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+}
@@ -0,0 +1,95 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one HTTP exchange, from sending the request until its
+ * response is closed
+ */
+@Name("com.ibm.maximo.oslc.Request")
+@Label("OSLC Request")
+@Category({ "Maximo", "OSLC" })
+@Description("HTTP exchange with the Maximo OSLC API")
+class OslcRequestEvent extends Event {
+
+	private static final EventType TYPE = EventType.getEventType(OslcRequestEvent.class);
+
+	@Label("Method")
+	@Description("Verb including the BULK, SYNC, MERGE and MERGESYNC overrides")
+	String method;
+
+	@Label("URI Template")
+	@Description("Path of the request with the resource ids replaced by {id}")
+	String uriTemplate;
+
+	@Label("Object Structure")
+	String objectStructure;
+
+	@Label("Status Code")
+	@Description("0 when the request failed without response")
+	int statusCode;
+
+	@Label("Time To First Byte")
+	@Timespan(Timespan.NANOSECONDS)
+	long timeToFirstByte;
+
+	@Label("Parse Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long parseTime;
+
+	@Label("Bytes Sent")
+	@DataAmount
+	long bytesSent;
+
+	@Label("Bytes Received")
+	@DataAmount
+	long bytesReceived;
+
+	/**
+	 * Whether a recording has the event enabled, checked before allocating one per request
+	 */
+	static boolean enabled() {
+		return TYPE.isEnabled();
+	}
+
+	/**
+	 * The path of the uri without the query, the ids alternating with the collections
+	 * after /os/&lt;name&gt; replaced by {id}, so that the requests of a kind group together
+	 */
+	static String template(String uri) {
+		int query = uri.indexOf('?');
+		String path = query >= 0 ? uri.substring(0, query) : uri;
+		int scheme = path.indexOf("://");
+		if (scheme >= 0) {
+			int slash = path.indexOf('/', scheme + 3);
+			path = slash >= 0 ? path.substring(slash) : "/";
+		}
+		int os = path.indexOf("/os/");
+		if (os < 0) {
+			return path;
+		}
+		String[] segments = path.substring(os + 4).split("/");
+		StringBuilder sb = new StringBuilder(path.length()).append(path, 0, os + 3);
+		for (int i = 0; i < segments.length; i++) {
+			sb.append('/').append(i % 2 == 1 && !segments[i].isEmpty() ? "{id}" : segments[i]);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonStructure;
+
+/**
+ * 
+ * {@code OslcResponse} is the result of a single request sent by {@code MaximoConnector}.
+ * Unlike the connector wide last response code, it belongs to the call which produced it
+ * and can be used safely when the connector is shared by several threads.
+ * 
+ * <pre>
+ * <code>
+ * OslcResponse res = mc.request(MaximoConnector.HTTP_METHOD_PATCH, uri, jo, null, properties);
+ * int code = res.getStatusCode();
+ * JsonObject jo = res.toJSON();
+ * </code>
+ * </pre>
+ *
+ */
+public class OslcResponse {
+
+	private final String method;
+	private final String uri;
+	private final int statusCode;
+	private final Map<String, List<String>> headers;
+	private final JsonStructure json;
+
+	public OslcResponse(String method, String uri, int statusCode, Map<String, List<String>> headers, JsonStructure json) {
+		this.method = method;
+		this.uri = uri;
+		this.statusCode = statusCode;
+		this.headers = headers != null ? headers : Collections.<String, List<String>>emptyMap();
+		this.json = json;
+	}
+
+	/**
+	 * Get the verb of the request, the override (PATCH, MERGE, BULK, SYNC, MERGESYNC) when there is one
+	 */
+	public String getMethod() {
+		return this.method;
+	}
+
+	public String getURI() {
+		return this.uri;
+	}
+
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	public String getHeader(String name) {
+		List<String> values = this.headers.get(name);
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		return values.get(0);
+	}
+
+	public Map<String, List<String>> getHeaderFields() {
+		return this.headers;
+	}
+
+	public String getLocation() {
+		return this.getHeader("Location");
+	}
+
+	/**
+	 * Get the body as JsonObject, null if there is no body or it is an array
+	 */
+	public JsonObject toJSON() {
+		return this.json instanceof JsonObject ? (JsonObject) this.json : null;
+	}
+
+	/**
+	 * Get the body as JsonArray, null if there is no body or it is an object
+	 */
+	public JsonArray toJSONArray() {
+		return this.json instanceof JsonArray ? (JsonArray) this.json : null;
+	}
+
+	public boolean hasBody() {
+		return this.json != null;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+
+/**
+ *
+ * {@code PageIterator} walks the members of every page of a collection. While the members
+ * of one page are consumed, up to {@code depth} following pages are requested in the background,
+ * each one as soon as the link to it is known. A depth of 0 fetches a page only when it is needed.
+ * {@code hasNext()} waits for a page that has not arrived yet, {@code close()} cancels the pages
+ * still requested ahead.
+ *
+ */
+class PageIterator implements Iterator<JsonObject>, AutoCloseable {
+
+	private final MaximoConnector mc;
+	private final int depth;
+	private final Deque<CompletableFuture<JsonObject>> ahead = new ArrayDeque<CompletableFuture<JsonObject>>();
+	// the last page requested, null once the last page is reached
+	private CompletableFuture<JsonObject> tail;
+	private JsonArray members;
+	private int index = 0;
+
+	/**
+	 * @param mc
+	 * @param page the page to start with, null to start by fetching the uri
+	 * @param uri
+	 * @param depth number of pages fetched ahead
+	 */
+	PageIterator(MaximoConnector mc, JsonObject page, String uri, int depth) {
+		this.mc = mc;
+		this.depth = depth;
+		if (page != null) {
+			this.members = ResourceSet.members(page);
+			this.tail = CompletableFuture.completedFuture(page);
+		} else {
+			this.tail = mc.getAsync(uri);
+			this.ahead.add(this.tail);
+		}
+		this.fill();
+	}
+
+	public boolean hasNext() {
+		while (this.members == null || this.index >= this.members.size()) {
+			if (this.ahead.isEmpty()) {
+				if (this.tail == null) {
+					return false;
+				}
+				this.request();
+			}
+			JsonObject page = await(this.ahead.poll());
+			if (page == null) {
+				this.ahead.clear();
+				this.tail = null;
+				return false;
+			}
+			this.members = ResourceSet.members(page);
+			this.index = 0;
+			this.fill();
+		}
+		return true;
+	}
+
+	public JsonObject next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.members.getJsonObject(this.index++);
+	}
+
+	/**
+	 * Stop walking the pages, the pages requested ahead that have not been chained yet
+	 * are never requested
+	 */
+	public void close() {
+		for (CompletableFuture<JsonObject> page : this.ahead) {
+			page.cancel(false);
+		}
+		this.ahead.clear();
+		this.tail = null;
+		this.members = null;
+	}
+
+	private void fill() {
+		while (this.tail != null && this.ahead.size() < this.depth) {
+			this.request();
+		}
+	}
+
+	private void request() {
+		this.tail = this.tail.thenCompose(page -> {
+			String uri = page != null ? ResourceSet.nextPageURI(page) : null;
+			if (uri == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return this.mc.getAsync(uri);
+		});
+		this.ahead.add(this.tail);
+	}
+
+	private static JsonObject await(CompletableFuture<JsonObject> page) {
+		try {
+			return page.join();
+		} catch (CompletionException e) {
+			throw unchecked(e.getCause() != null ? e.getCause() : e);
+		}
+	}
+
+	/**
+	 * Iterators can not throw the checked exceptions of the connector, they are wrapped
+	 */
+	static RuntimeException unchecked(Throwable t) {
+		if (t instanceof RuntimeException) {
+			return (RuntimeException) t;
+		}
+		if (t instanceof IOException) {
+			return new UncheckedIOException((IOException) t);
+		}
+		return new IllegalStateException(t.getMessage(), t);
+	}
+}
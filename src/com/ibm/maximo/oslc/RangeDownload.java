@@ -0,0 +1,291 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+/**
+ *
+ * {@code RangeDownload} downloads a document into a file with HTTP Range requests.
+ * A download that fails part way is resumed from the bytes already written, and a
+ * large document can be split into segments fetched concurrently into a file sized
+ * up front. The file is verified against the length announced by the server.
+ *
+ * <p>Servers that do not answer a Range request with 206 get the whole document
+ * written from the start in a single request.</p>
+ *
+ */
+class RangeDownload {
+
+	public static final Logger logger = Logger.getLogger(RangeDownload.class.getName());
+
+	// attempts of every range before the download fails
+	static final int MAX_ATTEMPTS = 3;
+
+	private final MaximoConnector mc;
+	private final String uri;
+	private final Map<String, Object> headers;
+	// set when a segment failed, the other segments stop at their next buffer
+	private volatile boolean cancelled = false;
+
+	RangeDownload(MaximoConnector mc, String uri, Map<String, Object> headers) {
+		this.mc = mc;
+		this.uri = uri;
+		this.headers = headers;
+	}
+
+	/**
+	 * Download into the file, starting after the bytes already in it
+	 *
+	 * @return the size of the document
+	 */
+	long resume(Path path) throws IOException, OslcException {
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			long[] position = { file.size() };
+			long total = -1;
+			for (int attempt = 1;; attempt++) {
+				try (TransportResponse res = this.mc.getRange(this.uri, this.headers, "bytes=" + position[0] + "-")) {
+					int status = res.getStatusCode();
+					if (status == 416) {
+						total = total(res);
+						if (total != position[0]) {
+							throw new OslcException(416, "The document has " + total + " bytes, the file "
+									+ position[0]);
+						}
+						return total;
+					}
+					if (status == 206) {
+						total = total(res);
+						if (first(res) != position[0]) {
+							throw new IOException("The server sent " + res.getHeader("Content-Range")
+									+ " for the bytes from " + position[0]);
+						}
+					} else {
+						// no range support, the whole document comes again
+						position[0] = 0;
+						file.truncate(0);
+						total = length(res);
+					}
+					copy(res.getBody(), file, position, Long.MAX_VALUE);
+					break;
+				} catch (IOException e) {
+					if (attempt >= MAX_ATTEMPTS) {
+						throw e;
+					}
+					logger.fine("Resuming " + this.uri + " at " + position[0] + " after " + e);
+				}
+			}
+			file.force(false);
+			verify(total, position[0], file.size());
+			return position[0];
+		}
+	}
+
+	/**
+	 * Download into the file with up to {@code segments} concurrent range requests, the
+	 * file is truncated to the size of the document first
+	 *
+	 * @return the size of the document
+	 */
+	long segmented(Path path, int segments) throws IOException, OslcException {
+		try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			long total;
+			long[] position = { 0 };
+			// the first segment doubles as the probe of the size and of the range support
+			try (TransportResponse res = this.mc.getRange(this.uri, this.headers, "bytes=0-")) {
+				if (res.getStatusCode() != 206) {
+					total = length(res);
+					copy(res.getBody(), file, position, Long.MAX_VALUE);
+					verify(total, position[0], file.size());
+					return position[0];
+				}
+				total = total(res);
+				if (total < 0) {
+					throw new IOException("The server did not send the size of " + this.uri);
+				}
+				if (total == 0) {
+					return 0;
+				}
+				long segment = (total + segments - 1) / segments;
+				file.write(ByteBuffer.allocate(1), total - 1);
+				List<CompletableFuture<Long>> rest = new ArrayList<CompletableFuture<Long>>();
+				for (long from = segment; from < total; from += segment) {
+					final long first = from;
+					final long last = Math.min(from + segment, total) - 1;
+					rest.add(CompletableFuture.supplyAsync(() -> {
+						try {
+							return this.range(file, first, last);
+						} catch (IOException | OslcException e) {
+							throw new CompletionException(e);
+						}
+					}, this.mc.executor()));
+				}
+				long head = Math.min(segment, total);
+				try {
+					copy(res.getBody(), file, position, head);
+				} catch (IOException e) {
+					logger.fine("Resuming " + this.uri + " at " + position[0] + " after " + e);
+				}
+				long written = position[0];
+				try {
+					if (written < head) {
+						written += this.range(file, written, head - 1);
+					}
+					for (CompletableFuture<Long> future : rest) {
+						written += join(future);
+					}
+				} catch (IOException | OslcException | RuntimeException e) {
+					// the segments not started yet never run, the running ones stop
+					this.cancelled = true;
+					for (CompletableFuture<Long> future : rest) {
+						future.cancel(false);
+					}
+					throw e;
+				}
+				file.force(false);
+				verify(total, written, file.size());
+				return total;
+			}
+		}
+	}
+
+	/**
+	 * Fetch the bytes from first to last inclusive into the file, retrying from the
+	 * last byte written
+	 *
+	 * @return the number of bytes written
+	 */
+	private long range(FileChannel file, long first, long last) throws IOException, OslcException {
+		long[] position = { first };
+		for (int attempt = 1; position[0] <= last; attempt++) {
+			if (this.cancelled) {
+				throw new InterruptedIOException("The download of " + this.uri + " was cancelled");
+			}
+			try (TransportResponse res = this.mc.getRange(this.uri, this.headers, "bytes=" + position[0] + "-" + last)) {
+				if (res.getStatusCode() != 206 || first(res) != position[0]) {
+					throw new IOException("The server sent " + res.getStatusCode() + " "
+							+ res.getHeader("Content-Range") + " for the bytes " + position[0] + "-" + last);
+				}
+				copy(res.getBody(), file, position, last + 1);
+				if (position[0] <= last) {
+					throw new IOException("The range " + first + "-" + last + " ended at " + position[0]);
+				}
+			} catch (IOException e) {
+				if (attempt >= MAX_ATTEMPTS) {
+					throw e;
+				}
+				logger.fine("Resuming " + this.uri + " at " + position[0] + " after " + e);
+			}
+		}
+		return position[0] - first;
+	}
+
+	/**
+	 * Copy the body into the file at the position until the end of the body or the limit.
+	 * The position moves with every write, so after a failure it is where a retry resumes.
+	 */
+	private void copy(InputStream in, FileChannel file, long[] position, long limit) throws IOException {
+		byte[] buffer = BufferPool.borrow();
+		try {
+			ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+			while (position[0] < limit) {
+				if (this.cancelled) {
+					throw new InterruptedIOException("The download of " + this.uri + " was cancelled");
+				}
+				int len = in.read(buffer, 0, (int) Math.min(buffer.length, limit - position[0]));
+				if (len == -1) {
+					break;
+				}
+				wrapped.clear().limit(len);
+				while (wrapped.hasRemaining()) {
+					position[0] += file.write(wrapped, position[0]);
+				}
+			}
+		} finally {
+			BufferPool.release(buffer);
+		}
+	}
+
+	private static void verify(long expected, long written, long size) throws IOException {
+		if (expected >= 0 && (written != expected || size != expected)) {
+			throw new IOException("Downloaded " + written + " bytes into a file of " + size
+					+ " bytes, the document has " + expected);
+		}
+	}
+
+	/**
+	 * The complete length from {@code Content-Range: bytes first-last/total}, -1 if unknown
+	 */
+	private static long total(TransportResponse res) throws IOException {
+		String range = res.getHeader("Content-Range");
+		int slash = range != null ? range.lastIndexOf('/') : -1;
+		if (slash < 0 || range.endsWith("*")) {
+			return -1;
+		}
+		return number("Content-Range", range, range.substring(slash + 1));
+	}
+
+	private static long first(TransportResponse res) throws IOException {
+		String range = res.getHeader("Content-Range");
+		if (range == null || !range.startsWith("bytes ") || range.indexOf('-') < 0) {
+			return -1;
+		}
+		return number("Content-Range", range, range.substring(6, range.indexOf('-')));
+	}
+
+	private static long length(TransportResponse res) throws IOException {
+		String length = res.getHeader("Content-Length");
+		return length != null ? number("Content-Length", length, length) : -1;
+	}
+
+	/**
+	 * A number of a header, a malformed header fails the request like a broken body
+	 */
+	private static long number(String header, String value, String number) throws IOException {
+		try {
+			return Long.parseLong(number.trim());
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed " + header + ": " + value, e);
+		}
+	}
+
+	private static long join(CompletableFuture<Long> future) throws IOException, OslcException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while downloading segments");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof OslcException) {
+				throw (OslcException) cause;
+			}
+			throw PageIterator.unchecked(cause);
+		}
+	}
+}
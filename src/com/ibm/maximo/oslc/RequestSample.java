@@ -0,0 +1,127 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+/**
+ *
+ * {@code RequestSample} describes one request sent by {@code MaximoConnector}: its verb,
+ * including the BULK, SYNC, MERGESYNC and MERGE overrides, the object structure of its
+ * uri, its outcome, its timings in nanoseconds and its sizes in bytes.
+ *
+ * <p>The status code is 0 when the request failed without a response. The latency runs
+ * until the response is closed, after its body is read and parsed.</p>
+ *
+ */
+public class RequestSample {
+
+	private final String method;
+	private final String objectStructure;
+	private final int statusCode;
+	private final long timeToFirstByte;
+	private final long latency;
+	private final long bytesSent;
+	private final long bytesReceived;
+	private final long parseTime;
+
+	public RequestSample(String method, String objectStructure, int statusCode, long timeToFirstByte, long latency,
+			long bytesSent, long bytesReceived, long parseTime) {
+		this.method = method;
+		this.objectStructure = objectStructure;
+		this.statusCode = statusCode;
+		this.timeToFirstByte = timeToFirstByte;
+		this.latency = latency;
+		this.bytesSent = bytesSent;
+		this.bytesReceived = bytesReceived;
+		this.parseTime = parseTime;
+	}
+
+	public String getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * The object structure of the uri, the name after /os/, or the last path segment of
+	 * the other uris such as the login
+	 */
+	public String getObjectStructure() {
+		return this.objectStructure;
+	}
+
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Nanoseconds from sending the request until the status line and headers arrived
+	 */
+	public long getTimeToFirstByte() {
+		return this.timeToFirstByte;
+	}
+
+	/**
+	 * Nanoseconds from sending the request until the response was closed
+	 */
+	public long getLatency() {
+		return this.latency;
+	}
+
+	/**
+	 * Size of the request body, -1 for a chunked body
+	 */
+	public long getBytesSent() {
+		return this.bytesSent;
+	}
+
+	/**
+	 * Bytes of the response body that were read
+	 */
+	public long getBytesReceived() {
+		return this.bytesReceived;
+	}
+
+	/**
+	 * Nanoseconds spent parsing the JSON body, 0 if it was not parsed as a whole
+	 */
+	public long getParseTime() {
+		return this.parseTime;
+	}
+
+	/**
+	 * The verb of the request as the connector means it: the overridden method,
+	 * MERGE for a merge patch and MERGESYNC for a merge sync
+	 */
+	static String method(TransportRequest req) {
+		String override = req.getHeader("x-method-override");
+		if (MaximoConnector.HTTP_METHOD_MERGE.equalsIgnoreCase(req.getHeader("patchtype"))) {
+			return MaximoConnector.HTTP_METHOD_SYNC.equals(override) ? MaximoConnector.HTTP_METHOD_MERGESYNC
+					: MaximoConnector.HTTP_METHOD_MERGE;
+		}
+		return override != null ? override : req.getMethod();
+	}
+
+	static String objectStructure(String uri) {
+		int query = uri.indexOf('?');
+		String path = query >= 0 ? uri.substring(0, query) : uri;
+		int os = path.indexOf("/os/");
+		if (os >= 0) {
+			int end = path.indexOf('/', os + 4);
+			return path.substring(os + 4, end >= 0 ? end : path.length()).toLowerCase();
+		}
+		while (path.endsWith("/")) {
+			path = path.substring(0, path.length() - 1);
+		}
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	public String toString() {
+		return this.method + " " + this.objectStructure + " " + this.statusCode + " " + this.latency / 1000 + "us";
+	}
+}
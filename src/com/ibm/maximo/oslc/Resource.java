@@ -9,10 +9,11 @@
  */
 
 package com.ibm.maximo.oslc;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.json.*;
 
@@ -59,6 +60,7 @@ import javax.json.*;
  * <code>
  * re.load();
  * re.reload();
+ * re.loadAsync().thenAccept(...);
  * </code>
  * </pre>
  * 
@@ -81,6 +83,14 @@ import javax.json.*;
  * </code>
  * </pre>
  *
+ * <p>The following examples show how to edit the {@code Resource} locally and send only the changed attributes</p>
+ * <pre>
+ * <code>
+ * re.set("status", "APPR").set("poline", 0, "orderqty", 5).save();
+ * re.edit(editedJsonObject).getChanges();
+ * </code>
+ * </pre>
+ *
  * <p>The following example show how to get attachmentSet, relatedResource and how to invoke action by {@code Resource}</p>
  * <pre><code>
  * AttachmentSet ats = re.attachmentSet(doclinkAttrName, relName);
@@ -96,6 +106,8 @@ public class Resource {
 	private JsonObject jsonObject;
 	private MaximoConnector mc;
 	private boolean isLoaded = false;
+	// the loaded data with the local edits, null when nothing is edited
+	private JsonObject edited;
 	
 	//constructor
 	public Resource(JsonObject jo)
@@ -176,10 +188,7 @@ public class Resource {
 		if(!isLoaded){
 			load();
 		}
-		ByteArrayOutputStream bo = new ByteArrayOutputStream();
-		Json.createWriter(bo).writeObject(this.jsonObject);
-		bo.close();
-		return bo.toByteArray();
+		return JsonCodec.of(this.mc).toBytes(this.jsonObject);
 	}
 	
 	/**
@@ -213,6 +222,49 @@ public class Resource {
 		if (this.href == null || this.href.isEmpty()) {
 			throw new OslcException("The_resource_is_invalid");
 		}
+		String uri = this.loadURI(params, properties);
+		if(headers!=null && !headers.isEmpty()){
+			this.jsonObject = this.mc.get(uri,headers);
+		}else{
+			this.jsonObject = this.mc.get(uri);
+		}
+		this.isLoaded = true;
+		return this;
+	}
+	
+	/**
+	 * Load current data without blocking, the Resource must not be used
+	 * before the future completes.
+	 * 
+	 * @param properties
+	 */
+	
+	public CompletableFuture<Resource> loadAsync(String... properties) {
+		CompletableFuture<Resource> future = new CompletableFuture<Resource>();
+		if (isLoaded) {
+			future.completeExceptionally(new OslcException(
+					"The resource has been loaded, please call reload for refreshing"));
+			return future;
+		}
+		if (this.href == null || this.href.isEmpty()) {
+			future.completeExceptionally(new OslcException("The_resource_is_invalid"));
+			return future;
+		}
+		String uri;
+		try {
+			uri = this.loadURI(null, properties);
+		} catch (UnsupportedEncodingException e) {
+			future.completeExceptionally(e);
+			return future;
+		}
+		return this.mc.getAsync(uri).thenApply(jo -> {
+			this.jsonObject = jo;
+			this.isLoaded = true;
+			return this;
+		});
+	}
+	
+	private String loadURI(Map<String, Object> params, String... properties) throws UnsupportedEncodingException {
 		StringBuilder strb = new StringBuilder();
 		strb.append(this.href);
 		if (properties.length > 0) {
@@ -236,13 +288,7 @@ public class Resource {
 				strb.append(singleParam.toString());
 			}
 		}
-		if(headers!=null && !headers.isEmpty()){
-			this.jsonObject = this.mc.get(strb.toString(),headers);
-		}else{
-			this.jsonObject = this.mc.get(strb.toString());
-		}
-		this.isLoaded = true;
-		return this;
+		return strb.toString();
 	}
 	
 	public Resource reload() throws OslcException, IOException{
@@ -313,6 +359,139 @@ public class Resource {
 	}
 	
 	
+	/**
+	 * Set an attribute locally, it is sent by {@code save}
+	 * @param attribute
+	 * @param value a JsonValue, String, Number, Boolean or null
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public Resource set(String attribute, Object value) throws OslcException, IOException
+	{
+		JsonDiff diff = new JsonDiff(JsonCodec.of(this.mc));
+		this.edited = diff.with(this.edited(), attribute, value);
+		return this;
+	}
+	
+	/**
+	 * Set an attribute of a child object locally, such as a poline of a po, it is sent by {@code save}
+	 * @param childArray
+	 * @param index
+	 * @param attribute
+	 * @param value a JsonValue, String, Number, Boolean or null
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public Resource set(String childArray, int index, String attribute, Object value) throws OslcException, IOException
+	{
+		JsonDiff diff = new JsonDiff(JsonCodec.of(this.mc));
+		JsonObject current = this.edited();
+		JsonArray children = current.containsKey(childArray) ? current.getJsonArray(childArray) : null;
+		if(children == null || index < 0 || index >= children.size()){
+			throw new OslcException("The child " + childArray + "[" + index + "] does not exist");
+		}
+		JsonObject child = diff.with(children.getJsonObject(index), attribute, value);
+		this.edited = diff.with(current, childArray, diff.with(children, index, child));
+		return this;
+	}
+	
+	/**
+	 * Replace the local edit by an edited copy of the Resource, only the differences
+	 * to the loaded data are sent by {@code save}
+	 * @param jo
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public Resource edit(JsonObject jo) throws OslcException, IOException
+	{
+		this.edited();
+		this.edited = jo;
+		return this;
+	}
+	
+	private JsonObject edited() throws OslcException, IOException
+	{
+		if(this.edited == null){
+			// a member of a ResourceSet already carries its data
+			this.edited = this.jsonObject != null ? this.jsonObject : this.toJSON();
+		}
+		return this.edited;
+	}
+	
+	public boolean isDirty()
+	{
+		return this.edited != null && !this.getChanges().isEmpty();
+	}
+	
+	/**
+	 * Get the attributes changed locally since the Resource was loaded
+	 */
+	public JsonObject getChanges()
+	{
+		JsonCodec codec = JsonCodec.of(this.mc);
+		if(this.edited == null){
+			return codec.createObjectBuilder().build();
+		}
+		return new JsonDiff(codec).diff(this.jsonObject, this.edited);
+	}
+	
+	/**
+	 * Drop the local edits
+	 */
+	public Resource discard()
+	{
+		this.edited = null;
+		return this;
+	}
+	
+	/**
+	 * Send the local edits as a merge holding only the changed attributes. The changes,
+	 * and the properties returned by the server if any are asked for, are applied onto
+	 * the loaded data without loading the Resource again.
+	 * @param properties
+	 * 
+	 * @throws OslcException
+	 * @throws IOException
+	 */
+	
+	public Resource save(String... properties) throws OslcException, IOException
+	{
+		return this.save(null, properties);
+	}
+	
+	public Resource save(Map<String, Object> headers, String... properties) throws OslcException, IOException
+	{
+		JsonObject changes = this.getChanges();
+		if(changes.isEmpty()){
+			this.edited = null;
+			return this;
+		}
+		if(this.href == null || this.href.isEmpty()){
+			throw new OslcException("The_resource_is_invalid");
+		}
+		JsonObject response;
+		if(headers != null && !headers.isEmpty()){
+			response = this.mc.merge(this.href, changes, headers, properties);
+		}else{
+			response = this.mc.merge(this.href, changes, properties);
+		}
+		JsonDiff diff = new JsonDiff(JsonCodec.of(this.mc));
+		JsonObject merged = diff.apply(this.jsonObject, changes);
+		if(response != null){
+			merged = diff.apply(merged, response);
+		}
+		this.jsonObject = merged;
+		this.edited = null;
+		this.isLoaded = true;
+		return this;
+	}
+	
 	/**
 	 * Load the attachmentset for resource
 	 * Note: there has to be a relation between them
@@ -0,0 +1,214 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.json.JsonObject;
+
+/**
+ *
+ * {@code ResourceCache} keeps the resources fetched by {@code MaximoConnector.resource}
+ * and {@code ResourceSet.fetchMember}, keyed on the uri and the requested properties.
+ *
+ * <p>Entries expire after the configured time to live and the least recently used
+ * entries are evicted once the cache is full. Every write through the connector to a
+ * uri invalidates the entries of that uri, of its child objects and, for a write to a
+ * collection, of its members. A resource fetched while an invalidation happened is not kept,
+ * it may predate the write.</p>
+ *
+ * <pre>
+ * <code>
+ * MaximoConnector mc = new MaximoConnector(options.resourceCache(1000, 60000));
+ * ResourceCache cache = mc.getResourceCache();
+ * long hits = cache.getHits();
+ * </code>
+ * </pre>
+ *
+ */
+public class ResourceCache {
+
+	private static class Entry {
+		final String href;
+		final JsonObject json;
+		final long expires;
+
+		Entry(String href, JsonObject json, long expires) {
+			this.href = href;
+			this.json = json;
+			this.expires = expires;
+		}
+	}
+
+	private final int maxEntries;
+	private final long ttlNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+	// incremented under the lock by every invalidate and clear
+	private long generation = 0;
+
+	/**
+	 * @param maxEntries
+	 * @param ttl time to live in milliseconds, entries do not expire if not positive
+	 */
+	ResourceCache(int maxEntries, long ttl) {
+		this.maxEntries = maxEntries;
+		this.ttlNanos = ttl > 0 ? TimeUnit.MILLISECONDS.toNanos(ttl) : 0;
+	}
+
+	/**
+	 * The cached resource, null if it is absent or expired
+	 */
+	JsonObject get(String uri, String... properties) {
+		String key = key(uri, properties);
+		this.lock.lock();
+		try {
+			Entry entry = this.entries.get(key);
+			if (entry != null && this.ttlNanos > 0 && System.nanoTime() - entry.expires > 0) {
+				this.entries.remove(key);
+				this.evictions.increment();
+				entry = null;
+			}
+			if (entry == null) {
+				this.misses.increment();
+				return null;
+			}
+			this.hits.increment();
+			return entry.json;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * The generation to pass to {@code put}, taken before the resource is fetched
+	 */
+	long stamp() {
+		this.lock.lock();
+		try {
+			return this.generation;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Keep the resource unless an invalidation happened since the stamp was taken, the
+	 * resource may then have been read before the write that invalidated it
+	 */
+	void put(String uri, JsonObject jo, long stamp, String... properties) {
+		Entry entry = new Entry(normalize(uri), jo, System.nanoTime() + this.ttlNanos);
+		this.lock.lock();
+		try {
+			if (stamp != this.generation) {
+				return;
+			}
+			this.entries.put(key(uri, properties), entry);
+			Iterator<Entry> eldest = this.entries.values().iterator();
+			while (this.entries.size() > this.maxEntries && eldest.hasNext()) {
+				eldest.next();
+				eldest.remove();
+				this.evictions.increment();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Drop the entries of the uri, of its child objects and of the members when the uri
+	 * is a collection
+	 *
+	 * @param uri
+	 */
+	public void invalidate(String uri) {
+		String href = normalize(uri);
+		this.lock.lock();
+		try {
+			this.generation++;
+			Iterator<Entry> it = this.entries.values().iterator();
+			while (it.hasNext()) {
+				String cached = it.next().href;
+				if (cached.equals(href) || cached.startsWith(href + "/") || href.startsWith(cached + "/")) {
+					it.remove();
+					this.invalidations.increment();
+				}
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public void clear() {
+		this.lock.lock();
+		try {
+			this.generation++;
+			this.entries.clear();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public int size() {
+		this.lock.lock();
+		try {
+			return this.entries.size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Entries dropped because they expired or the cache was full
+	 */
+	public long getEvictions() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * Entries dropped by writes and {@code invalidate}
+	 */
+	public long getInvalidations() {
+		return this.invalidations.sum();
+	}
+
+	private static String key(String uri, String... properties) {
+		return properties.length == 0 ? uri : uri + "|" + String.join(",", properties);
+	}
+
+	/**
+	 * The uri without its query and trailing slash
+	 */
+	private static String normalize(String uri) {
+		int query = uri.indexOf('?');
+		String href = query >= 0 ? uri.substring(0, query) : uri;
+		while (href.endsWith("/")) {
+			href = href.substring(0, href.length() - 1);
+		}
+		return href;
+	}
+}
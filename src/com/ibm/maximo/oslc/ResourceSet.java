@@ -10,16 +10,29 @@
 
 package com.ibm.maximo.oslc;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.json.*;
 import javax.xml.datatype.DatatypeConfigurationException;
@@ -75,6 +88,14 @@ import javax.xml.datatype.DatatypeConfigurationException;
  * <pre>
  * <code>
  * rs.fetch(mapOptions);
+ * rs.fetchAsync().thenAccept(...);
+ * rs.nextPageAsync();
+ * rs.forEachMember(member -> ...);
+ * rs.prefetch(2).stream().map(...);
+ * rs.pageSize(1000).parallelScan(8, false, member -> ...);
+ * rs.pageSize(1000).partitionedScan("workorderid", 8, member -> ...);
+ * rs.writeMode(ResourceSet.WRITE_APPEND).create(jo, "*");
+ * for (JsonObject member : rs) { ... }
  * rs.load();
  * rs.reload();
  * rs.nextPage();
@@ -123,10 +144,15 @@ import javax.xml.datatype.DatatypeConfigurationException;
  * </pre>
  *
  */
-public class ResourceSet {
+public class ResourceSet implements Iterable<JsonObject> {
 	
 	public static final Logger logger = Logger.getLogger(ResourceSet.class.getName());
 	
+	// what create, sync and mergeSync do with the loaded page
+	public static final String WRITE_RELOAD = "reload";
+	public static final String WRITE_STALE = "stale";
+	public static final String WRITE_APPEND = "append";
+	
 	private int pageSize = -1;
 	private String osName;
 	private String whereClause = null;
@@ -145,6 +171,14 @@ public class ResourceSet {
 	private boolean stablePaging = false;
 	private boolean isLoaded = false;
 	private JsonArray jsonArray;
+	private int prefetch = 1;
+	private String writeMode = WRITE_STALE;
+	
+	private static final JsonArray NO_MEMBERS = Json.createArrayBuilder().build();
+	// members waiting for the caller of a partitioned scan
+	private static final int PARTITION_QUEUE_SIZE = 1024;
+	// ranges walked at a time by partitionedScanBySize
+	public static final int DEFAULT_SCAN_PARALLELISM = 8;
 
 	public ResourceSet(String osName) {
 		this.osName = osName;
@@ -190,9 +224,18 @@ public class ResourceSet {
 	 * @throws OslcException
 	 */
 	public JsonObject toJSON() throws IOException, OslcException {
-		// this.load();
+		this.refresh();
 		return this.jsonObject;
 	}
+	
+	/**
+	 * Reload the page marked stale by a write
+	 */
+	private void refresh() throws IOException, OslcException {
+		if (!isLoaded && this.jsonObject != null) {
+			this.load();
+		}
+	}
 
 	/**
 	 * Get ResourceSet data in JSONBytes
@@ -203,10 +246,7 @@ public class ResourceSet {
 	 */
 	public byte[] toJSONBytes() throws OslcException, IOException {
 		// this.load();
-		ByteArrayOutputStream bo = new ByteArrayOutputStream();
-		Json.createWriter(bo).writeObject(this.jsonObject);
-		bo.close();
-		return bo.toByteArray();
+		return JsonCodec.of(this.mc).toBytes(this.jsonObject);
 	}
 
 	// Set whereClause
@@ -258,6 +298,34 @@ public class ResourceSet {
 		return this;
 	}
 	
+	/**
+	 * Number of pages fetched in the background by {@code iterator()} and {@code stream()}
+	 * while the current page is consumed, 1 by default. 0 disables prefetching.
+	 * 
+	 * @param depth
+	 */
+	public ResourceSet prefetch(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("prefetch depth must not be negative");
+		}
+		this.prefetch = depth;
+		return this;
+	}
+	
+	/**
+	 * What create, sync and mergeSync do with the loaded page.
+	 * {@code WRITE_STALE}, the default, marks it stale so that it is reloaded by the next read,
+	 * {@code WRITE_APPEND} puts the returned resource into the loaded page without a request, when
+	 * the write asks for properties of the resource, and
+	 * {@code WRITE_RELOAD} reloads the page after every write.
+	 * 
+	 * @param writeMode
+	 */
+	public ResourceSet writeMode(String writeMode) {
+		this.writeMode = writeMode;
+		return this;
+	}
+	
 	public ResourceSet orderBy(String... orderByProperties){
 		for(String property: orderByProperties){
 			this.orderBy.add(property);
@@ -364,6 +432,121 @@ public class ResourceSet {
 		return this;
 	}
 
+	/**
+	 * Fetching the data for ResourceSet without blocking, the ResourceSet
+	 * must not be used before the future completes.
+	 * 
+	 */
+	
+	public CompletableFuture<ResourceSet> fetchAsync() {
+		try {
+			this.buildURI();
+		} catch (OslcException e) {
+			CompletableFuture<ResourceSet> failed = new CompletableFuture<ResourceSet>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+		return this.mc.getAsync(this.appURI).thenApply(jo -> {
+			this.page(jo);
+			isLoaded = true;
+			return this;
+		});
+	}
+	
+	private void page(JsonObject jo) {
+		this.jsonObject = jo;
+		this.jsonArray = members(jo);
+	}
+	
+	/**
+	 * The members of a page, empty when the page has no member array
+	 */
+	static JsonArray members(JsonObject page) {
+		JsonArray members = (JsonArray) page.get(page.containsKey("rdfs:member") ? "rdfs:member" : "member");
+		return members != null ? members : NO_MEMBERS;
+	}
+
+	/**
+	 * Stream the current page, or the first page if nothing was fetched yet.
+	 * The members are parsed as they are read and the ResourceSet itself is not changed.
+	 * 
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public MemberReader pageReader() throws IOException, OslcException {
+		if (this.appURI == null) {
+			this.buildURI();
+		}
+		return this.mc.getMembers(this.appURI);
+	}
+	
+	/**
+	 * Iterate over every member of every page from the current one, or from the first one
+	 * if nothing was fetched yet. The next pages are fetched in the background according
+	 * to the prefetch depth. The ResourceSet itself is not changed.
+	 * 
+	 */
+	
+	public Iterator<JsonObject> iterator() {
+		return this.pageIterator();
+	}
+	
+	private PageIterator pageIterator() {
+		if (this.isLoaded && this.jsonObject != null) {
+			return new PageIterator(this.mc, this.jsonObject, null, this.prefetch);
+		}
+		try {
+			this.buildURI();
+		} catch (OslcException e) {
+			throw PageIterator.unchecked(e);
+		}
+		return new PageIterator(this.mc, null, this.appURI, this.prefetch);
+	}
+	
+	public Spliterator<JsonObject> spliterator() {
+		return Spliterators.spliteratorUnknownSize(this.iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+	
+	/**
+	 * Sequential stream over every member of every page, see {@code iterator()}.
+	 * Closing the stream cancels the pages prefetched but not consumed.
+	 */
+	
+	public Stream<JsonObject> stream() {
+		PageIterator it = this.pageIterator();
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(it::close);
+	}
+	
+	/**
+	 * Stream every member of every page from the current one to the last one,
+	 * only one member is held in memory at a time. Return the number of members.
+	 * 
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int forEachMember(Consumer<JsonObject> action) throws IOException, OslcException {
+		int count = 0;
+		MemberReader reader = this.pageReader();
+		while (reader != null) {
+			String next;
+			try {
+				for (JsonObject member; (member = reader.read()) != null;) {
+					action.accept(member);
+				}
+				count += reader.getCount();
+				next = reader.getNextPageURI();
+			} finally {
+				reader.close();
+			}
+			reader = next != null ? this.mc.getMembers(next) : null;
+		}
+		return count;
+	}
+	
 	/**
 	 * Go to nextPage
 	 * 
@@ -410,7 +593,42 @@ public class ResourceSet {
 		return this;
 	}
 	
+	/**
+	 * Go to nextPage without blocking, the ResourceSet must not be used
+	 * before the future completes.
+	 * 
+	 */
+	
+	public CompletableFuture<ResourceSet> nextPageAsync() {
+		String next = nextPageURI(this.jsonObject);
+		if (next == null) {
+			logger.info("Next Page is no found");
+			return CompletableFuture.completedFuture(this);
+		}
+		this.appURI = next;
+		return this.mc.getAsync(this.appURI).thenApply(jo -> {
+			this.page(jo);
+			return this;
+		});
+	}
+	
+	static String nextPageURI(JsonObject page) {
+		if (page.containsKey("responseInfo")) {
+			JsonObject ri = page.getJsonObject("responseInfo");
+			if (ri.containsKey("nextPage")) {
+				return ri.getJsonObject("nextPage").getString("href");
+			}
+		} else if (page.containsKey("oslc:responseInfo")) {
+			JsonObject ri = page.getJsonObject("oslc:responseInfo");
+			if (ri.containsKey("oslc:nextPage")) {
+				return ri.getJsonObject("oslc:nextPage").getString("rdf:resource");
+			}
+		}
+		return null;
+	}
+	
 	public boolean hasNextPage() throws IOException, OslcException {
+		this.refresh();
 		if (this.jsonObject.containsKey("responseInfo")) 
 		{
 			return this.jsonObject.getJsonObject("responseInfo").containsKey("nextPage");
@@ -431,7 +649,7 @@ public class ResourceSet {
 	 */
 
 	public ResourceSet previousPage() throws IOException, OslcException {
-		
+		this.refresh();
 		if(this.jsonObject.containsKey("responseInfo") && this.jsonObject.getJsonObject("responseInfo").containsKey("previousPage")){
 			this.appURI = this.jsonObject.getJsonObject("responseInfo")
 					.getJsonObject("previousPage").getString("href");
@@ -520,7 +738,7 @@ public class ResourceSet {
 	 * @throws OslcException
 	 */
 
-	private ResourceSet buildURI() throws OslcException {
+	ResourceSet buildURI() throws OslcException {
 		try {
 			StringBuilder strb = new StringBuilder();
 			// strb.append(this.URI);
@@ -605,7 +823,16 @@ public class ResourceSet {
 			}
 			strb.append(Util.urlEncode(paramsStrb.toString()));
 		}
-		JsonObject jo = this.mc.get(strb.toString());
+		ResourceCache cache = this.mc.getResourceCache();
+		String key = cache != null ? this.mc.publicURI(uri) : null;
+		long stamp = cache != null ? cache.stamp() : 0;
+		JsonObject jo = cache != null ? cache.get(key, properties) : null;
+		if (jo == null) {
+			jo = this.mc.get(strb.toString());
+			if (cache != null) {
+				cache.put(key, jo, stamp, properties);
+			}
+		}
 		return new Resource(jo, this.mc);
 	}
 
@@ -651,7 +878,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.create(this.osURI, jo, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -671,7 +898,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.create(this.osURI, jo, headers, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -691,7 +918,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.sync(this.osURI, jo, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -711,7 +938,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.sync(this.osURI, jo, headers, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -731,7 +958,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.mergeSync(this.osURI, jo, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -750,7 +977,7 @@ public class ResourceSet {
 			}
 		}
 		JsonObject rjo = this.mc.mergeSync(this.osURI, jo, headers, properties);
-		this.reload();
+		this.written(rjo, properties);
 		// use the maximo connector to connect to oslc server and then POST data
 		// to it
 		return new Resource(rjo, this.mc);
@@ -758,6 +985,396 @@ public class ResourceSet {
 		// from it
 	}
 
+	/**
+	 * Fetch every page of the query with up to {@code parallelism} requests at a time.
+	 * The page uris are worked out from the total count and the configured page size,
+	 * so the page size must be set and stable paging can not be used. The members are
+	 * handed to the action on the calling thread, page by page, either in page order or
+	 * in the order the pages arrive. Return the number of members.
+	 * 
+	 * @param parallelism
+	 * @param ordered
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int parallelScan(int parallelism, boolean ordered, Consumer<JsonObject> action)
+			throws IOException, OslcException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		if (this.pageSize <= 0) {
+			throw new OslcException("A page size is needed for a parallel scan");
+		}
+		if (this.stablePaging) {
+			throw new OslcException("A parallel scan can not use stable paging");
+		}
+		String baseURI = this.buildURI().appURI;
+		JsonObject first = this.mc.get(baseURI);
+		int total = totalCount(first);
+		if (total < 0) {
+			total = this.totalCount(true);
+		}
+		int pages = (total + this.pageSize - 1) / this.pageSize;
+		int count = 0;
+		for (JsonValue member : members(first)) {
+			action.accept((JsonObject) member);
+			count++;
+		}
+		// the pages requested and not consumed yet, in the order of their page numbers
+		ArrayDeque<CompletableFuture<JsonObject>> outstanding = new ArrayDeque<CompletableFuture<JsonObject>>();
+		final LinkedBlockingQueue<CompletableFuture<JsonObject>> arrived = new LinkedBlockingQueue<CompletableFuture<JsonObject>>();
+		int next = 2;
+		try {
+			while (next <= pages || !outstanding.isEmpty()) {
+				for (; outstanding.size() < parallelism && next <= pages; next++) {
+					final CompletableFuture<JsonObject> page = this.mc.getAsync(baseURI + "&pageno=" + next);
+					outstanding.add(page);
+					if (!ordered) {
+						page.whenComplete((jo, t) -> arrived.add(page));
+					}
+				}
+				CompletableFuture<JsonObject> page;
+				if (ordered) {
+					page = outstanding.poll();
+				} else {
+					try {
+						page = arrived.take();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException(e.getMessage());
+					}
+					outstanding.remove(page);
+				}
+				for (JsonValue member : members(awaitPage(page))) {
+					action.accept((JsonObject) member);
+					count++;
+				}
+			}
+		} catch (IOException | OslcException | RuntimeException e) {
+			// as PageIterator.close, the pages nobody will read are not waited for
+			for (CompletableFuture<JsonObject> page : outstanding) {
+				page.cancel(false);
+			}
+			throw e;
+		}
+		return count;
+	}
+	
+	private static JsonObject awaitPage(CompletableFuture<JsonObject> page) throws IOException, OslcException {
+		try {
+			return page.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof OslcException) {
+				throw (OslcException) cause;
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the totalCount of a page, -1 if the page has none
+	 */
+	static int totalCount(JsonObject page) {
+		if (page.containsKey("responseInfo")) {
+			JsonObject ri = page.getJsonObject("responseInfo");
+			if (ri.containsKey("totalCount")) {
+				return ri.getInt("totalCount");
+			}
+		} else if (page.containsKey("oslc:responseInfo")) {
+			JsonObject ri = page.getJsonObject("oslc:responseInfo");
+			if (ri.containsKey("oslc:totalCount")) {
+				return ri.getInt("oslc:totalCount");
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Split the query into {@code partitions} disjoint ranges of the numeric key and walk
+	 * every range in parallel, see {@code partitionedScan(String, int, int, Consumer)}.
+	 * 
+	 * @param key numeric attribute such as workorderid or assetuid
+	 * @param partitions
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int partitionedScan(String key, int partitions, Consumer<JsonObject> action)
+			throws IOException, OslcException {
+		return this.partitionedScan(key, partitions, partitions, action);
+	}
+	
+	/**
+	 * Split the query into {@code partitions} disjoint ranges of the numeric key and walk
+	 * at most {@code parallelism} ranges at a time. Members whose key is null fall in no
+	 * range and are skipped.
+	 * 
+	 * @param key numeric attribute such as workorderid or assetuid
+	 * @param partitions
+	 * @param parallelism
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int partitionedScan(String key, int partitions, int parallelism, Consumer<JsonObject> action)
+			throws IOException, OslcException {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("partitions must be at least 1");
+		}
+		return this.scanPartitions(key, partitions, -1, parallelism, action);
+	}
+	
+	/**
+	 * Split the query into ranges of the numeric key holding about {@code partitionSize}
+	 * members each and walk {@code DEFAULT_SCAN_PARALLELISM} ranges at a time.
+	 * 
+	 * @param key numeric attribute such as workorderid or assetuid
+	 * @param partitionSize
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int partitionedScanBySize(String key, int partitionSize, Consumer<JsonObject> action)
+			throws IOException, OslcException {
+		return this.partitionedScanBySize(key, partitionSize, DEFAULT_SCAN_PARALLELISM, action);
+	}
+	
+	/**
+	 * Split the query into ranges of the numeric key holding about {@code partitionSize}
+	 * members each and walk at most {@code parallelism} ranges at a time. Members whose
+	 * key is null fall in no range and are skipped.
+	 * 
+	 * @param key numeric attribute such as workorderid or assetuid
+	 * @param partitionSize
+	 * @param parallelism
+	 * @param action
+	 * @throws IOException
+	 * @throws OslcException
+	 */
+	
+	public int partitionedScanBySize(String key, int partitionSize, int parallelism, Consumer<JsonObject> action)
+			throws IOException, OslcException {
+		if (partitionSize < 1) {
+			throw new IllegalArgumentException("partitionSize must be at least 1");
+		}
+		return this.scanPartitions(key, -1, partitionSize, parallelism, action);
+	}
+	
+	/**
+	 * The count, min and max of the key are probed with a group by. The key range is cut
+	 * into equal ranges and each range is added to the where clause of a copy of this
+	 * ResourceSet. {@code parallelism} workers on the executor of the connector take the
+	 * ranges from a queue and stream them page by page. The ranges do not use offset
+	 * paging against each other, so deep pages stay cheap.
+	 * The members are handed to the action on the calling thread in no particular order.
+	 * Return the number of members.
+	 */
+	
+	private int scanPartitions(String key, int partitions, int partitionSize, int parallelism,
+			Consumer<JsonObject> action) throws IOException, OslcException {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("parallelism must be at least 1");
+		}
+		JsonArray stats = this.mc.groupBy(this.probeURI(key));
+		if (stats == null || stats.isEmpty()) {
+			return 0;
+		}
+		long count = 0;
+		JsonNumber min = null;
+		JsonNumber max = null;
+		for (Map.Entry<String, JsonValue> entry : stats.getJsonObject(0).entrySet()) {
+			if (!(entry.getValue() instanceof JsonNumber)) {
+				continue;
+			}
+			String name = entry.getKey().toLowerCase();
+			if (name.startsWith("min")) {
+				min = (JsonNumber) entry.getValue();
+			} else if (name.startsWith("max")) {
+				max = (JsonNumber) entry.getValue();
+			} else if (name.startsWith("count")) {
+				count = ((JsonNumber) entry.getValue()).longValue();
+			}
+		}
+		if (min == null || max == null) {
+			return 0;
+		}
+		long low = min.longValue();
+		long span = max.longValue() - low + 1;
+		if (partitions < 1) {
+			partitions = (int) Math.max(1, (count + partitionSize - 1) / partitionSize);
+		}
+		partitions = (int) Math.min(partitions, span);
+		long step = (span + partitions - 1) / partitions;
+		
+		final ConcurrentLinkedQueue<ResourceSet> ranges = new ConcurrentLinkedQueue<ResourceSet>();
+		for (long from = low; from <= max.longValue(); from += step) {
+			ResourceSet range = this.copy();
+			try {
+				QueryWhere where = new QueryWhere().where(key).gte(from).and(key).lt(from + step);
+				range.whereClause = (this.whereClause != null ? this.whereClause + " and " : "") + where.whereClause();
+			} catch (Exception e) {
+				throw new OslcException(500, "error building range of " + key, e);
+			}
+			ranges.add(range);
+		}
+		final LinkedBlockingQueue<Object> members = new LinkedBlockingQueue<Object>(PARTITION_QUEUE_SIZE);
+		final Object done = new Object();
+		List<FutureTask<Void>> workers = new ArrayList<FutureTask<Void>>();
+		int running = 0;
+		int total = 0;
+		try {
+			for (int i = Math.min(parallelism, ranges.size()); i > 0; i--) {
+				FutureTask<Void> worker = new FutureTask<Void>(() -> {
+					Object result = done;
+					try {
+						for (ResourceSet range; (range = ranges.poll()) != null;) {
+							range.forEachMember(member -> {
+								try {
+									members.put(member);
+								} catch (InterruptedException e) {
+									Thread.currentThread().interrupt();
+									throw new CancellationException();
+								}
+							});
+						}
+					} catch (CancellationException e) {
+						return;
+					} catch (Throwable t) {
+						result = t;
+					} finally {
+						if (!Thread.currentThread().isInterrupted()) {
+							try {
+								members.put(result);
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+							}
+						}
+					}
+				}, null);
+				workers.add(worker);
+				this.mc.executor().execute(worker);
+				running++;
+			}
+			while (running > 0) {
+				Object next = members.take();
+				if (next == done) {
+					running--;
+				} else if (next instanceof IOException) {
+					throw (IOException) next;
+				} else if (next instanceof OslcException) {
+					throw (OslcException) next;
+				} else if (next instanceof RuntimeException) {
+					throw (RuntimeException) next;
+				} else if (next instanceof Error) {
+					throw (Error) next;
+				} else if (next instanceof Throwable) {
+					throw new OslcException(500, ((Throwable) next).getMessage(), (Throwable) next);
+				} else {
+					action.accept((JsonObject) next);
+					total++;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(e.getMessage());
+		} finally {
+			// the workers still running are blocked on the full queue or on a page
+			ranges.clear();
+			for (FutureTask<Void> worker : workers) {
+				worker.cancel(true);
+			}
+			members.clear();
+		}
+		return total;
+	}
+	
+	/**
+	 * The group by of the count, min and max of the key over the where clause of this
+	 * ResourceSet
+	 */
+	private String probeURI(String key) throws OslcException, UnsupportedEncodingException {
+		String uri = this.buildURI().appURI;
+		return uri + (uri.contains("?") ? "&" : "?") + "gbcols=" + Util.urlEncode("count.*") + ","
+				+ Util.urlEncode("min." + key) + "," + Util.urlEncode("max." + key);
+	}
+	
+	/**
+	 * Update the loaded page after a create, sync or mergeSync according to the write mode.
+	 * Without properties the response holds no more than the uri of the resource, so there
+	 * is nothing to append and the page is marked stale.
+	 */
+	private void written(JsonObject rjo, String... properties) throws IOException, OslcException {
+		if (WRITE_RELOAD.equals(this.writeMode)) {
+			this.reload();
+		} else if (WRITE_APPEND.equals(this.writeMode) && isLoaded && rjo != null && properties.length > 0) {
+			this.append(rjo);
+		} else {
+			isLoaded = false;
+		}
+	}
+	
+	/**
+	 * Put the resource into the loaded page, replacing the member with the same uri
+	 */
+	private void append(JsonObject rjo) {
+		String href = new Resource(rjo).getURI();
+		JsonCodec codec = JsonCodec.of(this.mc);
+		JsonArrayBuilder members = codec.createArrayBuilder();
+		boolean replaced = false;
+		if (this.jsonArray != null) {
+			for (JsonValue member : this.jsonArray) {
+				if (!replaced && href != null && member instanceof JsonObject
+						&& href.equals(new Resource((JsonObject) member).getURI())) {
+					members.add(rjo);
+					replaced = true;
+				} else {
+					members.add(member);
+				}
+			}
+		}
+		if (!replaced) {
+			members.add(rjo);
+		}
+		String key = this.jsonObject.containsKey("rdfs:member") ? "rdfs:member" : "member";
+		JsonObjectBuilder page = codec.createObjectBuilder();
+		for (Map.Entry<String, JsonValue> entry : this.jsonObject.entrySet()) {
+			if (!entry.getKey().equals(key)) {
+				page.add(entry.getKey(), entry.getValue());
+			}
+		}
+		this.page(page.add(key, members).build());
+	}
+	
+	/**
+	 * Copy of the query of this ResourceSet, without the loaded data
+	 */
+	ResourceSet copy() {
+		ResourceSet rs = new ResourceSet(this.osName);
+		rs.mc = this.mc;
+		rs.publicURI = this.publicURI;
+		rs.whereClause = this.whereClause;
+		rs.selectClause = this.selectClause;
+		rs.orderBy = new ArrayList<String>(this.orderBy);
+		rs.savedQuery = this.savedQuery;
+		rs.strbWhere = this.strbWhere;
+		rs.searchTerms = this.searchTerms;
+		rs.searchAttributes = this.searchAttributes;
+		rs.pageSize = this.pageSize;
+		rs.paging = this.paging;
+		rs.stablePaging = this.stablePaging;
+		rs.prefetch = this.prefetch;
+		return rs;
+	}
+	
 	public int configuredPageSize() {
 		return this.pageSize;
 	}
@@ -848,7 +1465,20 @@ public class ResourceSet {
 		return size;
 	}
 	
+	/**
+	 * BulkProcessor writing to the object structure of this set
+	 * 
+	 * @throws IllegalStateException when the uri of the object structure can not be built
+	 */
+	
 	public BulkProcessor bulk(){
+		if (this.osURI == null) {
+			try {
+				this.buildURI();
+			} catch (OslcException e) {
+				throw PageIterator.unchecked(e);
+			}
+		}
 		return new BulkProcessor(this.mc,this.osURI);
 	}
 	
@@ -0,0 +1,96 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 
+ * {@code SessionCookies} holds the session cookies of a {@code MaximoConnector}.
+ * Readers get an immutable snapshot, so requests on many threads can share the
+ * session while a response is refreshing it.
+ *
+ */
+class SessionCookies {
+
+	private final AtomicReference<Map<String, String>> cookies =
+			new AtomicReference<Map<String, String>>(Collections.<String, String>emptyMap());
+
+	/**
+	 * Merge the Set-Cookie header values into the session, only name=value is kept
+	 * @param setCookies
+	 */
+	void update(List<String> setCookies) {
+		Map<String, String> current;
+		Map<String, String> next;
+		do {
+			current = this.cookies.get();
+			next = new LinkedHashMap<String, String>(current);
+			put(next, setCookies);
+		} while (!this.cookies.compareAndSet(current, Collections.unmodifiableMap(next)));
+	}
+
+	/**
+	 * Start a new session with the Set-Cookie header values of a login. The cookies of
+	 * the old session stay in use until then, so requests sent meanwhile keep a session.
+	 * @param setCookies
+	 * @return false, and the session unchanged, when there is no cookie
+	 */
+	boolean replace(List<String> setCookies) {
+		Map<String, String> next = new LinkedHashMap<String, String>();
+		put(next, setCookies);
+		if (next.isEmpty()) {
+			return false;
+		}
+		this.cookies.set(Collections.unmodifiableMap(next));
+		return true;
+	}
+
+	private static void put(Map<String, String> cookies, List<String> setCookies) {
+		for (String setCookie : setCookies) {
+			String pair = setCookie.split(";", 2)[0].trim();
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				cookies.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+			}
+		}
+	}
+
+	void clear() {
+		this.cookies.set(Collections.<String, String>emptyMap());
+	}
+
+	boolean isEmpty() {
+		return this.cookies.get().isEmpty();
+	}
+
+	/**
+	 * Value of the Cookie request header, null if there is no session
+	 */
+	String header() {
+		Map<String, String> snapshot = this.cookies.get();
+		if (snapshot.isEmpty()) {
+			return null;
+		}
+		StringBuilder strb = new StringBuilder();
+		for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+			if (strb.length() > 0) {
+				strb.append("; ");
+			}
+			strb.append(entry.getKey()).append("=").append(entry.getValue());
+		}
+		return strb.toString();
+	}
+}
@@ -0,0 +1,68 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ *
+ * {@code Transport} is the HTTP layer used by {@code MaximoConnector}.
+ * Every request issued by the connector is described by a {@code TransportRequest}
+ * and answered with a {@code TransportResponse}.
+ *
+ * <p>Two implementations are shipped with the client and can be chosen by {@code Options}:</p>
+ * <pre>
+ * <code>
+ * new Options().transport(Options.TRANSPORT_HTTPCLIENT);   //default, pooled java.net.http client
+ * new Options().transport(Options.TRANSPORT_URLCONNECTION); //legacy HttpURLConnection
+ * </code>
+ * </pre>
+ *
+ * <p>A custom implementation can be plugged into the connector directly</p>
+ * <pre>
+ * <code>
+ * MaximoConnector mc = new MaximoConnector(options).transport(myTransport);
+ * </code>
+ * </pre>
+ *
+ */
+public interface Transport {
+
+	/**
+	 * Send the request and return the response once the status line and
+	 * headers are available. The caller must close the response.
+	 *
+	 * @param request
+	 * @throws IOException
+	 */
+	TransportResponse send(TransportRequest request) throws IOException;
+
+	/**
+	 * Send the request without blocking the caller. Transports without non-blocking
+	 * I/O run {@code send} on the given executor, which is what this default
+	 * implementation does.
+	 *
+	 * @param request
+	 * @param executor executor for blocking I/O
+	 */
+	default CompletableFuture<TransportResponse> sendAsync(final TransportRequest request, Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return send(request);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Proxy;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * {@code TransportRequest} describes a single HTTP exchange handed to a {@code Transport}.
+ * Header names are case insensitive, setting a header twice keeps the last value.
+ *
+ * <pre>
+ * <code>
+ * TransportRequest req = new TransportRequest("POST", uri)
+ * .header("Content-Type", "application/json").body(bytes);
+ * </code>
+ * </pre>
+ *
+ * <p>Large bodies can be streamed instead of held in memory, from an input stream of
+ * known length (fixed-length streaming) or unknown length (chunked) or from the
+ * remaining content of a file channel, which transports may send without copying.
+ * Setting a body replaces the previous one.</p>
+ *
+ */
+public class TransportRequest {
+
+	private String method;
+	private String uri;
+	private Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+	private byte[] body;
+	private InputStream bodyStream;
+	private FileChannel bodyChannel;
+	private long bodyLength = -1;
+	private boolean followRedirects = true;
+	private Proxy proxy;
+
+	public TransportRequest(String method, String uri) {
+		this.method = method;
+		this.uri = uri;
+	}
+
+	public TransportRequest method(String method) {
+		this.method = method;
+		return this;
+	}
+
+	public TransportRequest header(String name, String value) {
+		if (value == null) {
+			this.headers.remove(name);
+		} else {
+			this.headers.put(name, value);
+		}
+		return this;
+	}
+
+	public TransportRequest body(byte[] body) {
+		this.body = body;
+		this.bodyStream = null;
+		this.bodyChannel = null;
+		this.bodyLength = body != null ? body.length : -1;
+		return this;
+	}
+
+	/**
+	 * Stream the body from the input stream, which the transport reads to the end
+	 *
+	 * @param body
+	 * @param length the number of bytes, -1 if unknown for a chunked body
+	 */
+	public TransportRequest body(InputStream body, long length) {
+		this.body = null;
+		this.bodyStream = body;
+		this.bodyChannel = null;
+		this.bodyLength = length;
+		return this;
+	}
+
+	/**
+	 * Stream the body from the current position to the end of the file
+	 *
+	 * @param body
+	 * @throws IOException
+	 */
+	public TransportRequest body(FileChannel body) throws IOException {
+		this.body = null;
+		this.bodyStream = null;
+		this.bodyChannel = body;
+		this.bodyLength = body.size() - body.position();
+		return this;
+	}
+
+	public TransportRequest followRedirects(boolean followRedirects) {
+		this.followRedirects = followRedirects;
+		return this;
+	}
+
+	public TransportRequest proxy(Proxy proxy) {
+		this.proxy = proxy;
+		return this;
+	}
+
+	public String getMethod() {
+		return this.method;
+	}
+
+	public String getURI() {
+		return this.uri;
+	}
+
+	public String getHeader(String name) {
+		return this.headers.get(name);
+	}
+
+	public Map<String, String> getHeaders() {
+		return this.headers;
+	}
+
+	/**
+	 * The body held in memory, null if there is none or it is streamed
+	 */
+	public byte[] getBody() {
+		return this.body;
+	}
+
+	public InputStream getBodyStream() {
+		return this.bodyStream;
+	}
+
+	public FileChannel getBodyChannel() {
+		return this.bodyChannel;
+	}
+
+	/**
+	 * The length of the body, -1 if there is no body or its length is unknown
+	 */
+	public long getBodyLength() {
+		return this.bodyLength;
+	}
+
+	public boolean hasBody() {
+		return this.body != null || this.bodyStream != null || this.bodyChannel != null;
+	}
+
+	public boolean isFollowRedirects() {
+		return this.followRedirects;
+	}
+
+	public Proxy getProxy() {
+		return this.proxy;
+	}
+}
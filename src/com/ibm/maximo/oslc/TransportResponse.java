@@ -0,0 +1,98 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *
+ * {@code TransportResponse} is the answer of a {@code Transport}.
+ * The body is exposed as a stream, for status codes of 400 and above it is the error body.
+ *
+ * <p>The response has to be closed so that the underlying connection can go back to the pool.
+ * Closing drains a small unread remainder of the body first, larger remainders are discarded
+ * together with the connection.</p>
+ *
+ */
+public class TransportResponse implements Closeable {
+
+	private static final int DRAIN_LIMIT = 0x10000;
+
+	private int statusCode;
+	private Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+	private InputStream body;
+
+	public TransportResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+		this.statusCode = statusCode;
+		if (headers != null) {
+			for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+				if (entry.getKey() != null) {
+					this.headers.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+	}
+
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Get the first value of the header, null if it is absent
+	 *
+	 * @param name
+	 */
+	public String getHeader(String name) {
+		List<String> values = this.headers.get(name);
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		return values.get(0);
+	}
+
+	public List<String> getHeaders(String name) {
+		List<String> values = this.headers.get(name);
+		if (values == null) {
+			return Collections.emptyList();
+		}
+		return values;
+	}
+
+	public Map<String, List<String>> getHeaderFields() {
+		return this.headers;
+	}
+
+	public InputStream getBody() {
+		return this.body;
+	}
+
+	public void close() throws IOException {
+		try {
+			byte[] buffer = new byte[4096];
+			long drained = 0;
+			for (int len; drained < DRAIN_LIMIT && (len = this.body.read(buffer)) != -1;) {
+				drained += len;
+			}
+		} catch (IOException e) {
+			// the connection is discarded anyway
+		} finally {
+			this.body.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ *
+ * {@code UrlConnectionTransport} is the legacy {@code Transport} built on {@code HttpURLConnection}.
+ * It is kept as a fallback for environments where {@code java.net.http} can not be used.
+ *
+ * <p>Response bodies are drained and closed rather than disconnected so that the
+ * JDK keep-alive cache can reuse the connection.</p>
+ *
+ */
+public class UrlConnectionTransport implements Transport {
+
+	public TransportResponse send(TransportRequest request) throws IOException {
+		URL httpURL = new URL(request.getURI());
+		HttpURLConnection con;
+		if (request.getProxy() != null) {
+			con = (HttpURLConnection) httpURL.openConnection(request.getProxy());
+		} else {
+			con = (HttpURLConnection) httpURL.openConnection();
+		}
+		con.setRequestMethod(request.getMethod());
+		con.setInstanceFollowRedirects(request.isFollowRedirects());
+		con.setUseCaches(false);
+		con.setAllowUserInteraction(false);
+		for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
+			con.setRequestProperty(entry.getKey(), entry.getValue());
+		}
+		if (request.hasBody()) {
+			this.writeBody(con, request);
+		}
+		int resCode = con.getResponseCode();
+		InputStream inStream;
+		if (resCode >= 400 || resCode == -1) {
+			inStream = con.getErrorStream();
+		} else {
+			inStream = con.getInputStream();
+		}
+		return new TransportResponse(resCode, con.getHeaderFields(), inStream);
+	}
+
+	/**
+	 * Stream the body, with a fixed length when it is known and chunked otherwise.
+	 * A file channel is transferred straight to the connection.
+	 */
+	private void writeBody(HttpURLConnection con, TransportRequest request) throws IOException {
+		con.setDoOutput(true);
+		long length = request.getBodyLength();
+		if (length >= 0) {
+			con.setFixedLengthStreamingMode(length);
+		} else {
+			con.setChunkedStreamingMode(BufferPool.BUFFER_SIZE);
+		}
+		try (OutputStream out = con.getOutputStream()) {
+			if (request.getBody() != null) {
+				out.write(request.getBody());
+			} else if (request.getBodyChannel() != null) {
+				FileChannel channel = request.getBodyChannel();
+				WritableByteChannel target = Channels.newChannel(out);
+				long position = channel.position();
+				for (long end = position + length; position < end;) {
+					long n = channel.transferTo(position, end - position, target);
+					if (n <= 0) {
+						throw new EOFException("The file ended before " + length + " bytes were sent");
+					}
+					position += n;
+				}
+			} else {
+				BufferPool.copy(request.getBodyStream(), out);
+			}
+			out.flush();
+		}
+	}
+}
@@ -24,7 +24,6 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
 
-import javax.json.Json;
 import javax.json.JsonArray;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
@@ -62,7 +61,7 @@ public class Util {
 	public static JsonArray readFile2JsonArray(String filePath) throws FileNotFoundException{
 		File file = new File(filePath);
 	    FileInputStream fis = new FileInputStream(file);
-		JsonReader rdr = Json.createReader(fis);
+		JsonReader rdr = JsonCodec.getDefault().createReader(fis);
 		JsonArray jar = rdr.readArray();
 		return jar;
 	}
@@ -70,7 +69,7 @@ public class Util {
 	public static JsonObject readFile2JsonObject(String filePath) throws FileNotFoundException{
 		File file = new File(filePath);
 	    FileInputStream fis = new FileInputStream(file);
-		JsonReader rdr = Json.createReader(fis);
+		JsonReader rdr = JsonCodec.getDefault().createReader(fis);
 		JsonObject job = rdr.readObject();
 		return job;
 	}
@@ -0,0 +1,186 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttachmentDownloaderTest {
+
+	private static final String OS = "http://localhost:80/maximo/oslc/os/mxwo";
+	private static final int ORDERS = 6;
+
+	/**
+	 * Serves work orders with three documents each: one described in the listing, one
+	 * whose name is only in its metadata and one that fails
+	 */
+	private static class DoclinksTransport extends MemoryTransport {
+
+		final AtomicInteger downloading = new AtomicInteger();
+		final AtomicInteger peak = new AtomicInteger();
+		final AtomicInteger metas = new AtomicInteger();
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			String uri = request.getURI();
+			String path = uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri;
+			if (path.equals(OS)) {
+				StringBuilder page = new StringBuilder("{\"member\":[");
+				for (int i = 0; i < ORDERS; i++) {
+					page.append(i > 0 ? "," : "").append("{\"href\":\"").append(OS).append("/").append(i)
+							.append("\",\"doclinks\":{\"href\":\"").append(OS).append("/").append(i)
+							.append("/doclinks\"}}");
+				}
+				return response(200, page.append("],\"responseInfo\":{}}").toString());
+			}
+			if (path.endsWith("/doclinks")) {
+				return response(200, "{\"member\":[{\"href\":\"" + path + "/1\",\"describedBy\":"
+						+ "{\"fileName\":\"report.pdf\"}},{\"href\":\"" + path + "/2\"},{\"href\":\"" + path
+						+ "/fail\",\"describedBy\":{\"fileName\":\"lost.pdf\"}}]}");
+			}
+			if (path.contains("/doclinks/meta/")) {
+				metas.incrementAndGet();
+				return response(200, "{\"title\":\"Photo\",\"description\":\"Pump\",\"urlType\":\"FILE\","
+						+ "\"fileName\":\"C:\\\\docs\\\\photo 1.jpg\"}");
+			}
+			if (path.endsWith("/fail")) {
+				return response(500, "{\"Error\":{\"message\":\"gone\"}}");
+			}
+			peak.accumulateAndGet(downloading.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				downloading.decrementAndGet();
+			}
+			return response(200, path);
+		}
+	}
+
+	private Path directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = Files.createTempDirectory("archive");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void downloadsEveryDocumentInParallelAndReportsEachFile() throws Exception {
+		DoclinksTransport transport = new DoclinksTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		final Map<String, Path> downloaded = new ConcurrentHashMap<String, Path>();
+		final Map<String, Throwable> failed = new ConcurrentHashMap<String, Throwable>();
+		long written = new AttachmentDownloader(mc, directory).parallelism(3).listener(new DownloadListener() {
+			public void onDownloaded(String uri, Path file, long bytes) {
+				downloaded.put(uri, file);
+			}
+
+			public void onFailure(String uri, Throwable cause) {
+				failed.put(uri, cause);
+			}
+		}).download(mc.resourceSet("mxwo"));
+
+		assertEquals(2 * ORDERS, written);
+		assertEquals(2 * ORDERS, downloaded.size());
+		assertEquals(ORDERS, failed.size());
+		assertEquals(ORDERS, transport.metas.get());
+		assertTrue("downloads did not overlap", transport.peak.get() > 1);
+		assertTrue(transport.peak.get() <= 3);
+
+		Path report = directory.resolve("0").resolve("1-report.pdf");
+		assertEquals(OS + "/0/doclinks/1", new String(Files.readAllBytes(report), "UTF-8"));
+		assertTrue(Files.exists(directory.resolve("5").resolve("2-photo_1.jpg")));
+		assertTrue(Files.notExists(directory.resolve("3").resolve("fail-lost.pdf")));
+	}
+
+	@Test(expected = OslcException.class)
+	public void theFirstFailureIsThrownWithoutListener() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(new DoclinksTransport());
+		new AttachmentDownloader(mc, directory).download(
+				Collections.singletonList(new AttachmentSet(OS + "/1/doclinks", mc)));
+	}
+
+	@Test
+	public void aListenerThatThrowsDoesNotStopTheWorkers() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(new DoclinksTransport());
+		// the warnings are captured instead of being printed with the test output
+		final List<LogRecord> warnings = new CopyOnWriteArrayList<LogRecord>();
+		Handler capture = new Handler() {
+			public void publish(LogRecord record) {
+				warnings.add(record);
+			}
+
+			public void flush() {
+			}
+
+			public void close() {
+			}
+		};
+		Logger logger = AttachmentDownloader.logger;
+		boolean parentHandlers = logger.getUseParentHandlers();
+		logger.addHandler(capture);
+		logger.setUseParentHandlers(false);
+		long written;
+		try {
+			written = new AttachmentDownloader(mc, directory).parallelism(1).listener(new DownloadListener() {
+				public void onDownloaded(String uri, Path file, long bytes) {
+					throw new IllegalStateException("listener");
+				}
+
+				public void onFailure(String uri, Throwable cause) {
+					throw new IllegalStateException("listener");
+				}
+			}).download(mc.resourceSet("mxwo"));
+		} finally {
+			logger.removeHandler(capture);
+			logger.setUseParentHandlers(parentHandlers);
+		}
+		assertEquals(2 * ORDERS, written);
+		assertEquals(3 * ORDERS, warnings.size());
+		int onFailure = 0;
+		for (LogRecord record : warnings) {
+			assertEquals(Level.WARNING, record.getLevel());
+			assertTrue(record.getMessage(), record.getMessage().startsWith("The listener failed on "));
+			assertEquals("listener", record.getThrown().getMessage());
+			if (record.getMessage().startsWith("The listener failed on the failure of ")) {
+				onFailure++;
+			}
+		}
+		assertEquals(ORDERS, onFailure);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AttachmentStreamTest {
+
+	private static final String DOC = "http://localhost/maximo/oslc/os/mxasset/1/doclinks/7";
+	private static final int SIZE = 3 * 1024 * 1024 + 17;
+
+	/**
+	 * Generates the document on the fly and counts the bodies that are closed
+	 */
+	private static class DocTransport extends MemoryTransport {
+
+		final AtomicInteger closed = new AtomicInteger();
+
+		protected TransportResponse answer(TransportRequest request) {
+			return new TransportResponse(200, session(), new InputStream() {
+				int position = 0;
+
+				public int read() {
+					return position < SIZE ? byteAt(position++) : -1;
+				}
+
+				public void close() {
+					closed.incrementAndGet();
+				}
+			});
+		}
+	}
+
+	private static int byteAt(int position) {
+		return (position * 31) & 0xFF;
+	}
+
+	@Test
+	public void writeToStreamsWithoutKeepingTheDocument() throws Exception {
+		DocTransport transport = new DocTransport();
+		Attachment att = new Attachment(DOC, MemoryTransport.connect(transport));
+		final AtomicInteger mismatches = new AtomicInteger();
+		OutputStream check = new OutputStream() {
+			int position = 0;
+
+			public void write(int b) {
+				if ((b & 0xFF) != byteAt(position++)) {
+					mismatches.incrementAndGet();
+				}
+			}
+		};
+		assertEquals(SIZE, att.writeTo(check));
+		assertEquals(0, mismatches.get());
+		assertEquals(1, transport.closed.get());
+	}
+
+	@Test
+	public void downloadToWritesTheFile() throws Exception {
+		DocTransport transport = new DocTransport();
+		Attachment att = new Attachment(DOC, MemoryTransport.connect(transport));
+		Path file = Files.createTempFile("doc", ".bin");
+		try {
+			Files.write(file, new byte[SIZE * 2]);
+			assertEquals(SIZE, att.downloadTo(file));
+			byte[] written = Files.readAllBytes(file);
+			assertEquals(SIZE, written.length);
+			for (int i = 0; i < SIZE; i += 4099) {
+				assertEquals((byte) byteAt(i), written[i]);
+			}
+			assertEquals(1, transport.closed.get());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void openChannelReadsTheDocumentAndReleasesTheConnection() throws Exception {
+		DocTransport transport = new DocTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		ByteArrayOutputStream all = new ByteArrayOutputStream();
+		try (ReadableByteChannel channel = new Attachment(DOC, mc).openChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocate(8192);
+			while (channel.read(buffer) != -1) {
+				all.write(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+		}
+		assertEquals(1, transport.closed.get());
+		assertArrayEquals(mc.getAttachmentData(DOC), all.toByteArray());
+	}
+}
@@ -0,0 +1,172 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.json.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Uploads documents to a local stub server through both transports and checks how the
+ * body was framed on the wire
+ */
+public class AttachmentUploadTest {
+
+	private HttpServer server;
+	private volatile byte[] received;
+	private volatile String contentLength;
+	private volatile String transferEncoding;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/maximo/oslc", ex -> {
+			byte[] body = ex.getRequestBody().readAllBytes();
+			if (ex.getRequestURI().getPath().endsWith("/moved")) {
+				ex.getResponseHeaders().add("Location", ex.getRequestURI().getPath().replace("/moved", ""));
+				ex.sendResponseHeaders(307, -1);
+			} else if (ex.getRequestURI().getPath().equals("/maximo/oslc")) {
+				ex.getResponseHeaders().add("Set-Cookie", "JSESSIONID=stub; Path=/");
+				ex.sendResponseHeaders(200, -1);
+			} else if ("GET".equals(ex.getRequestMethod())) {
+				byte[] page = "{\"member\":[]}".getBytes("UTF-8");
+				ex.sendResponseHeaders(200, page.length);
+				ex.getResponseBody().write(page);
+			} else {
+				received = body;
+				contentLength = ex.getRequestHeaders().getFirst("Content-Length");
+				transferEncoding = ex.getRequestHeaders().getFirst("Transfer-Encoding");
+				ex.getResponseHeaders().add("Location", "http://localhost/maximo/oslc/os/mxasset/1/doclinks/9");
+				ex.sendResponseHeaders(201, -1);
+			}
+			ex.close();
+		});
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	private MaximoConnector connector(String transport) throws IOException, OslcException {
+		return MemoryTransport.connect(MemoryTransport.options().port(server.getAddress().getPort())
+				.transport(transport));
+	}
+
+	private static byte[] document(int size) {
+		byte[] doc = new byte[size];
+		new Random(size).nextBytes(doc);
+		return doc;
+	}
+
+	@Test
+	public void uploadsWithHttpClient() throws Exception {
+		this.upload(Options.TRANSPORT_HTTPCLIENT);
+	}
+
+	@Test
+	public void uploadsWithUrlConnection() throws Exception {
+		this.upload(Options.TRANSPORT_URLCONNECTION);
+	}
+
+	private void upload(String transport) throws Exception {
+		MaximoConnector mc = this.connector(transport);
+		String uri = mc.getCurrentURI() + "/os/mxasset/1/doclinks";
+		byte[] doc = document(1024 * 1024 + 3);
+
+		Path file = Files.createTempFile("upload", ".bin");
+		try {
+			Files.write(file, doc);
+			JsonObject created = mc.createAttachment(uri, file, "drawing.pdf", "Drawing", "FILE", null);
+			assertEquals("http://localhost/maximo/oslc/os/mxasset/1/doclinks/9", created.getString("rdf:resource"));
+			assertArrayEquals(doc, received);
+			assertEquals(String.valueOf(doc.length), contentLength);
+		} finally {
+			Files.delete(file);
+		}
+
+		InputStream unknownLength = new ByteArrayInputStream(doc);
+		new AttachmentSet(uri, mc).create(new Attachment().name("drawing.pdf").description("Drawing")
+				.meta("FILE", "Attachments").data(unknownLength, -1));
+		assertArrayEquals(doc, received);
+		assertNull(contentLength);
+		assertEquals("chunked", transferEncoding);
+
+		mc.createAttachment(uri, new ByteArrayInputStream(doc), doc.length, "drawing.pdf", "Drawing", "FILE", null);
+		assertEquals(String.valueOf(doc.length), contentLength);
+	}
+
+	@Test
+	public void aStreamedBodyIsNotResentOnARedirect() throws Exception {
+		MaximoConnector mc = this.connector(Options.TRANSPORT_HTTPCLIENT);
+		String uri = mc.getCurrentURI() + "/os/mxasset/1/doclinks";
+		byte[] doc = document(4096);
+		received = null;
+		try {
+			mc.createAttachment(uri + "/moved", new ByteArrayInputStream(doc), doc.length, "drawing.pdf", "Drawing",
+					"FILE", null);
+			fail();
+		} catch (IOException e) {
+			assertNull(received);
+		}
+		Path file = Files.createTempFile("upload", ".bin");
+		try {
+			Files.write(file, doc);
+			mc.createAttachment(uri + "/moved", file, "drawing.pdf", "Drawing", "FILE", null);
+			assertArrayEquals(doc, received);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void aLocalDocumentIsReadFromItsFile() throws Exception {
+		byte[] doc = document(4096);
+		Path file = Files.createTempFile("upload", ".bin");
+		try {
+			Files.write(file, doc);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			assertEquals(doc.length, new Attachment().data(file).writeTo(out));
+			assertArrayEquals(doc, out.toByteArray());
+			try (InputStream in = Channels.newInputStream(new Attachment().data(file).openChannel())) {
+				assertArrayEquals(doc, in.readAllBytes());
+			}
+		} finally {
+			Files.delete(file);
+		}
+		try {
+			new Attachment().data(new ByteArrayInputStream(doc), doc.length).writeTo(new ByteArrayOutputStream());
+			fail();
+		} catch (IllegalStateException e) {
+			// a stream is only read by the upload
+		}
+	}
+}
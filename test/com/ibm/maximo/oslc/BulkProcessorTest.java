@@ -0,0 +1,183 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class BulkProcessorTest {
+
+	/**
+	 * Answers bulk requests by echoing the assetnum of every entry, with a delay
+	 */
+	private static class BulkTransport extends MemoryTransport {
+
+		final List<Integer> chunkSizes = new CopyOnWriteArrayList<Integer>();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger peakInFlight = new AtomicInteger();
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			assertEquals("BULK", request.getHeader("x-method-override"));
+			peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(30);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			JsonArray chunk = Json.createReader(new ByteArrayInputStream(request.getBody())).readArray();
+			chunkSizes.add(chunk.size());
+			JsonArrayBuilder response = Json.createArrayBuilder();
+			for (int i = 0; i < chunk.size(); i++) {
+				String assetnum = chunk.getJsonObject(i).getJsonObject("_data").getString("assetnum");
+				response.add(Json.createObjectBuilder().add("_responsedata",
+						Json.createObjectBuilder().add("assetnum", assetnum)));
+			}
+			return response(200, response.build().toString());
+		}
+	}
+
+	private static JsonObject asset(int i) {
+		return Json.createObjectBuilder().add("assetnum", "A" + i).build();
+	}
+
+	@Test
+	public void chunksBySizeInParallelAndMapsResponsesToItems() throws Exception {
+		BulkTransport transport = new BulkTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		final Map<String, String> answered = new ConcurrentHashMap<String, String>();
+		try (BulkProcessor bp = mc.resourceSet("mxasset").bulk().maxItems(10).concurrency(3)
+				.listener(new BulkListener() {
+					public void onResponse(JsonObject item, JsonObject response) {
+						answered.put(item.getJsonObject("_data").getString("assetnum"),
+								response.getJsonObject("_responsedata").getString("assetnum"));
+					}
+
+					public void onFailure(List<JsonObject> items, Throwable cause) {
+						throw new AssertionError(cause);
+					}
+				})) {
+			for (int i = 0; i < 65; i++) {
+				bp.create(asset(i));
+			}
+		}
+		assertEquals(65, answered.size());
+		for (Map.Entry<String, String> entry : answered.entrySet()) {
+			assertEquals(entry.getKey(), entry.getValue());
+		}
+		assertEquals(7, transport.chunkSizes.size());
+		assertTrue(transport.chunkSizes.contains(5));
+		assertTrue("chunks were not sent in parallel", transport.peakInFlight.get() > 1);
+		assertTrue(transport.peakInFlight.get() <= 3);
+	}
+
+	@Test
+	public void chunksByBytesSendTheMeasuredOperations() throws Exception {
+		BulkTransport transport = new BulkTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		final List<String> answered = new CopyOnWriteArrayList<String>();
+		// {"_data":{"assetnum":"A0"}} and its comma are 28 bytes, 4 of them reach 100
+		try (BulkProcessor bp = mc.resourceSet("mxasset").bulk().maxBytes(100).listener(new BulkListener() {
+			public void onResponse(JsonObject item, JsonObject response) {
+				assertEquals(item.getJsonObject("_data").getString("assetnum"),
+						response.getJsonObject("_responsedata").getString("assetnum"));
+				answered.add(item.getJsonObject("_data").getString("assetnum"));
+			}
+
+			public void onFailure(List<JsonObject> items, Throwable cause) {
+				throw new AssertionError(cause);
+			}
+		})) {
+			for (int i = 0; i < 10; i++) {
+				bp.create(asset(i));
+			}
+		}
+		assertEquals(Arrays.asList(4, 4, 2), transport.chunkSizes);
+		assertEquals(10, answered.size());
+	}
+
+	@Test
+	public void flushesOnTheIntervalAndOnClose() throws Exception {
+		BulkTransport transport = new BulkTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		BulkProcessor bp = mc.resourceSet("mxasset").bulk().flushInterval(50);
+		bp.create(asset(1)).create(asset(2));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (transport.chunkSizes.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(Collections.singletonList(2), transport.chunkSizes);
+		bp.create(asset(3));
+		bp.close();
+		assertEquals(3, transport.chunkSizes.stream().mapToInt(Integer::intValue).sum());
+	}
+
+	@Test
+	public void processBulkStillSendsEverythingAtOnce() throws Exception {
+		BulkTransport transport = new BulkTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		JsonArray response = mc.resourceSet("mxasset").bulk().create(asset(1)).create(asset(2)).create(asset(3))
+				.processBulk();
+		assertEquals(3, response.size());
+		assertEquals(Collections.singletonList(3), transport.chunkSizes);
+	}
+
+	@Test
+	public void theConcurrencyIsFixedOnceStartedAndClosedProcessorsRejectOperations() throws Exception {
+		BulkTransport transport = new BulkTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		BulkProcessor bp = mc.resourceSet("mxasset").bulk().maxItems(10).concurrency(2);
+		bp.create(asset(1));
+		try {
+			bp.concurrency(4);
+			fail();
+		} catch (IllegalStateException e) {
+			// the semaphore is sized by the first operation
+		}
+		bp.close();
+		assertEquals(Collections.singletonList(1), transport.chunkSizes);
+		try {
+			bp.create(asset(2));
+			fail();
+		} catch (IllegalStateException e) {
+			// closed
+		}
+	}
+
+	@Test
+	public void aSetWithoutUriHasNoBulkProcessor() throws Exception {
+		try {
+			new ResourceSet(MemoryTransport.connect(new BulkTransport())).bulk();
+			fail();
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof OslcException);
+		}
+	}
+}
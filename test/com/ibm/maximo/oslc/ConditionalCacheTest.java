@@ -0,0 +1,117 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class ConditionalCacheTest {
+
+	/**
+	 * Serves assets tagged with a version, answering 304 when the client has that version
+	 */
+	private static class EtagTransport extends MemoryTransport {
+
+		final AtomicInteger full = new AtomicInteger();
+		final AtomicInteger notModified = new AtomicInteger();
+		volatile int version = 1;
+		// cleared while a conditional request is in flight
+		volatile ConditionalCache evict;
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			Map<String, List<String>> headers = session();
+			String etag = "\"" + version + "\"";
+			headers.put("ETag", Collections.singletonList(etag));
+			if (etag.equals(request.getHeader("If-None-Match"))) {
+				if (evict != null) {
+					evict.clear();
+				}
+				notModified.incrementAndGet();
+				return new TransportResponse(304, headers, null);
+			}
+			full.incrementAndGet();
+			return response(200, headers, "{\"href\":\"" + request.getURI() + "\",\"version\":" + version + "}");
+		}
+	}
+
+	private static MaximoConnector connector(Transport transport, int entries, long bytes)
+			throws IOException, OslcException {
+		return MemoryTransport.connect(MemoryTransport.options().conditionalCache(entries, bytes), transport);
+	}
+
+	@Test
+	public void reloadIsAnsweredFromTheCacheOnNotModified() throws Exception {
+		EtagTransport transport = new EtagTransport();
+		MaximoConnector mc = connector(transport, 10, 0);
+		String uri = "http://localhost/maximo/oslc/os/mxasset/1";
+		JsonObject first = mc.get(uri);
+		JsonObject second = mc.resource(uri).reload().toJSON();
+		assertSame(first, second);
+		assertEquals(1, transport.full.get());
+		assertEquals(2, transport.notModified.get());
+
+		transport.version = 2;
+		assertEquals(2, mc.get(uri).getInt("version"));
+		assertEquals(2, transport.full.get());
+	}
+
+	@Test
+	public void entriesAreBoundedByCountAndSize() throws Exception {
+		EtagTransport transport = new EtagTransport();
+		MaximoConnector mc = connector(transport, 2, 0);
+		for (int i = 0; i < 3; i++) {
+			mc.get("http://localhost/maximo/oslc/os/mxasset/" + i);
+		}
+		assertEquals(2, mc.getConditionalCache().size());
+		mc.get("http://localhost/maximo/oslc/os/mxasset/0");
+		assertEquals(4, transport.full.get());
+
+		MaximoConnector small = connector(new EtagTransport(), 10, 100);
+		for (int i = 0; i < 5; i++) {
+			small.get("http://localhost/maximo/oslc/os/mxasset/" + i);
+		}
+		assertEquals(1, small.getConditionalCache().size());
+	}
+
+	@Test
+	public void disabledByDefault() throws Exception {
+		EtagTransport transport = new EtagTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		mc.get("http://localhost/maximo/oslc/os/mxasset/1");
+		mc.get("http://localhost/maximo/oslc/os/mxasset/1");
+		assertNull(mc.getConditionalCache());
+		assertEquals(2, transport.full.get());
+	}
+
+	@Test
+	public void notModifiedAfterAnEvictionIsSentAgainUnconditionally() throws Exception {
+		EtagTransport transport = new EtagTransport();
+		MaximoConnector mc = connector(transport, 10, 0);
+		String uri = "http://localhost/maximo/oslc/os/mxasset/1";
+		mc.get(uri);
+		transport.evict = mc.getConditionalCache();
+		assertEquals(1, mc.get(uri).getInt("version"));
+		assertEquals(1, mc.getAsync(uri).get().getInt("version"));
+		assertEquals(3, transport.full.get());
+		assertEquals(2, transport.notModified.get());
+	}
+}
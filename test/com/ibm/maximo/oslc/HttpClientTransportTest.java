@@ -0,0 +1,49 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class HttpClientTransportTest {
+
+	@Test
+	public void theLoginGoesThroughASocksProxy() throws Exception {
+		try (ServerSocket proxy = new ServerSocket(0)) {
+			// reads the version of the SOCKS greeting, then drops the connection
+			CompletableFuture<Integer> greeting = CompletableFuture.supplyAsync(() -> {
+				try (Socket client = proxy.accept()) {
+					return client.getInputStream().read();
+				} catch (IOException e) {
+					return -1;
+				}
+			});
+			MaximoConnector mc = new MaximoConnector(MemoryTransport.options().host("maximo.invalid"));
+			try {
+				mc.connect(new Proxy(Proxy.Type.SOCKS, new InetSocketAddress("localhost", proxy.getLocalPort())));
+				fail();
+			} catch (IOException e) {
+				// the stub proxy does not complete the handshake
+			}
+			assertEquals(5, (int) greeting.get(10, TimeUnit.SECONDS));
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stress test for a {@code MaximoConnector} shared by many threads against a local stub server.
+ * The stub answers every resource after a fixed delay, so requests that are serialized by the
+ * connector show up as a low peak of concurrent requests on the server side.
+ */
+public class MaximoConnectorConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int REQUESTS_PER_THREAD = 25;
+	private static final long LATENCY_MILLIS = 20;
+
+	private HttpServer server;
+	private ExecutorService serverPool;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private final AtomicInteger logins = new AtomicInteger();
+	private final AtomicInteger gets = new AtomicInteger();
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/maximo/oslc", new HttpHandler() {
+			public void handle(HttpExchange ex) throws IOException {
+				stub(ex);
+			}
+		});
+		serverPool = Executors.newFixedThreadPool(THREADS * 2);
+		server.setExecutor(serverPool);
+		server.start();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+		serverPool.shutdownNow();
+	}
+
+	private void stub(HttpExchange ex) throws IOException {
+		String path = ex.getRequestURI().getPath();
+		ex.getRequestBody().readAllBytes();
+		if (path.equals("/maximo/oslc")) {
+			logins.incrementAndGet();
+			ex.getResponseHeaders().add("Set-Cookie", "JSESSIONID=stub" + logins.get() + "; Path=/; HttpOnly");
+			send(ex, 200, "{}");
+			return;
+		}
+		String cookie = ex.getRequestHeaders().getFirst("Cookie");
+		if (cookie == null || !cookie.startsWith("JSESSIONID=stub")) {
+			send(ex, 401, "{\"Error\":{\"message\":\"no session\"}}");
+			return;
+		}
+		int now = inFlight.incrementAndGet();
+		peakInFlight.accumulateAndGet(now, Math::max);
+		try {
+			Thread.sleep(LATENCY_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			inFlight.decrementAndGet();
+		}
+		String id = path.substring(path.lastIndexOf('/') + 1);
+		if ("PATCH".equals(ex.getRequestHeaders().getFirst("x-method-override"))) {
+			// odd ids answer without content, even ids with the resource
+			if (Integer.parseInt(id) % 2 == 1) {
+				send(ex, 204, null);
+			} else {
+				send(ex, 200, "{\"id\":\"" + id + "\",\"status\":\"APPR\"}");
+			}
+			return;
+		}
+		gets.incrementAndGet();
+		if (id.equals("fail")) {
+			send(ex, 500, "{\"Error\":{\"message\":\"failed\"}}");
+			return;
+		}
+		if (id.equals("gateway")) {
+			byte[] page = "<html><body>Bad Gateway</body></html>".getBytes("UTF-8");
+			ex.getResponseHeaders().add("Content-Type", "text/html");
+			ex.sendResponseHeaders(502, page.length);
+			ex.getResponseBody().write(page);
+			ex.close();
+			return;
+		}
+		send(ex, 200, "{\"id\":\"" + id + "\",\"href\":\"" + ex.getRequestURI() + "\"}");
+	}
+
+	private static void send(HttpExchange ex, int code, String body) throws IOException {
+		if (body == null) {
+			ex.sendResponseHeaders(code, -1);
+			ex.close();
+			return;
+		}
+		byte[] bytes = body.getBytes("UTF-8");
+		ex.getResponseHeaders().add("Content-Type", "application/json");
+		ex.sendResponseHeaders(code, bytes.length);
+		OutputStream out = ex.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	private Options options() {
+		return MemoryTransport.options().port(server.getAddress().getPort());
+	}
+
+	private MaximoConnector connector(String transport) throws IOException, OslcException {
+		return MemoryTransport.connect(this.options().transport(transport));
+	}
+
+	@Test
+	public void sharedConnectorRunsRequestsInParallelWithHttpClient() throws Exception {
+		this.runStress(Options.TRANSPORT_HTTPCLIENT);
+	}
+
+	@Test
+	public void sharedConnectorRunsRequestsInParallelWithUrlConnection() throws Exception {
+		this.runStress(Options.TRANSPORT_URLCONNECTION);
+	}
+
+	@Test
+	public void asyncRequestsParseOnTheParseExecutor() throws Exception {
+		final List<String> parseThreads = new ArrayList<String>();
+		ExecutorService parser = Executors.newSingleThreadExecutor(r -> new Thread(r, "parser"));
+		try {
+			MaximoConnector mc = MemoryTransport.connect(this.options().parseExecutor(r -> parser.execute(() -> {
+				parseThreads.add(Thread.currentThread().getName());
+				r.run();
+			})));
+			String base = mc.getCurrentURI() + "/os/mxasset/";
+			List<CompletableFuture<JsonObject>> gets = new ArrayList<CompletableFuture<JsonObject>>();
+			for (int i = 0; i < THREADS; i++) {
+				gets.add(mc.getAsync(base + i));
+			}
+			for (int i = 0; i < THREADS; i++) {
+				assertEquals(String.valueOf(i), gets.get(i).get().getString("id"));
+			}
+			JsonObject patch = Json.createObjectBuilder().add("status", "APPR").build();
+			assertNull(mc.updateAsync(base + "1", patch).get());
+			assertEquals("2", mc.updateAsync(base + "2", patch).get().getString("id"));
+			assertEquals(THREADS + 2, parseThreads.size());
+			assertTrue(peakInFlight.get() > 1);
+		} finally {
+			parser.shutdownNow();
+		}
+	}
+
+	@Test
+	public void identicalConcurrentGetsShareOneExchange() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(this.options().coalesce(true));
+		final String base = mc.getCurrentURI() + "/os/mxasset/";
+		List<JsonObject> shared = this.getConcurrently(() -> mc.get(base + "7"));
+		assertTrue("gets were not coalesced: " + gets.get(), gets.get() < THREADS / 2);
+		for (JsonObject jo : shared) {
+			assertSame(shared.get(0), jo);
+		}
+
+		gets.set(0);
+		this.getConcurrently(() -> mc.get(base + "7", null, false));
+		assertEquals(THREADS, gets.get());
+
+		final AtomicInteger failed = new AtomicInteger();
+		this.getConcurrently(() -> {
+			try {
+				return mc.get(base + "fail");
+			} catch (OslcException e) {
+				failed.incrementAndGet();
+				return null;
+			}
+		});
+		assertEquals(THREADS, failed.get());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void coalescedCallersGetTheirOwnFutureAndStatus() throws Exception {
+		final MaximoConnector mc = MemoryTransport.connect(this.options().coalesce(true));
+		String uri = mc.getCurrentURI() + "/os/mxasset/9";
+		CompletableFuture<JsonObject> cancelled = mc.getAsync(uri);
+		CompletableFuture<JsonObject> kept = mc.getAsync(uri);
+		cancelled.cancel(false);
+		assertEquals("9", kept.get().getString("id"));
+
+		List<JsonObject> shared = this.getConcurrently(() -> {
+			JsonObject jo = mc.get(uri);
+			assertEquals(200, mc.getLastResponseCode());
+			return jo;
+		});
+		assertEquals(THREADS, shared.size());
+	}
+
+	@Test
+	public void errorPagesThatAreNotJsonKeepTheStatus() throws Exception {
+		for (String transport : new String[] { Options.TRANSPORT_HTTPCLIENT, Options.TRANSPORT_URLCONNECTION }) {
+			MaximoConnector mc = this.connector(transport);
+			try {
+				mc.get(mc.getCurrentURI() + "/os/mxasset/gateway");
+				fail();
+			} catch (OslcException e) {
+				assertEquals(502, e.getErrorCode());
+				assertEquals("<html><body>Bad Gateway</body></html>", e.getMessage());
+			}
+			try {
+				mc.get(mc.getCurrentURI() + "/os/mxasset/fail");
+				fail();
+			} catch (OslcException e) {
+				assertEquals(500, e.getErrorCode());
+				assertEquals("failed", e.getMessage());
+			}
+		}
+	}
+
+	private List<JsonObject> getConcurrently(final Callable<JsonObject> get) throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<JsonObject>> results = new ArrayList<Future<JsonObject>>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(clients.submit(() -> {
+					start.await();
+					return get.call();
+				}));
+			}
+			start.countDown();
+			List<JsonObject> all = new ArrayList<JsonObject>();
+			for (Future<JsonObject> result : results) {
+				all.add(result.get());
+			}
+			return all;
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+
+	private void runStress(String transport) throws Exception {
+		final MaximoConnector mc = this.connector(transport);
+		final String base = mc.getCurrentURI() + "/os/mxasset/";
+		ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for (int t = 0; t < THREADS; t++) {
+				final int thread = t;
+				results.add(clients.submit(new Callable<Integer>() {
+					public Integer call() throws Exception {
+						for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+							String id = String.valueOf(thread * REQUESTS_PER_THREAD + i);
+							JsonObject jo = mc.get(base + id);
+							assertEquals(id, jo.getString("id"));
+
+							JsonObject patch = Json.createObjectBuilder().add("status", "APPR").build();
+							OslcResponse res = mc.request(MaximoConnector.HTTP_METHOD_PATCH, base + id, patch, null);
+							if (Integer.parseInt(id) % 2 == 1) {
+								assertEquals(204, res.getStatusCode());
+								assertNull(res.toJSON());
+							} else {
+								assertEquals(200, res.getStatusCode());
+								assertEquals(id, res.toJSON().getString("id"));
+							}
+						}
+						return REQUESTS_PER_THREAD;
+					}
+				}));
+			}
+			int done = 0;
+			for (Future<Integer> result : results) {
+				done += result.get();
+			}
+			assertEquals(THREADS * REQUESTS_PER_THREAD, done);
+		} finally {
+			clients.shutdownNow();
+		}
+		assertEquals(1, logins.get());
+		assertTrue("requests were serialized, peak in flight " + peakInFlight.get(), peakInFlight.get() > THREADS / 2);
+	}
+}
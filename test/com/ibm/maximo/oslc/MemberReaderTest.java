@@ -0,0 +1,76 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class MemberReaderTest {
+
+	private static MemberReader reader(String json) throws IOException {
+		return new MemberReader(new TransportResponse(200, null, new ByteArrayInputStream(json.getBytes("UTF-8"))),
+				JsonCodec.getDefault());
+	}
+
+	@Test
+	public void readsMembersAndTheTrailingResponseInfo() throws IOException {
+		MemberReader reader = reader("{\"member\":[{\"assetnum\":\"A1\",\"qty\":1.5,\"children\":[{\"n\":1},null,true]},"
+				+ "{\"assetnum\":\"A2\",\"spare\":false}],\"href\":\"http://host/os/mxasset\","
+				+ "\"responseInfo\":{\"totalCount\":5,\"nextPage\":{\"href\":\"http://host/os/mxasset?pageno=2\"}}}");
+		try {
+			JsonObject first = reader.read();
+			assertEquals("A1", first.getString("assetnum"));
+			assertEquals(1.5, first.getJsonNumber("qty").doubleValue(), 0);
+			assertEquals(1, first.getJsonArray("children").getJsonObject(0).getInt("n"));
+			assertEquals(true, first.getJsonArray("children").getBoolean(2));
+			assertEquals("A2", reader.read().getString("assetnum"));
+			assertNull(reader.read());
+			assertEquals(2, reader.getCount());
+			assertEquals("http://host/os/mxasset?pageno=2", reader.getNextPageURI());
+			assertEquals(5, reader.getResponseInfo().getInt("totalCount"));
+			assertEquals("http://host/os/mxasset", reader.getPage().getString("href"));
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void readsOslcPageWithLeadingResponseInfo() throws IOException {
+		MemberReader reader = reader("{\"oslc:responseInfo\":{\"oslc:nextPage\":{\"rdf:resource\":\"next\"}},"
+				+ "\"rdfs:member\":[{\"spi:assetnum\":\"A1\"}]}");
+		try {
+			assertEquals("A1", reader.read().getString("spi:assetnum"));
+			assertNull(reader.read());
+			assertEquals("next", reader.getNextPageURI());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void pageWithoutMembersHasNoNextPage() throws IOException {
+		MemberReader reader = reader("{\"member\":[],\"responseInfo\":{}}");
+		try {
+			assertNull(reader.read());
+			assertEquals(0, reader.getCount());
+			assertNull(reader.getNextPageURI());
+		} finally {
+			reader.close();
+		}
+	}
+}
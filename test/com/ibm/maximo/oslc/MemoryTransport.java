@@ -0,0 +1,94 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory transport of the tests: the login is answered with a session cookie and the
+ * requests to object structures are handed to {@link #answer(TransportRequest)}
+ */
+abstract class MemoryTransport implements Transport {
+
+	public TransportResponse send(TransportRequest request) throws IOException {
+		if (!request.getURI().contains("/os/")) {
+			return new TransportResponse(200, session(), null);
+		}
+		return this.answer(request);
+	}
+
+	/**
+	 * Answer a request to an object structure
+	 */
+	protected abstract TransportResponse answer(TransportRequest request) throws IOException;
+
+	/**
+	 * Mutable headers carrying the session cookie
+	 */
+	static Map<String, List<String>> session() {
+		Map<String, List<String>> headers = new HashMap<String, List<String>>();
+		List<String> cookie = new ArrayList<String>();
+		cookie.add("JSESSIONID=mem");
+		headers.put("Set-Cookie", cookie);
+		return headers;
+	}
+
+	/**
+	 * Response with the session cookie and a UTF-8 body, none when body is null
+	 */
+	static TransportResponse response(int status, String body) throws IOException {
+		return response(status, session(), body);
+	}
+
+	static TransportResponse response(int status, Map<String, List<String>> headers, String body)
+			throws IOException {
+		return new TransportResponse(status, headers,
+				body == null ? null : new ByteArrayInputStream(body.getBytes("UTF-8")));
+	}
+
+	/**
+	 * Options of a lean MAXAUTH login as wilson on localhost:80
+	 */
+	static Options options() {
+		return new Options().user("wilson").password("wilson").auth(Options.AUTH_MAXAUTH).host("localhost")
+				.port(80).lean(true);
+	}
+
+	/**
+	 * Connector logged in through transport with {@link #options()}
+	 */
+	static MaximoConnector connect(Transport transport) throws IOException, OslcException {
+		return connect(options(), transport);
+	}
+
+	/**
+	 * Connector logged in through transport
+	 */
+	static MaximoConnector connect(Options options, Transport transport) throws IOException, OslcException {
+		MaximoConnector mc = new MaximoConnector(options).transport(transport);
+		mc.connect();
+		return mc;
+	}
+
+	/**
+	 * Connector logged in through the transport named by the options
+	 */
+	static MaximoConnector connect(Options options) throws IOException, OslcException {
+		MaximoConnector mc = new MaximoConnector(options);
+		mc.connect();
+		return mc;
+	}
+}
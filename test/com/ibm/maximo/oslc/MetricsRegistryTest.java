@@ -0,0 +1,121 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ConnectException;
+
+import javax.json.Json;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+	private static final String ASSETS = "http://localhost/maximo/oslc/os/mxasset";
+	private static final String ASSET_BODY = "{\"href\":\"" + ASSETS + "/1\",\"assetnum\":\"A\"}";
+
+	/**
+	 * Answers reads with an asset, writes with no content, "missing" with 404 and "down"
+	 * with a connection failure
+	 */
+	private static class AssetTransport extends MemoryTransport {
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			String uri = request.getURI();
+			if (uri.contains("down")) {
+				throw new ConnectException("refused");
+			}
+			if (uri.contains("missing")) {
+				return response(404, "{\"Error\":{\"message\":\"missing\"}}");
+			}
+			if (request.getHeader("x-method-override") != null && !"GET".equals(request.getMethod())) {
+				String body = "BULK".equals(request.getHeader("x-method-override")) ? "[]" : "";
+				return response(body.isEmpty() ? 204 : 200, body);
+			}
+			return response(200, ASSET_BODY);
+		}
+	}
+
+	private static MaximoConnector connector(MetricsRegistry registry) throws IOException, OslcException {
+		return MemoryTransport.connect(MemoryTransport.options().metrics(registry), new AssetTransport());
+	}
+
+	@Test
+	public void requestsAreRecordedByVerbAndObjectStructure() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		MaximoConnector mc = connector(registry);
+		mc.get(ASSETS + "/1");
+		mc.getAsync(ASSETS + "/1").get();
+		mc.merge(ASSETS + "/1", Json.createObjectBuilder().add("status", "OPERATING").build());
+		mc.sync(ASSETS, Json.createObjectBuilder().add("assetnum", "A").build());
+		mc.bulk(ASSETS, Json.createArrayBuilder().add(Json.createObjectBuilder().add("assetnum", "B")).build());
+
+		MetricsRegistry.RequestStats gets = registry.get("GET", "mxasset");
+		assertNotNull(gets);
+		assertEquals(2, gets.getCount());
+		assertEquals(2, gets.getStatusCount(2));
+		assertEquals(2 * ASSET_BODY.length(), gets.getBytesReceived().getSum());
+		assertEquals(2, gets.getParseTime().getCount());
+		assertTrue(gets.getLatency().getMax() >= gets.getTimeToFirstByte().getMax());
+		assertEquals(1, registry.get("MERGE", "mxasset").getCount());
+		assertEquals(1, registry.get("SYNC", "mxasset").getCount());
+		assertEquals(1, registry.get("BULK", "mxasset").getCount());
+		assertTrue(registry.get("MERGE", "mxasset").getBytesSent().getSum() > 0);
+		assertEquals(5, registry.getStats().size());
+	}
+
+	@Test
+	public void failuresAreCountedByOutcome() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		MaximoConnector mc = connector(registry);
+		try {
+			mc.get(ASSETS + "/missing");
+			fail();
+		} catch (OslcException e) {
+			assertEquals(404, e.getErrorCode());
+		}
+		try {
+			mc.get("http://localhost/maximo/oslc/os/down");
+			fail();
+		} catch (ConnectException e) {
+			// expected
+		}
+		assertEquals(1, registry.get("GET", "mxasset").getStatusCount(4));
+		assertEquals(1, registry.get("GET", "mxasset").getErrorCount());
+		assertEquals(1, registry.get("GET", "down").getStatusCount(0));
+	}
+
+	@Test
+	public void percentilesAreWithinTheBucketPrecision() {
+		Histogram h = new Histogram();
+		for (long v = 1; v <= 100000; v++) {
+			h.record(v);
+		}
+		assertEquals(100000, h.getCount());
+		assertEquals(100000, h.getMax());
+		assertEquals(50000.5, h.getMean(), 0.001);
+		for (double p : new double[] { 50, 90, 99, 99.9 }) {
+			double expected = p * 1000;
+			double actual = h.getPercentile(p);
+			assertTrue(p + " " + actual, actual >= expected && actual <= expected * 1.125);
+		}
+		assertEquals(0, new Histogram().getPercentile(99));
+		for (long v = 0; v < 16; v++) {
+			assertEquals(v, Histogram.upperBound(Histogram.index(v)));
+		}
+		assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.index(Long.MAX_VALUE)));
+	}
+}
@@ -0,0 +1,1052 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ *
+ * {@code MockMaximoServer} is an in-process stand-in for the Maximo OSLC API on
+ * {@code com.sun.net.httpserver}, so that the client can be tested end to end, loaded and
+ * timed without a Maximo instance.
+ *
+ * <p>It serves the endpoints the client uses under /maximo/oslc:</p>
+ * <ul>
+ * <li>basic, maxauth and form (j_security_check) logins, logout and session cookies</li>
+ * <li>os/&lt;name&gt; collections with oslc.select, oslc.pageSize, pageno, stablepaging,
+ * collectioncount, count and gbcols group by</li>
+ * <li>creates, the PATCH, MERGE, BULK and SYNC x-method-override and deletes</li>
+ * <li>doclinks listing, metadata, upload and download with Range</li>
+ * </ul>
+ *
+ * <p>The datasets are synthetic and of any size, latency and errors can be injected. oslc.where
+ * is ignored, every page is a slice of the whole collection.</p>
+ * <pre>
+ * <code>
+ * try (MockMaximoServer server = new MockMaximoServer().objectStructure("mxasset", 10000)
+ *         .latency(5, 20).errorRate(0.01).start()) {
+ *     MaximoConnector mc = new MaximoConnector(server.options().lean(true));
+ *     mc.connect();
+ *     ...
+ * }
+ * </code>
+ * </pre>
+ *
+ */
+public class MockMaximoServer implements Closeable {
+
+	static final String CONTEXT = "/maximo/oslc";
+	private static final String[] STATUSES = { "APPR", "WAPPR", "INPRG", "COMP" };
+	private static final String[] SITES = { "BEDFORD", "NASHUA", "TEXAS" };
+	private static final long EPOCH = Instant.parse("2016-05-12T14:15:30Z").toEpochMilli();
+
+	private final Map<String, Collection> collections = new ConcurrentHashMap<String, Collection>();
+	// session id to lean
+	private final Map<String, Boolean> sessions = new ConcurrentHashMap<String, Boolean>();
+	private final LongAdder requests = new LongAdder();
+	private final AtomicInteger logins = new AtomicInteger();
+
+	private volatile String user = "wilson";
+	private volatile String password = "wilson";
+	private int port = 0;
+	private int threads = 64;
+	private volatile long latency = 0;
+	private volatile long jitter = 0;
+	private volatile double errorRate = 0;
+	private volatile int errorStatus = 503;
+	private int attachments = 0;
+	private int attachmentSize = 1024;
+	private int padding = 0;
+
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public MockMaximoServer credentials(String user, String password) {
+		this.user = user;
+		this.password = password;
+		return this;
+	}
+
+	/**
+	 * @param port 0, the default, for a free port
+	 */
+	public MockMaximoServer port(int port) {
+		this.port = port;
+		return this;
+	}
+
+	/**
+	 * Number of threads serving the requests, 64 by default
+	 */
+	public MockMaximoServer threads(int threads) {
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Serve a collection of generated records, the key attribute is the name without its mx
+	 * prefix followed by num, assetnum for mxasset
+	 *
+	 * @param name
+	 * @param size
+	 */
+	public MockMaximoServer objectStructure(String name, int size) {
+		String key = name.toLowerCase();
+		key = (key.startsWith("mx") ? key.substring(2) : key) + "num";
+		return this.objectStructure(name, key, size);
+	}
+
+	public MockMaximoServer objectStructure(String name, String keyAttribute, int size) {
+		Collection c = new Collection(name.toLowerCase(), keyAttribute);
+		for (int i = 0; i < size; i++) {
+			c.add(this.generate(keyAttribute, i), this.attachments, this.attachmentSize);
+		}
+		this.collections.put(c.name, c);
+		return this;
+	}
+
+	/**
+	 * Delay every response by the latency plus a random part of the jitter
+	 *
+	 * @param millis
+	 * @param jitterMillis
+	 */
+	public MockMaximoServer latency(long millis, long jitterMillis) {
+		this.latency = millis;
+		this.jitter = jitterMillis;
+		return this;
+	}
+
+	/**
+	 * Answer this share of the requests after the login with an error, 503 by default
+	 *
+	 * @param rate between 0 and 1
+	 */
+	public MockMaximoServer errorRate(double rate) {
+		this.errorRate = rate;
+		return this;
+	}
+
+	public MockMaximoServer errorStatus(int status) {
+		this.errorStatus = status;
+		return this;
+	}
+
+	/**
+	 * Documents attached to each record of the collections declared afterwards
+	 *
+	 * @param perRecord
+	 * @param bytes size of each document
+	 */
+	public MockMaximoServer attachments(int perRecord, int bytes) {
+		this.attachments = perRecord;
+		this.attachmentSize = bytes;
+		return this;
+	}
+
+	/**
+	 * Characters of long description added to the records declared afterwards, to grow
+	 * the payloads
+	 */
+	public MockMaximoServer padding(int chars) {
+		this.padding = chars;
+		return this;
+	}
+
+	public MockMaximoServer start() throws IOException {
+		// without it Nagle holds the body behind the headers until the delayed ACK, about 40ms;
+		// read once when the first server is created
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		this.server = HttpServer.create(new InetSocketAddress("localhost", this.port), 0);
+		this.executor = Executors.newFixedThreadPool(this.threads, r -> {
+			Thread t = new Thread(r, "mock-maximo");
+			t.setDaemon(true);
+			return t;
+		});
+		this.server.setExecutor(this.executor);
+		this.server.createContext(CONTEXT, this::handle);
+		this.server.start();
+		return this;
+	}
+
+	public void close() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.executor.shutdownNow();
+			this.server = null;
+		}
+	}
+
+	public int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Options connecting to this server with maxauth, change the authentication or lean
+	 * as needed
+	 */
+	public Options options() {
+		return new Options().user(this.user).password(this.password).auth(Options.AUTH_MAXAUTH)
+				.host("localhost").port(this.getPort());
+	}
+
+	/**
+	 * The uri of the collection as the client addresses it
+	 */
+	public String uri(String objectStructure) {
+		return "http://localhost:" + this.getPort() + CONTEXT + "/os/" + objectStructure.toLowerCase();
+	}
+
+	public long getRequestCount() {
+		return this.requests.sum();
+	}
+
+	public int getLoginCount() {
+		return this.logins.get();
+	}
+
+	/**
+	 * Number of records of the collection, null if it is not served
+	 */
+	public Integer size(String objectStructure) {
+		Collection c = this.collections.get(objectStructure.toLowerCase());
+		return c != null ? c.byId.size() : null;
+	}
+
+	/**
+	 * Invalidate every session, the following requests get 401 until a new login
+	 */
+	public void expireSessions() {
+		this.sessions.clear();
+	}
+
+	private JsonObject generate(String keyAttribute, int i) {
+		JsonObjectBuilder job = Json.createObjectBuilder().add(keyAttribute, String.valueOf(1000 + i))
+				.add("description", "Record " + i).add("status", STATUSES[i % STATUSES.length])
+				.add("siteid", SITES[i % SITES.length]).add("orgid", "EAGLENA").add("priority", i % 5 + 1)
+				.add("estdur", i % 24 + 0.5).add("changedate", Instant.ofEpochMilli(EPOCH - i * 60000L).toString());
+		if (this.padding > 0) {
+			char[] text = new char[this.padding];
+			for (int c = 0; c < text.length; c++) {
+				text[c] = (char) ('a' + (c + i) % 26);
+			}
+			job.add("description_longdescription", new String(text));
+		}
+		return job.build();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		this.requests.increment();
+		try {
+			this.delay();
+			String path = exchange.getRequestURI().getRawPath();
+			String query = exchange.getRequestURI().getRawQuery();
+			Request req = new Request(exchange, path.substring(CONTEXT.length()), query);
+			if (path.contains("j_security_check") || (query != null && query.contains("j_security_check"))) {
+				this.formLogin(req);
+			} else if (req.path.isEmpty() || req.path.equals("/") || req.path.equals("/login")) {
+				this.login(req);
+			} else if (req.path.equals("/logout")) {
+				String session = this.session(exchange);
+				if (session != null) {
+					this.sessions.remove(session);
+				}
+				req.send(200, null);
+			} else if (!req.path.startsWith("/os/")) {
+				req.error(404, "BMXAA8727E", "The resource " + req.path + " is not found");
+			} else if (!this.authenticated(req)) {
+				req.error(401, "BMXAA0021E", "User name and password combination are not valid. Try again.");
+			} else if (this.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < this.errorRate) {
+				req.error(this.errorStatus, "BMXAA9999E", "Injected failure");
+			} else {
+				String lean = req.param("lean");
+				if (lean != null) {
+					req.lean = lean.startsWith("1");
+				}
+				this.route(req);
+			}
+		} catch (RuntimeException e) {
+			byte[] body = error(500, "BMXAA0000E", String.valueOf(e)).toString().getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(500, body.length);
+			exchange.getResponseBody().write(body);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void delay() {
+		long millis = this.latency + (this.jitter > 0 ? ThreadLocalRandom.current().nextLong(this.jitter + 1) : 0);
+		if (millis > 0) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void login(Request req) throws IOException {
+		Headers headers = req.exchange.getRequestHeaders();
+		String maxauth = headers.getFirst("maxauth");
+		String basic = headers.getFirst("Authorization");
+		String credentials = maxauth != null ? maxauth
+				: basic != null && basic.startsWith("Basic ") ? basic.substring(6) : null;
+		String expected = Base64.getEncoder()
+				.encodeToString((this.user + ":" + this.password).getBytes(StandardCharsets.UTF_8));
+		if (!expected.equals(credentials)) {
+			req.error(401, "BMXAA0021E", "User name and password combination are not valid. Try again.");
+			return;
+		}
+		this.newSession(req);
+		req.send(200, Json.createObjectBuilder().add("userName", this.user).build());
+	}
+
+	private void formLogin(Request req) throws IOException {
+		Map<String, String> form = parse(new String(req.body(), StandardCharsets.UTF_8));
+		if (!this.user.equals(form.get("j_username")) || !this.password.equals(form.get("j_password"))) {
+			req.exchange.getResponseHeaders().add("Location", CONTEXT + "/login?error=1");
+			req.send(302, null);
+			return;
+		}
+		this.newSession(req);
+		req.exchange.getResponseHeaders().add("Location", CONTEXT);
+		req.send(302, null);
+	}
+
+	private void newSession(Request req) {
+		String id = UUID.randomUUID().toString();
+		String lean = req.param("lean");
+		this.sessions.put(id, lean != null && lean.startsWith("1"));
+		this.logins.incrementAndGet();
+		req.exchange.getResponseHeaders().add("Set-Cookie", "JSESSIONID=" + id + "; Path=/maximo; HttpOnly");
+	}
+
+	/**
+	 * Whether the request carries a live session, the lean mode of the session is then
+	 * the default of the request
+	 */
+	private boolean authenticated(Request req) {
+		String session = this.session(req.exchange);
+		Boolean lean = session != null ? this.sessions.get(session) : null;
+		if (lean == null) {
+			return false;
+		}
+		req.lean = lean;
+		return true;
+	}
+
+	private String session(HttpExchange exchange) {
+		List<String> cookies = exchange.getRequestHeaders().get("Cookie");
+		if (cookies == null) {
+			return null;
+		}
+		for (String header : cookies) {
+			for (String cookie : header.split(";")) {
+				cookie = cookie.trim();
+				if (cookie.startsWith("JSESSIONID=")) {
+					return cookie.substring("JSESSIONID=".length());
+				}
+			}
+		}
+		return null;
+	}
+
+	private void route(Request req) throws IOException {
+		String[] segments = req.path.substring("/os/".length()).split("/");
+		Collection c = this.collections.get(segments[0].toLowerCase());
+		if (c == null) {
+			req.error(404, "BMXAA8727E", "The object structure " + segments[0] + " is not found");
+			return;
+		}
+		String method = req.method();
+		if (segments.length == 1) {
+			if ("GET".equals(method)) {
+				this.collection(req, c);
+			} else if ("BULK".equals(method)) {
+				this.bulk(req, c);
+			} else if ("SYNC".equals(method)) {
+				this.sync(req, c);
+			} else if ("POST".equals(method)) {
+				this.create(req, c, (JsonObject) req.json());
+			} else {
+				req.error(405, "BMXAA8730E", method + " is not allowed on a collection");
+			}
+			return;
+		}
+		Record r = c.byId.get(segments[1]);
+		if (r == null) {
+			req.error(404, "BMXAA8727E", "The resource " + segments[1] + " is not found");
+			return;
+		}
+		if (segments.length == 2) {
+			if ("GET".equals(method)) {
+				req.send(200, this.representation(req, c, r, req.properties()));
+			} else if ("PATCH".equals(method) || "MERGE".equals(method)) {
+				this.update(req, c, r, (JsonObject) req.json());
+			} else if ("DELETE".equals(method)) {
+				c.remove(r);
+				req.send(204, null);
+			} else if ("POST".equals(method) && req.param("action") != null) {
+				req.send(204, null);
+			} else {
+				req.error(405, "BMXAA8730E", method + " is not allowed on a resource");
+			}
+		} else if (!"doclinks".equalsIgnoreCase(segments[2])) {
+			req.error(404, "BMXAA8727E", "The relation " + segments[2] + " is not found");
+		} else if (segments.length == 3) {
+			if ("GET".equals(method)) {
+				this.doclinks(req, c, r);
+			} else if ("POST".equals(method)) {
+				this.upload(req, c, r);
+			} else {
+				req.error(405, "BMXAA8730E", method + " is not allowed on doclinks");
+			}
+		} else {
+			boolean meta = segments.length == 5 && "meta".equals(segments[3]);
+			Document doc = r.documents.get(segments[meta ? 4 : 3]);
+			if (doc == null) {
+				req.error(404, "BMXAA8727E", "The document " + segments[segments.length - 1] + " is not found");
+			} else if (meta) {
+				req.send(200, this.describe(req, c, r, doc));
+			} else if ("DELETE".equals(method)) {
+				r.documents.remove(doc.id);
+				req.send(204, null);
+			} else {
+				this.download(req, doc);
+			}
+		}
+	}
+
+	private void collection(Request req, Collection c) throws IOException {
+		List<Record> all = new ArrayList<Record>(c.records.values());
+		if ("1".equals(req.param("count"))) {
+			req.send(200, Json.createObjectBuilder().add("totalCount", all.size()).build());
+			return;
+		}
+		String gbcols = req.param("gbcols");
+		if (gbcols != null) {
+			req.send(200, groupBy(all, gbcols.split(",")));
+			return;
+		}
+		int pageSize = req.intParam("oslc.pageSize", all.size());
+		int pageno = Math.max(1, req.intParam("pageno", 1));
+		int totalPages = pageSize > 0 ? Math.max(1, (all.size() + pageSize - 1) / pageSize) : 1;
+		int from = pageSize > 0 ? Math.min(all.size(), (pageno - 1) * pageSize) : 0;
+		int to = pageSize > 0 ? Math.min(all.size(), from + pageSize) : all.size();
+		Set<String> select = req.select();
+		JsonArrayBuilder members = Json.createArrayBuilder();
+		for (Record r : all.subList(from, to)) {
+			members.add(this.representation(req, c, r, select));
+		}
+		String href = req.base() + req.path + (req.query != null ? "?" + req.query : "");
+		JsonObjectBuilder info = Json.createObjectBuilder().add(req.lean ? "href" : "rdf:about", href)
+				.add(prefix(req.lean, "oslc:", "pagenum"), pageno);
+		if ("1".equals(req.param("collectioncount"))) {
+			info.add(prefix(req.lean, "oslc:", "totalCount"), all.size());
+			info.add(prefix(req.lean, "oslc:", "totalPages"), totalPages);
+		}
+		if (pageSize > 0 && pageno < totalPages) {
+			info.add(prefix(req.lean, "oslc:", "nextPage"), link(req.lean, page(href, pageno + 1)));
+		}
+		if (pageno > 1) {
+			info.add(prefix(req.lean, "oslc:", "previousPage"), link(req.lean, page(href, pageno - 1)));
+		}
+		req.send(200, Json.createObjectBuilder().add(req.lean ? "href" : "rdf:about", req.base() + req.path)
+				.add(req.lean ? "member" : "rdfs:member", members)
+				.add(prefix(req.lean, "oslc:", "responseInfo"), info).build());
+	}
+
+	private void create(Request req, Collection c, JsonObject data) throws IOException {
+		if (data == null || !data.containsKey(c.keyAttribute)) {
+			JsonObjectBuilder job = Json.createObjectBuilder().add(c.keyAttribute,
+					String.valueOf(1000 + c.sequence.get()));
+			if (data != null) {
+				data.forEach(job::add);
+			}
+			data = job.build();
+		}
+		Record r = c.add(unprefix(data), 0, 0);
+		req.exchange.getResponseHeaders().add("Location", req.base() + "/os/" + c.name + "/" + r.id);
+		Set<String> properties = req.properties();
+		req.send(201, properties != null ? this.representation(req, c, r, properties) : null);
+	}
+
+	private void update(Request req, Collection c, Record r, JsonObject data) throws IOException {
+		r.merge(unprefix(data));
+		Set<String> properties = req.properties();
+		req.send(properties != null ? 200 : 204, properties != null ? this.representation(req, c, r, properties) : null);
+	}
+
+	private void sync(Request req, Collection c) throws IOException {
+		JsonObject data = unprefix((JsonObject) req.json());
+		Record existing = null;
+		if (data.containsKey(c.keyAttribute)) {
+			String key = data.getString(c.keyAttribute);
+			for (Record r : c.records.values()) {
+				if (key.equals(r.data.getString(c.keyAttribute, null))) {
+					existing = r;
+					break;
+				}
+			}
+		}
+		if (existing != null) {
+			this.update(req, c, existing, data);
+		} else {
+			this.create(req, c, data);
+		}
+	}
+
+	/**
+	 * Apply every operation of the bulk, each one answered with its status in
+	 * _responsemeta and the requested properties in _responsedata
+	 */
+	private void bulk(Request req, Collection c) throws IOException {
+		JsonArrayBuilder response = Json.createArrayBuilder();
+		JsonObject empty = Json.createObjectBuilder().build();
+		for (JsonValue value : (JsonArray) req.json()) {
+			JsonObject entry = (JsonObject) value;
+			JsonObject meta = entry.containsKey("_meta") ? entry.getJsonObject("_meta") : empty;
+			String method = meta.getString("method", "POST");
+			JsonObject data = entry.containsKey("_data") ? unprefix(entry.getJsonObject("_data"))
+					: empty;
+			Set<String> properties = meta.containsKey("properties")
+					? new LinkedHashSet<String>(Arrays.asList(meta.getString("properties").split(",")))
+					: null;
+			Record r = null;
+			if (!"POST".equals(method)) {
+				String uri = meta.getString("uri", "");
+				r = c.byId.get(uri.substring(uri.lastIndexOf('/') + 1));
+				if (r == null) {
+					response.add(Json.createObjectBuilder().add("_responsedata", error(404, "BMXAA8727E", "The resource "
+							+ uri + " is not found")).add("_responsemeta", Json.createObjectBuilder().add("status", "404")));
+					continue;
+				}
+			}
+			JsonObjectBuilder responseMeta = Json.createObjectBuilder();
+			if ("POST".equals(method)) {
+				if (!data.containsKey(c.keyAttribute)) {
+					JsonObjectBuilder job = Json.createObjectBuilder().add(c.keyAttribute,
+							String.valueOf(1000 + c.sequence.get()));
+					data.forEach(job::add);
+					data = job.build();
+				}
+				r = c.add(data, 0, 0);
+				responseMeta.add("status", "201").add("Location", req.base() + "/os/" + c.name + "/" + r.id);
+			} else if ("DELETE".equals(method)) {
+				c.remove(r);
+				responseMeta.add("status", "204");
+			} else {
+				r.merge(data);
+				responseMeta.add("status", properties != null ? "200" : "204");
+			}
+			JsonObjectBuilder result = Json.createObjectBuilder().add("_responsemeta", responseMeta);
+			if (properties != null && !"DELETE".equals(method)) {
+				result.add("_responsedata", this.representation(req, c, r, properties));
+			}
+			response.add(result);
+		}
+		req.send(200, response.build());
+	}
+
+	private void doclinks(Request req, Collection c, Record r) throws IOException {
+		JsonArrayBuilder members = Json.createArrayBuilder();
+		for (Document doc : r.documents.values()) {
+			JsonObject described = this.describe(req, c, r, doc);
+			members.add(Json.createObjectBuilder()
+					.add(req.lean ? "href" : "rdf:about", this.documentURI(req, c, r, doc))
+					.add(prefix(req.lean, "spi:", "describedBy"), described));
+		}
+		req.send(200, Json.createObjectBuilder()
+				.add(req.lean ? "href" : "rdf:about", req.base() + "/os/" + c.name + "/" + r.id + "/doclinks")
+				.add(req.lean ? "member" : "rdfs:member", members).build());
+	}
+
+	private void upload(Request req, Collection c, Record r) throws IOException {
+		Headers headers = req.exchange.getRequestHeaders();
+		String name = headers.getFirst("slug");
+		String description = headers.getFirst("x-document-description");
+		String meta = headers.getFirst("x-document-meta");
+		Document doc = r.attach(name != null ? name : "document", description != null ? description : "",
+				meta != null ? meta : "FILE/Attachments", req.body());
+		req.exchange.getResponseHeaders().add("Location", this.documentURI(req, c, r, doc));
+		req.send(201, null);
+	}
+
+	private void download(Request req, Document doc) throws IOException {
+		Headers response = req.exchange.getResponseHeaders();
+		response.add("Content-Type", "application/octet-stream");
+		response.add("Accept-Ranges", "bytes");
+		String range = req.exchange.getRequestHeaders().getFirst("Range");
+		int total = doc.data.length;
+		if (range == null || !range.startsWith("bytes=")) {
+			req.send(200, doc.data);
+			return;
+		}
+		String[] bounds = range.substring("bytes=".length()).split("-", -1);
+		long first = Long.parseLong(bounds[0]);
+		long last = bounds[1].isEmpty() ? total - 1 : Math.min(Long.parseLong(bounds[1]), total - 1);
+		if (first >= total || first > last) {
+			response.add("Content-Range", "bytes */" + total);
+			req.send(416, null);
+			return;
+		}
+		response.add("Content-Range", "bytes " + first + "-" + last + "/" + total);
+		byte[] part = new byte[(int) (last - first + 1)];
+		System.arraycopy(doc.data, (int) first, part, 0, part.length);
+		req.send(206, part);
+	}
+
+	private String documentURI(Request req, Collection c, Record r, Document doc) {
+		return req.base() + "/os/" + c.name + "/" + r.id + "/doclinks/" + doc.id;
+	}
+
+	private JsonObject describe(Request req, Collection c, Record r, Document doc) {
+		String urlType = doc.meta.contains("/") ? doc.meta.substring(0, doc.meta.indexOf('/')) : doc.meta;
+		return Json.createObjectBuilder()
+				.add(req.lean ? "href" : "rdf:about", req.base() + "/os/" + c.name + "/" + r.id + "/doclinks/meta/" + doc.id)
+				.add(prefix(req.lean, "dcterms:", "title"), doc.name)
+				.add(prefix(req.lean, "dcterms:", "description"), doc.description)
+				.add(prefix(req.lean, "spi:", "urlType"), urlType)
+				.add(prefix(req.lean, "spi:", "fileName"), doc.name)
+				.add(prefix(req.lean, "spi:", "docType"), "Attachments")
+				.add(prefix(req.lean, "spi:", "size"), doc.data.length).build();
+	}
+
+	/**
+	 * The record with its href and doclinks, limited to the selected properties, prefixed
+	 * with spi: unless lean
+	 */
+	private JsonObject representation(Request req, Collection c, Record r, Set<String> select) {
+		String href = req.base() + "/os/" + c.name + "/" + r.id;
+		JsonObjectBuilder job = Json.createObjectBuilder().add(req.lean ? "href" : "rdf:about", href);
+		for (Map.Entry<String, JsonValue> e : r.data.entrySet()) {
+			if (select == null || select.contains(e.getKey())) {
+				job.add(prefix(req.lean, "spi:", e.getKey()), e.getValue());
+			}
+		}
+		if (select == null || select.contains("doclinks")) {
+			job.add(prefix(req.lean, "spi:", "doclinks"), link(req.lean, href + "/doclinks"));
+		}
+		return job.build();
+	}
+
+	/**
+	 * Group the records by the plain columns and compute the count.*, sum., avg., min. and
+	 * max. columns of each group
+	 */
+	static JsonArray groupBy(List<Record> records, String[] columns) {
+		List<String> keys = new ArrayList<String>();
+		for (String column : columns) {
+			if (!column.contains(".")) {
+				keys.add(column);
+			}
+		}
+		Map<List<String>, List<Record>> groups = new LinkedHashMap<List<String>, List<Record>>();
+		for (Record r : records) {
+			List<String> group = new ArrayList<String>();
+			for (String key : keys) {
+				JsonValue v = r.data.get(key);
+				group.add(v == null ? null : v instanceof JsonString ? r.data.getString(key) : v.toString());
+			}
+			groups.computeIfAbsent(group, k -> new ArrayList<Record>()).add(r);
+		}
+		JsonArrayBuilder result = Json.createArrayBuilder();
+		for (Map.Entry<List<String>, List<Record>> group : groups.entrySet()) {
+			JsonObjectBuilder job = Json.createObjectBuilder();
+			for (int i = 0; i < keys.size(); i++) {
+				String value = group.getKey().get(i);
+				if (value == null) {
+					job.addNull(keys.get(i));
+				} else {
+					job.add(keys.get(i), value);
+				}
+			}
+			for (String column : columns) {
+				int dot = column.indexOf('.');
+				if (dot < 0) {
+					continue;
+				}
+				String function = column.substring(0, dot);
+				if ("count".equals(function)) {
+					job.add("count", group.getValue().size());
+					continue;
+				}
+				String attribute = column.substring(dot + 1);
+				double sum = 0;
+				double min = Double.MAX_VALUE;
+				double max = -Double.MAX_VALUE;
+				int n = 0;
+				for (Record r : group.getValue()) {
+					JsonValue v = r.data.get(attribute);
+					if (v instanceof JsonNumber) {
+						double d = ((JsonNumber) v).doubleValue();
+						sum += d;
+						min = Math.min(min, d);
+						max = Math.max(max, d);
+						n++;
+					}
+				}
+				double value = "sum".equals(function) ? sum : "avg".equals(function) ? (n > 0 ? sum / n : 0)
+						: "min".equals(function) ? min : max;
+				job.add(column, n > 0 || "sum".equals(function) ? value : 0);
+			}
+			result.add(job);
+		}
+		return result.build();
+	}
+
+	private static String page(String href, int pageno) {
+		String uri = href.replaceAll("([?&])pageno=\\d+", "$1pageno=" + pageno);
+		if (uri.equals(href) && !href.matches(".*[?&]pageno=" + pageno + "(&.*)?")) {
+			uri = href + (href.contains("?") ? "&" : "?") + "pageno=" + pageno;
+		}
+		return uri;
+	}
+
+	private static JsonObject link(boolean lean, String href) {
+		return Json.createObjectBuilder().add(lean ? "href" : "rdf:resource", href).build();
+	}
+
+	private static String prefix(boolean lean, String prefix, String name) {
+		return lean ? name : prefix + name;
+	}
+
+	private static JsonObject unprefix(JsonObject jo) {
+		JsonObjectBuilder job = Json.createObjectBuilder();
+		for (Map.Entry<String, JsonValue> e : jo.entrySet()) {
+			String key = e.getKey();
+			if (key.startsWith("rdf:") || key.equals("href") || key.startsWith("_")) {
+				continue;
+			}
+			job.add(key.contains(":") ? key.substring(key.indexOf(':') + 1) : key, e.getValue());
+		}
+		return job.build();
+	}
+
+	static JsonObject error(int status, String reasonCode, String message) {
+		return Json.createObjectBuilder().add("Error", Json.createObjectBuilder().add("reasonCode", reasonCode)
+				.add("message", reasonCode + " - " + message).add("statusCode", String.valueOf(status))).build();
+	}
+
+	private static Map<String, String> parse(String query) {
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		if (query == null) {
+			return params;
+		}
+		for (String pair : query.split("&")) {
+			if (pair.isEmpty()) {
+				continue;
+			}
+			int eq = pair.indexOf('=');
+			try {
+				String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, "UTF-8");
+				String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), "UTF-8") : "";
+				params.putIfAbsent(name, value);
+			} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+				// not a parameter of the API
+			}
+		}
+		return params;
+	}
+
+	/**
+	 * One request being served
+	 */
+	private static class Request {
+
+		final HttpExchange exchange;
+		final String path;
+		final String query;
+		final Map<String, String> params;
+		boolean lean = false;
+		private byte[] body;
+
+		Request(HttpExchange exchange, String path, String query) {
+			this.exchange = exchange;
+			this.path = path;
+			this.query = query;
+			this.params = parse(query);
+		}
+
+		String param(String name) {
+			return this.params.get(name);
+		}
+
+		int intParam(String name, int value) {
+			String s = this.param(name);
+			try {
+				return s != null ? Integer.parseInt(s.trim()) : value;
+			} catch (NumberFormatException e) {
+				return value;
+			}
+		}
+
+		/**
+		 * The verb with the x-method-override and patchtype resolved
+		 */
+		String method() {
+			Headers headers = this.exchange.getRequestHeaders();
+			String override = headers.getFirst("x-method-override");
+			if (override == null) {
+				return this.exchange.getRequestMethod();
+			}
+			if ("PATCH".equalsIgnoreCase(override) && "MERGE".equalsIgnoreCase(headers.getFirst("patchtype"))) {
+				return "MERGE";
+			}
+			return override.toUpperCase();
+		}
+
+		/**
+		 * The x-public-uri the client sends, the uri of this server otherwise
+		 */
+		String base() {
+			String publicURI = this.exchange.getRequestHeaders().getFirst("x-public-uri");
+			if (publicURI != null) {
+				return publicURI.endsWith("/") ? publicURI.substring(0, publicURI.length() - 1) : publicURI;
+			}
+			return "http://" + this.exchange.getRequestHeaders().getFirst("Host") + CONTEXT;
+		}
+
+		/**
+		 * The top level properties of oslc.select, null to select them all
+		 */
+		Set<String> select() {
+			String select = this.param("oslc.select");
+			if (select == null) {
+				select = this.param("oslc.properties");
+			}
+			return select != null && !select.trim().equals("*") ? names(select) : null;
+		}
+
+		/**
+		 * The properties to return from a write or a member GET, null for none on a write
+		 * and all on a GET
+		 */
+		Set<String> properties() {
+			String properties = this.exchange.getRequestHeaders().getFirst("properties");
+			if (properties != null) {
+				return properties.trim().equals("*") ? null : names(properties);
+			}
+			if ("GET".equals(this.exchange.getRequestMethod())) {
+				return this.select();
+			}
+			return null;
+		}
+
+		byte[] body() throws IOException {
+			if (this.body == null) {
+				ByteArrayOutputStream bos = new ByteArrayOutputStream();
+				try (InputStream in = this.exchange.getRequestBody()) {
+					in.transferTo(bos);
+				}
+				this.body = bos.toByteArray();
+			}
+			return this.body;
+		}
+
+		JsonStructure json() throws IOException {
+			byte[] data = this.body();
+			if (data.length == 0) {
+				return null;
+			}
+			return Json.createReader(new ByteArrayInputStream(data)).read();
+		}
+
+		void send(int status, Object body) throws IOException {
+			byte[] bytes = body instanceof byte[] ? (byte[]) body
+					: body != null ? body.toString().getBytes(StandardCharsets.UTF_8) : null;
+			if (body instanceof JsonStructure) {
+				this.exchange.getResponseHeaders().add("Content-Type", "application/json");
+			}
+			// the HttpServer has no body for -1
+			this.exchange.sendResponseHeaders(status, bytes == null || status == 204 ? -1 : bytes.length);
+			if (bytes != null && status != 204) {
+				try (OutputStream out = this.exchange.getResponseBody()) {
+					out.write(bytes);
+				}
+			}
+		}
+
+		void error(int status, String reasonCode, String message) throws IOException {
+			this.send(status, MockMaximoServer.error(status, reasonCode, message));
+		}
+
+		private static Set<String> names(String list) {
+			Set<String> names = new LinkedHashSet<String>();
+			int depth = 0;
+			StringBuilder name = new StringBuilder();
+			for (char ch : list.toCharArray()) {
+				if (ch == '{') {
+					depth++;
+				} else if (ch == '}') {
+					depth--;
+				} else if (depth == 0 && ch == ',') {
+					names.add(name.toString().trim());
+					name.setLength(0);
+				} else if (depth == 0) {
+					name.append(ch);
+				}
+			}
+			names.add(name.toString().trim());
+			Set<String> plain = new LinkedHashSet<String>();
+			for (String n : names) {
+				plain.add(n.contains(":") ? n.substring(n.indexOf(':') + 1) : n);
+			}
+			return plain;
+		}
+	}
+
+	/**
+	 * A served object structure, its records in insertion order
+	 */
+	private static class Collection {
+
+		final String name;
+		final String keyAttribute;
+		final ConcurrentSkipListMap<Long, Record> records = new ConcurrentSkipListMap<Long, Record>();
+		final Map<String, Record> byId = new ConcurrentHashMap<String, Record>();
+		final AtomicLong sequence = new AtomicLong();
+
+		Collection(String name, String keyAttribute) {
+			this.name = name;
+			this.keyAttribute = keyAttribute;
+		}
+
+		Record add(JsonObject data, int documents, int documentSize) {
+			long seq = this.sequence.getAndIncrement();
+			String key = data.containsKey(this.keyAttribute) ? data.get(this.keyAttribute).toString().replace("\"", "")
+					: String.valueOf(seq);
+			String id = "_" + Base64.getUrlEncoder().withoutPadding()
+					.encodeToString((this.name.toUpperCase() + "/" + key + "/" + seq).getBytes(StandardCharsets.UTF_8));
+			Record r = new Record(seq, id, data);
+			for (int d = 0; d < documents; d++) {
+				byte[] bytes = new byte[documentSize];
+				for (int b = 0; b < bytes.length; b++) {
+					bytes[b] = (byte) (b + d + seq);
+				}
+				r.attach("document" + d + ".bin", "Document " + d, "FILE/Attachments", bytes);
+			}
+			this.records.put(seq, r);
+			this.byId.put(id, r);
+			return r;
+		}
+
+		void remove(Record r) {
+			this.records.remove(r.seq);
+			this.byId.remove(r.id);
+		}
+	}
+
+	private static class Record {
+
+		final long seq;
+		final String id;
+		volatile JsonObject data;
+		final Map<String, Document> documents = Collections.synchronizedMap(new LinkedHashMap<String, Document>());
+		private final AtomicInteger documentSequence = new AtomicInteger(1);
+
+		Record(long seq, String id, JsonObject data) {
+			this.seq = seq;
+			this.id = id;
+			this.data = data;
+		}
+
+		synchronized void merge(JsonObject changes) {
+			JsonObjectBuilder job = Json.createObjectBuilder();
+			this.data.forEach(job::add);
+			changes.forEach(job::add);
+			this.data = job.build();
+		}
+
+		Document attach(String name, String description, String meta, byte[] data) {
+			Document doc = new Document(String.valueOf(this.documentSequence.getAndIncrement()), name, description,
+					meta, data);
+			this.documents.put(doc.id, doc);
+			return doc;
+		}
+	}
+
+	private static class Document {
+
+		final String id;
+		final String name;
+		final String description;
+		final String meta;
+		final byte[] data;
+
+		Document(String id, String name, String description, String meta, byte[] data) {
+			this.id = id;
+			this.name = name;
+			this.description = description;
+			this.meta = meta;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * Serve until killed, for load tests from another process:
+	 * port, object structure, records, latency and jitter in milliseconds, error rate
+	 */
+	public static void main(String[] args) throws IOException {
+		MockMaximoServer server = new MockMaximoServer()
+				.port(args.length > 0 ? Integer.parseInt(args[0]) : 8080)
+				.latency(args.length > 3 ? Long.parseLong(args[3]) : 0, args.length > 4 ? Long.parseLong(args[4]) : 0)
+				.errorRate(args.length > 5 ? Double.parseDouble(args[5]) : 0)
+				.objectStructure(args.length > 1 ? args[1] : "mxasset", args.length > 2 ? Integer.parseInt(args[2]) : 1000)
+				.start();
+		System.out.println("Serving " + server.uri(args.length > 1 ? args[1] : "mxasset") + " as "
+				+ server.user + "/" + server.password);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MockMaximoServerTest {
+
+	private MockMaximoServer server;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new MockMaximoServer().objectStructure("mxasset", 6).attachments(1, 3000)
+				.objectStructure("mxwodetail", "wonum", 25).start();
+	}
+
+	@After
+	public void stopServer() {
+		server.close();
+	}
+
+	@Test
+	public void everyAuthenticationLogsIn() throws Exception {
+		MemoryTransport.connect(server.options().lean(true));
+		MemoryTransport.connect(server.options().auth(Options.AUTH_BASIC));
+		MemoryTransport.connect(server.options().auth(Options.AUTH_FORM).lean(true));
+		assertEquals(3, server.getLoginCount());
+		try {
+			MemoryTransport.connect(server.options().password("wrong"));
+			fail();
+		} catch (OslcException e) {
+			assertEquals(401, e.getErrorCode());
+		}
+	}
+
+	@Test
+	public void collectionsArePagedLeanOrPrefixed() throws Exception {
+		for (boolean lean : new boolean[] { true, false }) {
+			MaximoConnector mc = MemoryTransport.connect(server.options().lean(lean));
+			ResourceSet rs = mc.resourceSet("mxwodetail").select("wonum", "status").pageSize(10).fetch();
+			assertEquals(25, rs.totalCount());
+			assertEquals(10, rs.count());
+			assertTrue(rs.hasNextPage());
+			rs.nextPage();
+			rs.nextPage();
+			assertEquals(5, rs.count());
+			assertFalse(rs.hasNextPage());
+			JsonObject member = rs.toJSON().getJsonArray(lean ? "member" : "rdfs:member").getJsonObject(0);
+			assertEquals("1020", member.getString(lean ? "wonum" : "spi:wonum"));
+			assertFalse(member.containsKey(lean ? "siteid" : "spi:siteid"));
+			assertEquals(10, mc.resourceSet("mxwodetail").pageSize(10).stablePaging(true).fetch().count());
+		}
+	}
+
+	@Test
+	public void groupByCountsEveryRecord() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		JsonArray groups = mc.resourceSet("mxwodetail").groupBy().groupByOn("siteid").count().sumOn("priority")
+				.processGroupBy();
+		assertEquals(3, groups.size());
+		int total = 0;
+		for (JsonValue group : groups) {
+			total += ((JsonObject) group).getInt("count");
+		}
+		assertEquals(25, total);
+	}
+
+	@Test
+	public void writesChangeTheDataset() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		String assets = server.uri("mxasset");
+		JsonObject created = mc.create(assets, Json.createObjectBuilder().add("assetnum", "NEW").build(), "assetnum");
+		assertEquals("NEW", created.getString("assetnum"));
+		String href = created.getString("href");
+		assertEquals("BROKEN", mc.update(href, Json.createObjectBuilder().add("status", "BROKEN").build(), "status")
+				.getString("status"));
+		mc.merge(href, Json.createObjectBuilder().add("priority", 1).build());
+		assertEquals(1, mc.get(href).getInt("priority"));
+		mc.sync(assets, Json.createObjectBuilder().add("assetnum", "NEW").add("siteid", "TEXAS").build());
+		assertEquals("TEXAS", mc.get(href).getString("siteid"));
+		assertEquals(Integer.valueOf(7), server.size("mxasset"));
+
+		BulkProcessor bp = new BulkProcessor(mc, assets);
+		bp.create(Json.createObjectBuilder().add("assetnum", "B1").build());
+		bp.delete(href);
+		JsonArray responses = bp.processBulk();
+		assertEquals("201", responses.getJsonObject(0).getJsonObject("_responsemeta").getString("status"));
+		assertEquals(Integer.valueOf(7), server.size("mxasset"));
+		mc.delete(mc.resourceSet("mxasset").fetch().member(0).getURI());
+		assertEquals(Integer.valueOf(6), server.size("mxasset"));
+	}
+
+	@Test
+	public void doclinksAreUploadedAndDownloadedWithRanges() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		Resource wo = mc.resourceSet("mxwodetail").fetch().member(0);
+		AttachmentSet doclinks = wo.attachmentSet();
+		Attachment existing = doclinks.member(0);
+		assertEquals(3000, existing.toDoc().length);
+		Path file = Files.createTempFile("doc", ".bin");
+		try {
+			assertEquals(3000, existing.downloadTo(file, 3));
+			assertArrayEquals(existing.toDoc(), Files.readAllBytes(file));
+		} finally {
+			Files.delete(file);
+		}
+
+		byte[] data = "inspection report".getBytes("UTF-8");
+		Attachment uploaded = doclinks.create(new Attachment().name("report.txt").description("Report")
+				.meta("FILE", "Attachments").data(data));
+		assertNotNull(uploaded.getURI());
+		assertEquals(2, doclinks.thisPageSize());
+		assertArrayEquals(data, new Attachment(uploaded.getURI(), mc).toDoc());
+		assertEquals("Report", new Attachment(uploaded.getURI(), mc).loadMeta().getDescription());
+	}
+
+	@Test
+	public void latencyErrorsAndExpiredSessionsAreInjected() throws Exception {
+		server.close();
+		server = new MockMaximoServer().objectStructure("mxasset", 3).latency(40, 0).errorRate(1).start();
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true).relogin(false));
+		long start = System.nanoTime();
+		try {
+			mc.get(server.uri("mxasset"));
+			fail();
+		} catch (OslcException e) {
+			assertEquals(503, e.getErrorCode());
+		}
+		assertTrue(System.nanoTime() - start >= 40000000L);
+
+		server.errorRate(0).expireSessions();
+		try {
+			mc.get(server.uri("mxasset"));
+			fail();
+		} catch (OslcException e) {
+			assertEquals(401, e.getErrorCode());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.json.Json;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+public class OslcEventTest {
+
+	private static final String ASSETS = "http://localhost/maximo/oslc/os/mxasset";
+
+	/**
+	 * Answers bulk requests with an empty response and reads with an asset
+	 */
+	private static class AssetTransport extends MemoryTransport {
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			return response(200, request.getBody() != null ? "[]" : "{\"assetnum\":\"A\"}");
+		}
+	}
+
+	@Test
+	public void uriTemplatesHideTheIdsAndTheQuery() {
+		assertEquals("/maximo/oslc/os/mxasset/{id}/assetmeter/{id}", OslcRequestEvent
+				.template("http://host:9080/maximo/oslc/os/mxasset/_QkVERk9SRC8xMDAx/assetmeter/0?lean=1"));
+		assertEquals("/maximo/oslc/os/mxasset", OslcRequestEvent.template("http://host/maximo/oslc/os/mxasset?oslc.where=x"));
+		assertEquals("/maximo/oslc/login", OslcRequestEvent.template("http://host/maximo/oslc/login?_lid=wilson&_lpwd=x"));
+	}
+
+	@Test
+	public void exchangesParsesLoginsAndFlushesAreRecorded() throws Exception {
+		Path file = Files.createTempFile("oslc", ".jfr");
+		assertFalse(OslcRequestEvent.enabled());
+		try (Recording recording = new Recording()) {
+			recording.enable(OslcRequestEvent.class).withoutThreshold();
+			recording.enable(OslcConnectEvent.class).withoutThreshold();
+			recording.enable(OslcParseEvent.class).withoutThreshold();
+			recording.enable(OslcBulkFlushEvent.class).withoutThreshold();
+			recording.start();
+			assertTrue(OslcRequestEvent.enabled());
+			assertTrue(OslcParseEvent.enabled());
+
+			MaximoConnector mc = MemoryTransport.connect(new AssetTransport());
+			mc.get(ASSETS + "/_QTE-");
+			try (BulkProcessor bp = new BulkProcessor(mc, ASSETS).maxItems(2)) {
+				bp.create(Json.createObjectBuilder().add("assetnum", "B").build());
+				bp.create(Json.createObjectBuilder().add("assetnum", "C").build());
+			}
+
+			recording.stop();
+			recording.dump(file);
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+			RecordedEvent get = find(events, "com.ibm.maximo.oslc.Request", "mxasset GET");
+			assertEquals("/maximo/oslc/os/mxasset/{id}", get.getString("uriTemplate"));
+			assertEquals("mxasset", get.getString("objectStructure"));
+			assertEquals(200, get.getInt("statusCode"));
+			assertEquals(16, get.getLong("bytesReceived"));
+			assertTrue(get.getDuration().toNanos() >= get.getLong("timeToFirstByte"));
+			RecordedEvent bulk = find(events, "com.ibm.maximo.oslc.Request", "mxasset BULK");
+			assertTrue(bulk.getLong("bytesSent") > 0);
+
+			RecordedEvent connect = find(events, "com.ibm.maximo.oslc.Connect", null);
+			assertEquals("maxauth", connect.getString("auth"));
+			assertEquals(200, connect.getInt("statusCode"));
+			assertEquals(16, parsed(events, "/maximo/oslc/os/mxasset/{id}").getLong("bytes"));
+			RecordedEvent flush = find(events, "com.ibm.maximo.oslc.BulkFlush", null);
+			assertEquals(2, flush.getInt("operations"));
+			assertFalse(flush.getBoolean("failed"));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * The first event of the type, of the object structure and verb when they are given
+	 */
+	private static RecordedEvent find(List<RecordedEvent> events, String name, String request) {
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(name) && (request == null
+					|| request.equals(event.getString("objectStructure") + " " + event.getString("method")))) {
+				return event;
+			}
+		}
+		throw new AssertionError(name + " " + request + " not recorded");
+	}
+
+	/**
+	 * The first parse of a response to the uri template, the bulk responses are parsed too
+	 */
+	private static RecordedEvent parsed(List<RecordedEvent> events, String uriTemplate) {
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals("com.ibm.maximo.oslc.Parse")
+					&& uriTemplate.equals(event.getString("uriTemplate"))) {
+				return event;
+			}
+		}
+		throw new AssertionError("parse of " + uriTemplate + " not recorded");
+	}
+}
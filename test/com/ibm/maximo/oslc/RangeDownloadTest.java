@@ -0,0 +1,196 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RangeDownloadTest {
+
+	private static final String DOC = "http://localhost/maximo/oslc/os/mxasset/1/doclinks/7";
+	private static final byte[] CONTENT = new byte[1024 * 1024 + 123];
+
+	static {
+		new Random(7).nextBytes(CONTENT);
+	}
+
+	/**
+	 * Serves the document with or without range support, the first {@code failures}
+	 * bodies break after {@code breakAfter} bytes
+	 */
+	private static class RangeTransport extends MemoryTransport {
+
+		final boolean ranges;
+		final List<String> requested = new CopyOnWriteArrayList<String>();
+		final List<String> traced = new CopyOnWriteArrayList<String>();
+		final AtomicInteger failures;
+		final int breakAfter;
+		volatile String contentRange;
+
+		RangeTransport(boolean ranges, int failures, int breakAfter) {
+			this.ranges = ranges;
+			this.failures = new AtomicInteger(failures);
+			this.breakAfter = breakAfter;
+		}
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			Map<String, List<String>> headers = session();
+			String range = request.getHeader("Range");
+			requested.add(range);
+			if (request.getHeader("x-trace") != null) {
+				traced.add(request.getHeader("x-trace"));
+			}
+			int first = 0;
+			int last = CONTENT.length - 1;
+			int status = 200;
+			if (ranges && range != null) {
+				String[] bounds = range.substring("bytes=".length()).split("-", -1);
+				first = Integer.parseInt(bounds[0]);
+				if (!bounds[1].isEmpty()) {
+					last = Math.min(Integer.parseInt(bounds[1]), last);
+				}
+				if (first >= CONTENT.length) {
+					headers.put("Content-Range", Collections.singletonList("bytes */" + CONTENT.length));
+					return new TransportResponse(416, headers, null);
+				}
+				status = 206;
+				headers.put("Content-Range", Collections.singletonList(contentRange != null ? contentRange
+						: "bytes " + first + "-" + last + "/" + CONTENT.length));
+			}
+			headers.put("Accept-Ranges", Collections.singletonList(ranges ? "bytes" : "none"));
+			headers.put("Content-Length", Collections.singletonList(String.valueOf(last - first + 1)));
+			InputStream body = new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, first, last + 1));
+			if (failures.getAndDecrement() > 0) {
+				body = new BreakingStream(body, breakAfter);
+			}
+			return new TransportResponse(status, headers, body);
+		}
+	}
+
+	private static class BreakingStream extends InputStream {
+		private final InputStream in;
+		private int left;
+
+		BreakingStream(InputStream in, int left) {
+			this.in = in;
+			this.left = left;
+		}
+
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return this.read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (left <= 0) {
+				throw new IOException("connection reset");
+			}
+			int n = in.read(b, off, Math.min(len, left));
+			left -= Math.max(n, 0);
+			return n;
+		}
+	}
+
+	private Path file;
+
+	@Before
+	public void createFile() throws IOException {
+		file = Files.createTempFile("range", ".bin");
+	}
+
+	@After
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	private static Attachment attachment(Transport transport) throws IOException, OslcException {
+		return new Attachment(DOC, MemoryTransport.connect(transport));
+	}
+
+	@Test
+	public void resumesAfterTheBytesAlreadyInTheFile() throws Exception {
+		Files.write(file, Arrays.copyOf(CONTENT, 1000));
+		RangeTransport transport = new RangeTransport(true, 1, 300000);
+		assertEquals(CONTENT.length, attachment(transport).resumeDownloadTo(file));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file));
+		assertEquals(Arrays.asList("bytes=1000-", "bytes=301000-"), transport.requested);
+
+		assertEquals(CONTENT.length, attachment(transport).resumeDownloadTo(file));
+		assertEquals("bytes=" + CONTENT.length + "-", transport.requested.get(2));
+	}
+
+	@Test
+	public void segmentsAreFetchedConcurrentlyAndReassembled() throws Exception {
+		Files.write(file, new byte[10]);
+		RangeTransport transport = new RangeTransport(true, 2, 50000);
+		assertEquals(CONTENT.length, attachment(transport).downloadTo(file, 4));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file));
+		assertTrue(transport.requested.size() >= 6);
+		assertTrue(transport.requested.contains("bytes=0-"));
+	}
+
+	@Test
+	public void serversWithoutRangesSendTheWholeDocument() throws Exception {
+		Files.write(file, new byte[10]);
+		RangeTransport transport = new RangeTransport(false, 0, 0);
+		assertEquals(CONTENT.length, attachment(transport).resumeDownloadTo(file));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file));
+		assertEquals(CONTENT.length, attachment(transport).downloadTo(file, 4));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file));
+	}
+
+	@Test
+	public void headersGoWithEveryRangeRequest() throws Exception {
+		RangeTransport transport = new RangeTransport(true, 1, 50000);
+		Map<String, Object> headers = Collections.<String, Object> singletonMap("x-trace", "dl-1");
+		assertEquals(CONTENT.length, attachment(transport).resumeDownloadTo(file, headers));
+		assertEquals(CONTENT.length, attachment(transport).downloadTo(file, 4, headers));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file));
+		assertEquals(transport.requested.size(), transport.traced.size());
+	}
+
+	@Test
+	public void aMalformedContentRangeFailsTheDownload() throws Exception {
+		RangeTransport transport = new RangeTransport(true, 0, 0);
+		transport.contentRange = "bytes 0-99/lots";
+		try {
+			attachment(transport).resumeDownloadTo(file);
+			fail();
+		} catch (IOException e) {
+			assertEquals(RangeDownload.MAX_ATTEMPTS, transport.requested.size());
+		}
+		try {
+			attachment(transport).downloadTo(file, 4);
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Malformed Content-Range"));
+		}
+	}
+}
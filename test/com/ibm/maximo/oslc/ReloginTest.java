@@ -0,0 +1,236 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReloginTest {
+
+	private static final int THREADS = 16;
+
+	private MockMaximoServer server;
+
+	@Before
+	public void startServer() throws Exception {
+		server = new MockMaximoServer().latency(20, 0).objectStructure("mxasset", 20).start();
+	}
+
+	@After
+	public void stopServer() {
+		server.close();
+	}
+
+	@Test
+	public void concurrentRequestsShareOneLogin() throws Exception {
+		final MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		final List<String> hrefs = new ArrayList<String>();
+		ResourceSet rs = mc.resourceSet("mxasset").pageSize(THREADS).fetch();
+		for (int i = 0; i < THREADS; i++) {
+			hrefs.add(rs.member(i).getURI());
+		}
+		server.expireSessions();
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Future<JsonObject>> results = new ArrayList<Future<JsonObject>>();
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				final String href = hrefs.get(i);
+				results.add(pool.submit(() -> {
+					start.await();
+					return mc.get(href);
+				}));
+			}
+			start.countDown();
+			for (int i = 0; i < THREADS; i++) {
+				assertEquals(hrefs.get(i), results.get(i).get(10, TimeUnit.SECONDS).getString("href"));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(2, server.getLoginCount());
+
+		server.expireSessions();
+		assertEquals(hrefs.get(0), mc.getAsync(hrefs.get(0)).get(10, TimeUnit.SECONDS).getString("href"));
+		assertEquals(3, server.getLoginCount());
+	}
+
+	@Test
+	public void writesAreReplayedOnlyWhenIdempotent() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		String assets = server.uri("mxasset");
+		String href = mc.resourceSet("mxasset").fetch().member(0).getURI();
+
+		server.expireSessions();
+		mc.merge(href, Json.createObjectBuilder().add("status", "BROKEN").build());
+		assertEquals("BROKEN", mc.get(href).getString("status"));
+
+		server.expireSessions();
+		JsonObject asset = Json.createObjectBuilder().add("assetnum", "NEW").build();
+		try {
+			mc.create(assets, asset);
+			fail();
+		} catch (OslcException e) {
+			assertEquals(401, e.getErrorCode());
+		}
+		assertEquals(Integer.valueOf(20), server.size("mxasset"));
+		assertEquals(3, server.getLoginCount());
+
+		server.expireSessions();
+		Map<String, Object> headers = new HashMap<String, Object>();
+		headers.put("transactionid", "load-1");
+		mc.create(assets, asset, headers);
+		assertEquals(Integer.valueOf(21), server.size("mxasset"));
+		assertEquals(4, server.getLoginCount());
+	}
+
+	@Test
+	public void expiredSessionsFailWithoutRelogin() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true).relogin(false));
+		server.expireSessions();
+		try {
+			mc.get(server.uri("mxasset"));
+			fail();
+		} catch (OslcException e) {
+			assertEquals(401, e.getErrorCode());
+		}
+		assertEquals(1, server.getLoginCount());
+	}
+
+	@Test
+	public void aFailedReloginInvalidatesTheConnector() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(server.options().lean(true));
+		server.credentials("wilson", "changed").expireSessions();
+		try {
+			mc.get(server.uri("mxasset"));
+			fail();
+		} catch (OslcException e) {
+			assertEquals(401, e.getErrorCode());
+		}
+		assertFalse(mc.isValid());
+	}
+
+	/**
+	 * Answers the second GET with the HTML login page, as a server redirecting an expired
+	 * session does
+	 */
+	private static class LoginPageTransport implements Transport {
+
+		private final AtomicInteger logins = new AtomicInteger();
+		private final AtomicInteger gets = new AtomicInteger();
+
+		public TransportResponse send(TransportRequest request) throws IOException {
+			Map<String, List<String>> headers = new HashMap<String, List<String>>();
+			if (!request.getURI().contains("/os/")) {
+				headers.put("Set-Cookie", Collections.singletonList("JSESSIONID=s" + logins.incrementAndGet()));
+				return new TransportResponse(200, headers, null);
+			}
+			String body = "{\"assetnum\":\"A\"}";
+			if (gets.incrementAndGet() == 2) {
+				headers.put("Content-Type", Collections.singletonList("text/html"));
+				body = "<html><form action=\"j_security_check\"></form></html>";
+			}
+			return new TransportResponse(200, headers, new ByteArrayInputStream(body.getBytes("UTF-8")));
+		}
+	}
+
+	@Test
+	public void theLoginPageIsAnExpiredSession() throws Exception {
+		LoginPageTransport transport = new LoginPageTransport();
+		MaximoConnector mc = MemoryTransport.connect(MemoryTransport.options().auth(Options.AUTH_FORM), transport);
+		String uri = "http://localhost/maximo/oslc/os/mxasset/1";
+		assertEquals("A", mc.get(uri).getString("assetnum"));
+		assertEquals("A", mc.get(uri).getString("assetnum"));
+		assertEquals(2, transport.logins.get());
+		assertEquals(3, transport.gets.get());
+	}
+
+	/**
+	 * Answers the first GET of "expire" with 401 and holds the second login until a
+	 * request has been sent meanwhile, recording the cookie of that request
+	 */
+	private static class SlowReloginTransport implements Transport {
+
+		private final AtomicInteger logins = new AtomicInteger();
+		private final AtomicBoolean expired = new AtomicBoolean();
+		private final CountDownLatch relogging = new CountDownLatch(1);
+		private final CountDownLatch sent = new CountDownLatch(1);
+		private volatile String cookie;
+
+		public TransportResponse send(TransportRequest request) throws IOException {
+			Map<String, List<String>> headers = new HashMap<String, List<String>>();
+			if (!request.getURI().contains("/os/")) {
+				int login = logins.incrementAndGet();
+				if (login == 2) {
+					relogging.countDown();
+					try {
+						sent.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				headers.put("Set-Cookie", Collections.singletonList("JSESSIONID=s" + login));
+				return new TransportResponse(200, headers, null);
+			}
+			if (request.getURI().endsWith("expire") && expired.compareAndSet(false, true)) {
+				return MemoryTransport.response(401, headers, "{\"Error\":{\"message\":\"expired\"}}");
+			}
+			if (relogging.getCount() == 0 && sent.getCount() > 0) {
+				cookie = request.getHeader("Cookie");
+				sent.countDown();
+			}
+			return MemoryTransport.response(200, headers, "{\"assetnum\":\"A\"}");
+		}
+	}
+
+	@Test
+	public void requestsSentDuringAReloginKeepTheOldSession() throws Exception {
+		SlowReloginTransport transport = new SlowReloginTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		String uri = "http://localhost/maximo/oslc/os/mxasset/";
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			Future<JsonObject> renewing = pool.submit(() -> mc.get(uri + "expire"));
+			assertTrue(transport.relogging.await(5, TimeUnit.SECONDS));
+			assertEquals("A", mc.get(uri + "1").getString("assetnum"));
+			assertEquals("A", renewing.get(5, TimeUnit.SECONDS).getString("assetnum"));
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals("JSESSIONID=s1", transport.cookie);
+		assertEquals(2, transport.logins.get());
+	}
+}
@@ -0,0 +1,123 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+
+import org.junit.Test;
+
+public class ResourceCacheTest {
+
+	private static final String ASSET = "http://localhost/maximo/oslc/os/mxasset/";
+
+	/**
+	 * Serves assets and counts the GETs, writes are answered with no content
+	 */
+	private static class AssetTransport extends MemoryTransport {
+
+		final AtomicInteger gets = new AtomicInteger();
+		// run while a GET is answered, as a write of another thread would
+		volatile Runnable duringGet;
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			if (!"GET".equals(request.getMethod())) {
+				return response(204, null);
+			}
+			gets.incrementAndGet();
+			if (duringGet != null) {
+				duringGet.run();
+			}
+			String uri = request.getURI();
+			String href = uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri;
+			return response(200, "{\"href\":\"" + href + "\",\"assetnum\":\"A\"}");
+		}
+	}
+
+	private static MaximoConnector connector(Transport transport, int entries, long ttl)
+			throws IOException, OslcException {
+		return MemoryTransport.connect(MemoryTransport.options().resourceCache(entries, ttl), transport);
+	}
+
+	@Test
+	public void fetchesAreCachedPerProperties() throws Exception {
+		AssetTransport transport = new AssetTransport();
+		MaximoConnector mc = connector(transport, 10, 0);
+		mc.resource(ASSET + "1");
+		mc.resource(ASSET + "1");
+		mc.resourceSet("mxasset").fetchMember(ASSET + "1");
+		mc.resource(ASSET + "1", "assetnum");
+		assertEquals(2, transport.gets.get());
+		ResourceCache cache = mc.getResourceCache();
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	@Test
+	public void writesInvalidateTheResourceAndItsCollectionMembers() throws Exception {
+		AssetTransport transport = new AssetTransport();
+		MaximoConnector mc = connector(transport, 10, 0);
+		mc.resource(ASSET + "1");
+		mc.resource(ASSET + "2", "assetnum");
+		mc.resource(ASSET + "3");
+
+		mc.resource(ASSET + "1").invokeAction("wsmethod:changeStatus",
+				Json.createObjectBuilder().add("status", "DECOMMISSIONED").build(), "status");
+		assertEquals(2, mc.getResourceCache().size());
+		mc.delete(ASSET + "2");
+		assertEquals(1, mc.getResourceCache().size());
+		mc.sync("http://localhost/maximo/oslc/os/mxasset", Json.createObjectBuilder().add("assetnum", "A").build());
+		assertEquals(0, mc.getResourceCache().size());
+		assertEquals(3, mc.getResourceCache().getInvalidations());
+
+		mc.create("http://localhost/maximo/oslc/os/mxasset", Json.createObjectBuilder().add("assetnum", "B").build(),
+				"*");
+		mc.resource(ASSET + "3");
+		mc.merge(ASSET + "3/assetmeter/0", Json.createObjectBuilder().add("active", true).build());
+		assertEquals(0, mc.getResourceCache().size());
+	}
+
+	@Test
+	public void entriesAreEvictedBySizeAndAge() throws Exception {
+		AssetTransport transport = new AssetTransport();
+		MaximoConnector mc = connector(transport, 2, 0);
+		for (int i = 0; i < 3; i++) {
+			mc.resource(ASSET + i);
+		}
+		assertEquals(2, mc.getResourceCache().size());
+		assertEquals(1, mc.getResourceCache().getEvictions());
+
+		MaximoConnector expiring = connector(transport, 10, 20);
+		expiring.resource(ASSET + "1");
+		Thread.sleep(50);
+		int before = transport.gets.get();
+		expiring.resource(ASSET + "1");
+		assertEquals(before + 1, transport.gets.get());
+		assertEquals(1, expiring.getResourceCache().getEvictions());
+	}
+
+	@Test
+	public void aResourceReadBeforeAnInvalidationIsNotCached() throws Exception {
+		AssetTransport transport = new AssetTransport();
+		final MaximoConnector mc = connector(transport, 10, 0);
+		transport.duringGet = () -> mc.getResourceCache().invalidate(ASSET + "1");
+		mc.resource(ASSET + "1");
+		assertEquals(0, mc.getResourceCache().size());
+		transport.duringGet = null;
+		mc.resource(ASSET + "1");
+		mc.resource(ASSET + "1");
+		assertEquals(2, transport.gets.get());
+	}
+}
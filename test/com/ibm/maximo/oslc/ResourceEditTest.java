@@ -0,0 +1,109 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class ResourceEditTest {
+
+	private static final String PO = "{\"href\":\"http://localhost/maximo/oslc/os/mxpo/1\",\"ponum\":\"1001\","
+			+ "\"status\":\"WAPPR\",\"description\":\"Pumps\",\"poline\":["
+			+ "{\"localref\":\"http://localhost/maximo/oslc/os/mxpo/1/poline/0\",\"polinenum\":1,\"orderqty\":2},"
+			+ "{\"localref\":\"http://localhost/maximo/oslc/os/mxpo/1/poline/1\",\"polinenum\":2,\"orderqty\":4}]}";
+
+	/**
+	 * Serves the po and records the merges, answering with the properties asked for
+	 */
+	private static class PoTransport extends MemoryTransport {
+
+		final List<TransportRequest> writes = new CopyOnWriteArrayList<TransportRequest>();
+		int gets = 0;
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			if (request.getBody() == null) {
+				gets++;
+				return response(200, PO);
+			}
+			writes.add(request);
+			if (request.getHeader("Properties") != null) {
+				return response(200, "{\"status\":\"APPR\",\"statusdate\":\"2016-01-01T00:00:00\"}");
+			}
+			return response(204, null);
+		}
+	}
+
+	private static JsonObject body(TransportRequest request) {
+		return Json.createReader(new ByteArrayInputStream(request.getBody())).readObject();
+	}
+
+	@Test
+	public void savesOnlyTheChangedAttributesAndChildren() throws Exception {
+		PoTransport transport = new PoTransport();
+		Resource po = MemoryTransport.connect(transport).resource("http://localhost/maximo/oslc/os/mxpo/1");
+		po.set("description", "Pumps and valves").set("poline", 1, "orderqty", 6);
+		assertTrue(po.isDirty());
+		po.save();
+
+		assertEquals(1, transport.writes.size());
+		TransportRequest merge = transport.writes.get(0);
+		assertEquals("MERGE", merge.getHeader("patchtype"));
+		JsonObject sent = body(merge);
+		assertEquals(2, sent.size());
+		assertEquals("Pumps and valves", sent.getString("description"));
+		JsonObject line = sent.getJsonArray("poline").getJsonObject(0);
+		assertEquals(2, line.size());
+		assertEquals("http://localhost/maximo/oslc/os/mxpo/1/poline/1", line.getString("localref"));
+		assertEquals(6, line.getInt("orderqty"));
+
+		assertEquals(1, transport.gets);
+		assertFalse(po.isDirty());
+		JsonObject local = po.toJSON();
+		assertEquals("Pumps and valves", local.getString("description"));
+		assertEquals(2, local.getJsonArray("poline").getJsonObject(0).getInt("orderqty"));
+		assertEquals(6, local.getJsonArray("poline").getJsonObject(1).getInt("orderqty"));
+	}
+
+	@Test
+	public void editedCopyIsDiffedAndTheResponseIsApplied() throws Exception {
+		PoTransport transport = new PoTransport();
+		Resource po = MemoryTransport.connect(transport).resource("http://localhost/maximo/oslc/os/mxpo/1");
+		JsonObject edited = Json.createObjectBuilder().add("href", "http://localhost/maximo/oslc/os/mxpo/1")
+				.add("ponum", "1001").add("status", "APPR").build();
+		po.edit(edited).save("status", "statusdate");
+
+		TransportRequest merge = transport.writes.get(0);
+		assertEquals("status,statusdate", merge.getHeader("Properties"));
+		assertEquals(Json.createObjectBuilder().add("status", "APPR").build(), body(merge));
+		assertEquals("2016-01-01T00:00:00", po.toJSON().getString("statusdate"));
+		assertEquals("Pumps", po.toJSON().getString("description"));
+		assertEquals(1, transport.gets);
+	}
+
+	@Test
+	public void nothingIsSentWithoutChanges() throws Exception {
+		PoTransport transport = new PoTransport();
+		Resource po = MemoryTransport.connect(transport).resource("http://localhost/maximo/oslc/os/mxpo/1");
+		po.set("status", "WAPPR").save();
+		assertTrue(transport.writes.isEmpty());
+	}
+}
@@ -0,0 +1,308 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class ResourceSetPagingTest {
+
+	private static final int PAGES = 4;
+	private static final int PAGE_SIZE = 3;
+
+	/**
+	 * Serves PAGES pages of PAGE_SIZE assets from memory, with a small delay per page
+	 */
+	private static class PagingTransport extends MemoryTransport {
+
+		final List<String> requested = new CopyOnWriteArrayList<String>();
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			String uri = request.getURI();
+			requested.add(uri);
+			int pageno = uri.contains("pageno=") ? Integer.parseInt(uri.substring(uri.indexOf("pageno=") + 7)) : 1;
+			try {
+				// later pages answer faster, so they arrive out of order
+				Thread.sleep(10 * (PAGES + 1) - (pageno * 10));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			StringBuilder page = new StringBuilder("{\"member\":[");
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				page.append(i > 0 ? "," : "").append("{\"assetnum\":\"A").append((pageno - 1) * PAGE_SIZE + i).append("\"}");
+			}
+			page.append("],\"responseInfo\":{\"totalCount\":").append(PAGES * PAGE_SIZE);
+			if (pageno < PAGES) {
+				page.append(",\"nextPage\":{\"href\":\"http://localhost/maximo/oslc/os/mxasset?pageno=")
+						.append(pageno + 1).append("\"}");
+			}
+			page.append("}}");
+			return response(200, page.toString());
+		}
+	}
+
+	private static List<String> expected() {
+		List<String> assetnums = new ArrayList<String>();
+		for (int i = 0; i < PAGES * PAGE_SIZE; i++) {
+			assetnums.add("A" + i);
+		}
+		return assetnums;
+	}
+
+	@Test
+	public void streamWalksEveryPageInOrder() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		List<String> assetnums = mc.resourceSet("mxasset").prefetch(2).stream()
+				.map(member -> member.getString("assetnum")).collect(Collectors.toList());
+		assertEquals(expected(), assetnums);
+		assertEquals(PAGES, transport.requested.size());
+	}
+
+	@Test
+	public void iteratorWithoutPrefetchFetchesOnDemand() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		Iterator<JsonObject> it = mc.resourceSet("mxasset").prefetch(0).iterator();
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			assertEquals("A" + i, it.next().getString("assetnum"));
+		}
+		assertEquals(1, transport.requested.size());
+		List<String> assetnums = new ArrayList<String>();
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			assetnums.add("A" + i);
+		}
+		while (it.hasNext()) {
+			assetnums.add(it.next().getString("assetnum"));
+		}
+		assertEquals(expected(), assetnums);
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void nextPagesAreFetchedWhileTheCurrentPageIsConsumed() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		Iterator<JsonObject> it = mc.resourceSet("mxasset").prefetch(2).iterator();
+		assertEquals("A0", it.next().getString("assetnum"));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (transport.requested.size() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(3, transport.requested.size());
+		assertTrue(it.hasNext());
+	}
+
+	@Test
+	public void closingTheStreamCancelsThePrefetchedPages() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		Stream<JsonObject> members = mc.resourceSet("mxasset").prefetch(PAGES).stream();
+		// the first page is still on its way, the pages chained on it are never requested
+		members.close();
+		Thread.sleep(10 * (PAGES + 1) * 2);
+		assertEquals(1, transport.requested.size());
+	}
+
+	@Test
+	public void parallelScanInPageOrder() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		List<String> assetnums = new ArrayList<String>();
+		int count = mc.resourceSet("mxasset").pageSize(PAGE_SIZE).parallelScan(PAGES, true,
+				member -> assetnums.add(member.getString("assetnum")));
+		assertEquals(PAGES * PAGE_SIZE, count);
+		assertEquals(expected(), assetnums);
+		assertEquals(PAGES, transport.requested.size());
+	}
+
+	@Test
+	public void parallelScanOfAPageWithoutMembers() throws Exception {
+		MaximoConnector mc = MemoryTransport.connect(new MemoryTransport() {
+			protected TransportResponse answer(TransportRequest request) throws IOException {
+				return response(200, "{\"responseInfo\":{\"totalCount\":0}}");
+			}
+		});
+		assertEquals(0, mc.resourceSet("mxasset").pageSize(PAGE_SIZE).parallelScan(PAGES, true, member -> { }));
+	}
+
+	@Test
+	public void aFailedPageCancelsTheOtherPagesOfTheScan() throws Exception {
+		final List<CompletableFuture<JsonObject>> pages = new CopyOnWriteArrayList<CompletableFuture<JsonObject>>();
+		MaximoConnector mc = new MaximoConnector(MemoryTransport.options()) {
+			public CompletableFuture<JsonObject> getAsync(String uri) {
+				CompletableFuture<JsonObject> page = super.getAsync(uri);
+				pages.add(page);
+				return page;
+			}
+		}.transport(new MemoryTransport() {
+			protected TransportResponse answer(TransportRequest request) throws IOException {
+				String uri = request.getURI();
+				if (uri.endsWith("pageno=2")) {
+					return response(500, "{\"Error\":{\"message\":\"page lost\"}}");
+				}
+				if (uri.contains("pageno=")) {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return response(200, "{\"member\":[{\"assetnum\":\"A\"}],\"responseInfo\":{\"totalCount\":"
+						+ PAGES * PAGE_SIZE + "}}");
+			}
+		});
+		mc.connect();
+		try {
+			mc.resourceSet("mxasset").pageSize(PAGE_SIZE).parallelScan(PAGES, true, member -> { });
+			fail();
+		} catch (OslcException e) {
+			assertEquals(500, e.getErrorCode());
+		}
+		assertEquals(PAGES - 1, pages.size());
+		for (CompletableFuture<JsonObject> page : pages.subList(1, pages.size())) {
+			assertTrue(page.isCancelled());
+		}
+	}
+
+	@Test
+	public void parallelScanAsPagesArrive() throws Exception {
+		PagingTransport transport = new PagingTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		List<String> assetnums = new ArrayList<String>();
+		mc.resourceSet("mxasset").pageSize(PAGE_SIZE).parallelScan(PAGES, false,
+				member -> assetnums.add(member.getString("assetnum")));
+		// the first page is read up front, the last page answers first
+		assertEquals("A0", assetnums.get(0));
+		assertEquals("A" + (PAGES - 1) * PAGE_SIZE, assetnums.get(PAGE_SIZE));
+		Collections.sort(assetnums, (a, b) -> Integer.parseInt(a.substring(1)) - Integer.parseInt(b.substring(1)));
+		assertEquals(expected(), assetnums);
+	}
+
+	/**
+	 * Serves assets with assetuid 1 to ASSETS, answering the min/max group by and
+	 * oslc.where ranges of the form assetuid>=a and assetuid<b with pageno paging
+	 */
+	private static class RangeTransport extends MemoryTransport {
+
+		static final int ASSETS = 50;
+		final List<String> wheres = new CopyOnWriteArrayList<String>();
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger peakInFlight = new AtomicInteger();
+		volatile boolean probeFails;
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			String uri = URLDecoder.decode(request.getURI(), "UTF-8");
+			if (uri.contains("gbcols=")) {
+				if (probeFails) {
+					return response(500, "{\"Error\":{\"message\":\"probe failed\"}}");
+				}
+				return response(200, "[{\"count\":" + ASSETS + ",\"min.assetuid\":1,\"max.assetuid\":" + ASSETS + "}]");
+			}
+			peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			Matcher range = Pattern.compile("assetuid>=(\\d+) and assetuid<(\\d+)").matcher(uri);
+			assertTrue(uri, range.find());
+			wheres.add(range.group());
+			int from = Integer.parseInt(range.group(1));
+			int to = Math.min(Integer.parseInt(range.group(2)), ASSETS + 1);
+			Matcher pageno = Pattern.compile("pageno=(\\d+)").matcher(uri);
+			int page = pageno.find() ? Integer.parseInt(pageno.group(1)) : 1;
+			int start = from + (page - 1) * PAGE_SIZE;
+			StringBuilder sb = new StringBuilder("{\"member\":[");
+			for (int id = start; id < Math.min(start + PAGE_SIZE, to); id++) {
+				sb.append(id > start ? "," : "").append("{\"assetuid\":").append(id).append("}");
+			}
+			sb.append("],\"responseInfo\":{");
+			if (start + PAGE_SIZE < to) {
+				sb.append("\"nextPage\":{\"href\":\"").append(uri.replaceAll("&pageno=\\d+", ""))
+						.append("&pageno=").append(page + 1).append("\"}");
+			}
+			return response(200, sb.append("}}").toString());
+		}
+	}
+
+	@Test
+	public void partitionedScanCoversEveryKeyOnce() throws Exception {
+		RangeTransport transport = new RangeTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		List<Integer> ids = Collections.synchronizedList(new ArrayList<Integer>());
+		int count = mc.resourceSet("mxasset").pageSize(PAGE_SIZE).partitionedScan("assetuid", 4,
+				member -> ids.add(member.getInt("assetuid")));
+		assertEquals(RangeTransport.ASSETS, count);
+		Collections.sort(ids);
+		for (int i = 0; i < RangeTransport.ASSETS; i++) {
+			assertEquals(Integer.valueOf(i + 1), ids.get(i));
+		}
+		assertTrue(transport.wheres.contains("assetuid>=1 and assetuid<14"));
+		assertTrue(transport.wheres.contains("assetuid>=40 and assetuid<53"));
+	}
+
+	@Test
+	public void partitionedScanBySizeWorksOutThePartitionCount() throws Exception {
+		RangeTransport transport = new RangeTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		int count = mc.resourceSet("mxasset").pageSize(PAGE_SIZE).partitionedScanBySize("assetuid", 10,
+				member -> { });
+		assertEquals(RangeTransport.ASSETS, count);
+		assertTrue(transport.wheres.contains("assetuid>=41 and assetuid<51"));
+	}
+
+	@Test
+	public void partitionedScanWalksAtMostParallelismRanges() throws Exception {
+		RangeTransport transport = new RangeTransport();
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		int count = mc.resourceSet("mxasset").pageSize(PAGE_SIZE).partitionedScan("assetuid", 10, 2, member -> { });
+		assertEquals(RangeTransport.ASSETS, count);
+		assertEquals(10, transport.wheres.stream().distinct().count());
+		assertTrue("peak " + transport.peakInFlight.get(), transport.peakInFlight.get() <= 2);
+	}
+
+	@Test
+	public void partitionedScanFailsWhenTheProbeFails() throws Exception {
+		RangeTransport transport = new RangeTransport();
+		transport.probeFails = true;
+		MaximoConnector mc = MemoryTransport.connect(transport);
+		try {
+			mc.resourceSet("mxasset").partitionedScan("assetuid", 4, member -> { });
+			fail();
+		} catch (OslcException e) {
+			assertEquals(500, e.getErrorCode());
+			assertEquals("probe failed", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+* Licensed Materials - Property of IBM
+*
+* (C) COPYRIGHT IBM CORP. 2015 All Rights Reserved
+*
+* US Government Users Restricted Rights - Use, duplication or
+* disclosure restricted by GSA ADP Schedule Contract with
+* IBM Corp.
+ */
+
+package com.ibm.maximo.oslc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class ResourceSetWriteTest {
+
+	/**
+	 * Serves a page of two assets and answers creates with the new asset
+	 */
+	private static class CollectionTransport extends MemoryTransport {
+
+		final AtomicInteger gets = new AtomicInteger();
+		final AtomicInteger created = new AtomicInteger(2);
+
+		protected TransportResponse answer(TransportRequest request) throws IOException {
+			if (request.getBody() == null) {
+				gets.incrementAndGet();
+				return response(200, "{\"member\":[{\"href\":\"http://localhost/maximo/oslc/os/mxasset/1\",\"assetnum\":\"A1\"},"
+						+ "{\"href\":\"http://localhost/maximo/oslc/os/mxasset/2\",\"assetnum\":\"A2\"}],"
+						+ "\"responseInfo\":{}}");
+			}
+			JsonObject jo = Json.createReader(new ByteArrayInputStream(request.getBody())).readObject();
+			int id = jo.containsKey("id") ? jo.getInt("id") : created.incrementAndGet();
+			Map<String, List<String>> headers = session();
+			headers.put("Location", Collections.singletonList("http://localhost/maximo/oslc/os/mxasset/" + id));
+			return response(201, headers, "{\"href\":\"http://localhost/maximo/oslc/os/mxasset/" + id
+					+ "\",\"assetnum\":\"" + jo.getString("assetnum") + "\"}");
+		}
+	}
+
+	private static JsonObject asset(String assetnum) {
+		return Json.createObjectBuilder().add("assetnum", assetnum).build();
+	}
+
+	@Test
+	public void writesMarkThePageStaleByDefault() throws Exception {
+		CollectionTransport transport = new CollectionTransport();
+		ResourceSet rs = MemoryTransport.connect(transport).resourceSet("mxasset").fetch();
+		assertEquals(1, transport.gets.get());
+		for (int i = 0; i < 10; i++) {
+			rs.create(asset("N" + i), "*");
+		}
+		assertEquals(1, transport.gets.get());
+		assertEquals(2, rs.count());
+		assertEquals(2, transport.gets.get());
+	}
+
+	@Test
+	public void appendModePutsTheNewMemberIntoThePage() throws Exception {
+		CollectionTransport transport = new CollectionTransport();
+		ResourceSet rs = MemoryTransport.connect(transport).resourceSet("mxasset").writeMode(ResourceSet.WRITE_APPEND).fetch();
+		rs.create(asset("N1"), "*");
+		rs.sync(Json.createObjectBuilder().add("id", 1).add("assetnum", "A1X").build(), "*");
+		assertEquals(3, rs.count());
+		assertEquals("http://localhost/maximo/oslc/os/mxasset/3", rs.member(2).getURI());
+		JsonArray members = rs.toJSON().getJsonArray("member");
+		assertEquals("A1X", members.getJsonObject(0).getString("assetnum"));
+		assertEquals("N1", members.getJsonObject(2).getString("assetnum"));
+		assertEquals(1, transport.gets.get());
+	}
+
+	@Test
+	public void reloadModeKeepsTheOldBehaviour() throws Exception {
+		CollectionTransport transport = new CollectionTransport();
+		ResourceSet rs = MemoryTransport.connect(transport).resourceSet("mxasset").writeMode(ResourceSet.WRITE_RELOAD).fetch();
+		rs.create(asset("N1"), "*");
+		rs.create(asset("N2"), "*");
+		assertEquals(3, transport.gets.get());
+	}
+
+	@Test
+	public void aStalePageIsReloadedBeforePaging() throws Exception {
+		CollectionTransport transport = new CollectionTransport();
+		ResourceSet rs = MemoryTransport.connect(transport).resourceSet("mxasset").fetch();
+		rs.create(asset("N1"), "*");
+		assertFalse(rs.hasNextPage());
+		assertEquals(2, transport.gets.get());
+	}
+
+	@Test
+	public void appendModeWithoutPropertiesMarksThePageStale() throws Exception {
+		CollectionTransport transport = new CollectionTransport();
+		ResourceSet rs = MemoryTransport.connect(transport).resourceSet("mxasset").writeMode(ResourceSet.WRITE_APPEND).fetch();
+		rs.create(asset("N1"));
+		assertEquals(1, transport.gets.get());
+		assertEquals(2, rs.count());
+		assertEquals(2, transport.gets.get());
+	}
+}